@@ -0,0 +1,187 @@
+package pl.grizwold.spotter;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.frame.Frame;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.model.ScaledMatch;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Spans several displays with one {@link Spotter} per display. All displays are captured concurrently and searched in
+ * parallel. Returned {@link Point}s are in the virtual desktop coordinates - each display's results are translated
+ * by the location of its working area, e.g. by the bounds of its {@link GraphicsDevice}.
+ */
+@Slf4j
+public class MultiDisplaySpotter implements AutoCloseable {
+    private final List<Spotter> displays;
+
+    /**
+     * Spans all screen devices of the local graphics environment.
+     */
+    public MultiDisplaySpotter() {
+        this(GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices());
+    }
+
+    public MultiDisplaySpotter(GraphicsDevice... graphicsDevices) {
+        this(Arrays.stream(graphicsDevices)
+                .map(Spotter::new)
+                .toList());
+    }
+
+    /**
+     * @param displays spotters of non-overlapping working areas
+     */
+    public MultiDisplaySpotter(List<Spotter> displays) {
+        if (displays.isEmpty()) {
+            throw new IllegalArgumentException("At least one display is required!");
+        }
+        this.displays = List.copyOf(displays);
+        this.displays.forEach(d -> log.debug("Display working area: {}", d.getWorkingArea()));
+    }
+
+    /**
+     * Captures all displays concurrently.
+     */
+    public MultiDisplaySpotter refresh() {
+        inParallel(Spotter::refresh);
+        return this;
+    }
+
+    /**
+     * @return locations of upper left pixel of given icon on all displays, in the virtual desktop coordinates
+     */
+    public List<Point> locateAll(Icon icon) {
+        return inParallel(display -> {
+            try (Frame frame = display.snapshot()) {
+                return frame.locateAll(icon).stream()
+                        .map(p -> p.translate(frame.getOffset()))
+                        .toList();
+            }
+        }).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * @return location of upper left pixel of given icon in the virtual desktop coordinates. When the icon is visible
+     * on several displays the location on the first of them is returned.
+     */
+    public Optional<Point> locate(Icon icon) {
+        return inParallel(display -> {
+            try (Frame frame = display.snapshot()) {
+                return frame.locate(icon)
+                        .map(p -> p.translate(frame.getOffset()));
+            }
+        }).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    /**
+     * @return location of center pixel of given icon in the virtual desktop coordinates
+     * @see #locate(Icon)
+     */
+    public Optional<Point> locateMiddle(Icon icon) {
+        Dimension size = icon.getDimension();
+        return locate(icon)
+                .map(p -> p.translate(size.width / 2, size.height / 2));
+    }
+
+    /**
+     * Locates the icon at any display scaling, each display detects and remembers its own scale.
+     *
+     * @return locations on all displays, in the virtual desktop coordinates
+     * @see Spotter#locateAllScaled(Icon)
+     */
+    public List<ScaledMatch> locateAllScaled(Icon icon) {
+        return inParallel(display -> display.locateAllScaled(icon).stream()
+                .map(m -> new ScaledMatch(m.location.translate(display.getOffset()), m.scale, m.icon))
+                .toList()).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * @see Spotter#withScales(double...)
+     */
+    public MultiDisplaySpotter withScales(double... scales) {
+        displays.forEach(display -> display.withScales(scales));
+        return this;
+    }
+
+    public boolean isVisible(Icon icon) {
+        return locate(icon).isPresent();
+    }
+
+    /**
+     * @return display which working area contains given point of the virtual desktop
+     */
+    public Optional<Spotter> displayAt(Point point) {
+        return displays.stream()
+                .filter(d -> d.getWorkingArea().contains(point.toAwt()))
+                .findFirst();
+    }
+
+    /**
+     * Clicks given point of the virtual desktop with the {@link Spotter} of the display containing it.
+     */
+    public MultiDisplaySpotter click(Point point) {
+        displayAt(point).ifPresentOrElse(
+                display -> display.click(point.minus(display.getOffset())),
+                () -> log.warn("Point {}:{} is outside of all displays", point.x, point.y));
+        return this;
+    }
+
+    public MultiDisplaySpotter click(Icon icon) {
+        locateMiddle(icon).ifPresentOrElse(
+                this::click,
+                () -> log.warn("Icon {} not found", icon.getFilename()));
+        return this;
+    }
+
+    public List<Spotter> getDisplays() {
+        return displays;
+    }
+
+    /**
+     * Closes the {@link Spotter}s of all displays.
+     *
+     * @see Spotter#close()
+     */
+    @Override
+    public void close() {
+        displays.forEach(Spotter::close);
+    }
+
+    private <T> List<T> inParallel(Function<Spotter, T> task) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = displays.stream()
+                    .map(display -> executor.submit(() -> task.apply(display)))
+                    .toList();
+            return futures.stream()
+                    .map(MultiDisplaySpotter::join)
+                    .toList();
+        }
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the displays", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : new IllegalStateException(e.getCause());
+        }
+    }
+}
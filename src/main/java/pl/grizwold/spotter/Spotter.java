@@ -1,24 +1,66 @@
 package pl.grizwold.spotter;
 
-import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import pl.grizwold.spotter.detection.Locator;
+import pl.grizwold.spotter.detection.MultiScaleSearch;
+import pl.grizwold.spotter.detection.RelativeQuery;
+import pl.grizwold.spotter.detection.comparision.CachingImageLocator;
+import pl.grizwold.spotter.detection.comparision.EdgeImageLocator;
 import pl.grizwold.spotter.detection.comparision.ImageComparator;
+import pl.grizwold.spotter.detection.comparision.ImageLocator;
+import pl.grizwold.spotter.detection.comparision.IncrementalImageLocator;
+import pl.grizwold.spotter.detection.comparision.NormalizedImageLocator;
 import pl.grizwold.spotter.detection.comparision.PixelByPixelImageLocator;
+import pl.grizwold.spotter.detection.comparision.PyramidImageLocator;
+import pl.grizwold.spotter.detection.comparision.RecordingImageLocator;
+import pl.grizwold.spotter.detection.comparision.RecordingScoredImageLocator;
+import pl.grizwold.spotter.detection.comparision.ResultCache;
+import pl.grizwold.spotter.detection.comparision.ScoredImageLocator;
+import pl.grizwold.spotter.detection.comparision.SearchLimit;
+import pl.grizwold.spotter.detection.comparision.StrategySelector;
+import pl.grizwold.spotter.frame.Frame;
+import pl.grizwold.spotter.frame.FramePool;
+import pl.grizwold.spotter.frame.FramePublisher;
+import pl.grizwold.spotter.input.InputQueue;
+import pl.grizwold.spotter.input.InputSequence;
 import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.LocateResult;
+import pl.grizwold.spotter.model.Match;
 import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.model.RelativeMatch;
+import pl.grizwold.spotter.model.ScaledMatch;
+import pl.grizwold.spotter.screen.RecordingScreenSource;
+import pl.grizwold.spotter.screen.RobotScreenSource;
+import pl.grizwold.spotter.screen.ScreenSource;
+import pl.grizwold.spotter.session.SessionRecorder;
+import pl.grizwold.spotter.util.ColorNormalization;
+import pl.grizwold.spotter.wait.CaptureLoop;
+import pl.grizwold.spotter.wait.WaitScheduler;
+import pl.grizwold.spotter.wait.WaitStatistics;
+import pl.grizwold.spotter.watch.IconWatcher;
+import pl.grizwold.spotter.watch.Watch;
+import pl.grizwold.spotter.watch.WatchTarget;
 
 import java.awt.*;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Slf4j
-public class Spotter {
+public class Spotter implements AutoCloseable {
     private static final long DEFAULT_TIMEOUT = Integer.MAX_VALUE;
     private static final long DEFAULT_ACTION_DELAY = 50;
     private static final BiConsumer<Icon, Spotter> DO_NOTHING = (_, _) -> {
@@ -26,13 +68,21 @@ public class Spotter {
     private static final BiConsumer<List<Icon>, Spotter> GROUP_DO_NOTHING = (_, _) -> {
     };
 
-    private final Robot robot;
+    private final ScreenSource screen;
     private final Point offset;
     private final Rectangle workingArea;
 
-    @Getter
-    private BufferedImage screenCapture;
-    private PixelByPixelImageLocator imageLocator;
+    private final FramePool framePool = new FramePool();
+    private final FramePublisher frames = new FramePublisher();
+    private volatile IncrementalImageLocator incrementalLocator;
+    private boolean pyramidLocating;
+    private boolean prefiltering;
+    private ColorNormalization normalization;
+    private boolean edgeLocating;
+    private ResultCache resultCache;
+    private StrategySelector strategySelector;
+    private final SessionRecorder sessionRecorder;
+    private MultiScaleSearch scaleSearch = new MultiScaleSearch(1);
     private ImageComparator imageComparator;
     private long waitingLogTimeout = 10000;
     private BiConsumer<Icon, Spotter> defaultTimeoutHandler = DO_NOTHING;
@@ -40,6 +90,13 @@ public class Spotter {
     private BiConsumer<List<Icon>, Spotter> defaultGroupTimeoutHandler = GROUP_DO_NOTHING;
     private int colorTolerance = 30;
     private long actionDelay = DEFAULT_ACTION_DELAY;
+    private WaitScheduler waitScheduler = new WaitScheduler();
+    private boolean waitScheduling;
+    private CaptureLoop captureLoop;
+    private IconWatcher iconWatcher;
+    private InputQueue inputQueue;
+    private Executor watchExecutor;
+    private ExecutorService defaultWatchExecutor;
 
     public Spotter() {
         this(GraphicsEnvironment.getLocalGraphicsEnvironment()
@@ -57,12 +114,37 @@ public class Spotter {
                 .getDefaultScreenDevice());
     }
 
-    @SneakyThrows
     public Spotter(Rectangle workingArea, GraphicsDevice graphicsDevice) {
+        this(workingArea, new RobotScreenSource(graphicsDevice));
+    }
+
+    public Spotter(ScreenSource screen) {
+        this(screen.getBounds(), screen);
+    }
+
+    public Spotter(Rectangle workingArea, ScreenSource screen) {
+        this(workingArea, screen, null);
+    }
+
+    /**
+     * @see #Spotter(Rectangle, ScreenSource, SessionRecorder)
+     */
+    public Spotter(ScreenSource screen, SessionRecorder recorder) {
+        this(screen.getBounds(), screen, recorder);
+    }
+
+    /**
+     * @param recorder records every captured frame, every search made through {@link Locator} with its results and
+     *                 every input sent to the screen, also the input enqueued by {@link #enqueue(InputSequence)}.
+     *                 Recording is off when null. The recorder has to be closed by the caller.
+     * @see SessionRecorder
+     */
+    public Spotter(Rectangle workingArea, ScreenSource screen, SessionRecorder recorder) {
         log.debug("Working area set to: " + workingArea.toString());
         this.offset = new Point(workingArea.getLocation());
         this.workingArea = workingArea;
-        this.robot = new Robot(graphicsDevice);
+        this.screen = recorder == null ? screen : new RecordingScreenSource(screen, recorder);
+        this.sessionRecorder = recorder;
         this.imageComparator = new ImageComparator();
         refresh();
         withLoggingNotFound();
@@ -73,72 +155,170 @@ public class Spotter {
      * @see Locator#locate(Icon)
      */
     public Optional<Point> locate(Icon icon) {
-        return locator().locate(icon);
+        return search(l -> l.locate(icon));
     }
 
     /**
      * @see Locator#locateMiddle(Icon)
      */
     public Optional<Point> locateMiddle(Icon icon) {
-        return locator().locateMiddle(icon);
+        return search(l -> l.locateMiddle(icon));
     }
 
     /**
      * @see Locator#locateArea(Icon, Icon)
      */
     public Optional<Rectangle> locateArea(Icon upperLeft, Icon lowerRight) {
-        return locator().locateArea(upperLeft, lowerRight);
+        return search(l -> l.locateArea(upperLeft, lowerRight));
+    }
+
+    /**
+     * @see Locator#locate(RelativeQuery)
+     */
+    public Optional<RelativeMatch> locate(RelativeQuery query) {
+        return search(l -> l.locate(query));
     }
 
     /**
      * @see Locator#isLocatedAtCenterOf(Icon, Rectangle)
      */
     public boolean isLocatedAtCenterOf(Icon icon, Rectangle area) {
-        return locator().isLocatedAtCenterOf(icon, area);
+        return search(l -> l.isLocatedAtCenterOf(icon, area));
     }
 
     /**
      * @see Locator#isLocatedAt(Icon, Point)
      */
     public boolean isLocatedAt(Icon icon, Point p) {
-        return locator().isLocatedAt(icon, p);
+        return search(l -> l.isLocatedAt(icon, p));
     }
 
     /**
      * @see Locator#locateArea(Point, Rectangle)
      */
     public Optional<Rectangle> locateArea(Point point, Rectangle relativeArea) {
-        return locator().locateArea(point, relativeArea);
+        return search(l -> l.locateArea(point, relativeArea));
     }
 
     /**
      * @see Locator#locateArea(Icon, Rectangle)
      */
     public Optional<Rectangle> locateArea(Icon icon, Rectangle relativeArea) {
-        return locator().locateArea(icon, relativeArea);
+        return search(l -> l.locateArea(icon, relativeArea));
     }
 
     /**
      * @see Locator#locateAll(Icon)
      */
     public List<Point> locateAll(Icon icon) {
-        return locator().locateAll(icon);
+        return search(l -> l.locateAll(icon));
+    }
+
+    /**
+     * Scores matches with the configured locator when it is able to, e.g. the one set by {@link #withEdgeLocating()},
+     * otherwise with the pixel by pixel search within color tolerance, which finds the same locations as pyramid,
+     * adaptive and incremental locating. Scored searches are neither cached by {@link #withResultCache(int)} nor
+     * reused incrementally.
+     *
+     * @return the best match of the icon, see {@link Match#distance} of the used locator
+     * @throws IllegalStateException when colors are normalized, see {@link #withNormalization(ColorNormalization)}
+     * @see ScoredImageLocator#locateBest(Icon)
+     */
+    public Optional<Match> locateBest(Icon icon) {
+        try (Frame frame = frames.snapshot()) {
+            return scoredLocator(frame).locateBest(icon);
+        }
+    }
+
+    /**
+     * @return {@code k} best not overlapping matches of the icon, the best first
+     * @throws IllegalStateException when colors are normalized, see {@link #withNormalization(ColorNormalization)}
+     * @see #locateBest(Icon)
+     * @see ScoredImageLocator#locateTop(Icon, int)
+     */
+    public List<Match> locateTop(Icon icon, int k) {
+        try (Frame frame = frames.snapshot()) {
+            return scoredLocator(frame).locateTop(icon, k);
+        }
+    }
+
+    /**
+     * Locates all the icons with the configured locator, giving up when the limit is reached - e.g.
+     * {@code SearchLimit.of(Duration.ofMillis(50))} keeps the latency budget of an automation step. Only the pixel by
+     * pixel search stops in the middle, other locators check the limit once before searching.
+     *
+     * @see ImageLocator#locate(Icon, SearchLimit)
+     */
+    public LocateResult locateAll(Icon icon, SearchLimit limit) {
+        try (Frame frame = frames.snapshot()) {
+            return imageLocatorOf(frame).locate(icon, limit);
+        }
+    }
+
+    /**
+     * Locates the icon drawn at any of the scales set by {@link #withScales(double...)}.
+     *
+     * @see MultiScaleSearch#locate(Icon, Dimension, Predicate, Function)
+     */
+    public Optional<ScaledMatch> locateScaled(Icon icon) {
+        return locateAllScaled(icon).stream().findFirst();
+    }
+
+    /**
+     * Scales at which some colors of the resized icon are not present on the screen are skipped without searching.
+     *
+     * @see MultiScaleSearch#locateAll(Icon, Dimension, Predicate, Function)
+     */
+    public List<ScaledMatch> locateAllScaled(Icon icon) {
+        try (Frame frame = frames.snapshot()) {
+            Locator locator = frameLocator(frame);
+            return scaleSearch.locateAll(icon, workingArea.getSize(), mayBeFound(frame), locator::locateAll);
+        }
+    }
+
+    /**
+     * @return scale of this display detected by the last successful {@link #locateScaled(Icon)}
+     */
+    public OptionalDouble getDetectedScale() {
+        return scaleSearch.getDetectedScale();
     }
 
     /**
      * @see Locator#isVisible(Icon)
      */
     public boolean isVisible(Icon icon) {
-        return locator().isVisible(icon);
+        return search(l -> l.isVisible(icon));
     }
 
     public Spotter refresh() {
         log.debug("Refreshing screenshot");
-        this.screenCapture = robot.createScreenCapture(workingArea);
-        this.imageLocator = new PixelByPixelImageLocator(screenCapture).withTolerance(colorTolerance);
+        Frame frame = framePool.acquire(workingArea, colorTolerance).load(screen.capture(workingArea));
+        frame.getImageLocator().withPrefilter(prefiltering);
+        IncrementalImageLocator incrementalLocator = this.incrementalLocator;
+        if (incrementalLocator != null) {
+            incrementalLocator.update(frame.getImage(), frame.getImageLocator());
+        }
+        frames.publish(frame);
         return this;
     }
 
+    /**
+     * Takes an immutable snapshot of the last captured screen, carrying its own locator and offset. Snapshots can be
+     * searched by any number of threads in parallel, while another thread keeps refreshing the {@link Spotter}.
+     * The snapshot has to be closed, preferably with try-with-resources, to let the frame be recycled.
+     */
+    public Frame snapshot() {
+        return frames.snapshot();
+    }
+
+    /**
+     * @return the last captured screen. The image is recycled by the following refreshes - copy it with
+     * {@link pl.grizwold.spotter.util.ImageUtil#copy(BufferedImage)} when it should be kept.
+     */
+    public BufferedImage getScreenCapture() {
+        return frames.peek().getImage();
+    }
+
     /**
      * @param key use {@link KeyEvent} constants
      */
@@ -152,7 +332,7 @@ public class Spotter {
      * @param key use {@link KeyEvent} constants
      */
     public Spotter pressAndHold(int key) {
-        robot.keyPress(key);
+        screen.keyPress(key);
         return this;
     }
 
@@ -160,13 +340,13 @@ public class Spotter {
      * @param key use {@link KeyEvent} constants
      */
     public Spotter releaseKey(int key) {
-        robot.keyRelease(key);
+        screen.keyRelease(key);
         return this;
     }
 
     public Spotter move(Point to) {
         to = addOffset(to);
-        robot.mouseMove(to.x, to.y);
+        screen.mouseMove(to.x, to.y);
         return this;
     }
 
@@ -218,13 +398,13 @@ public class Spotter {
         from = addOffset(from);
         to = addOffset(to);
 
-        robot.mouseMove(from.x, from.y);
+        screen.mouseMove(from.x, from.y);
         this.halt();
-        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
+        screen.mousePress(InputEvent.BUTTON1_DOWN_MASK);
         this.halt();
-        robot.mouseMove(to.x, to.y);
+        screen.mouseMove(to.x, to.y);
         this.halt();
-        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+        screen.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
         return this;
     }
 
@@ -271,11 +451,11 @@ public class Spotter {
         log.debug("Clicking {}:{}", point.x, point.y);
         point = addOffset(point);
 
-        robot.mouseMove(point.x, point.y);
+        screen.mouseMove(point.x, point.y);
         halt();
-        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
+        screen.mousePress(InputEvent.BUTTON1_DOWN_MASK);
         halt();
-        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+        screen.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
         return this;
     }
 
@@ -297,31 +477,116 @@ public class Spotter {
         log.debug("Clicking {}:{}", point.x, point.y);
         point = addOffset(point);
 
-        robot.mouseMove(point.x, point.y);
+        screen.mouseMove(point.x, point.y);
         halt();
-        robot.mousePress(InputEvent.BUTTON3_DOWN_MASK);
+        screen.mousePress(InputEvent.BUTTON3_DOWN_MASK);
         halt();
-        robot.mouseRelease(InputEvent.BUTTON3_DOWN_MASK);
+        screen.mouseRelease(InputEvent.BUTTON3_DOWN_MASK);
+        return this;
+    }
+
+    /**
+     * Enqueues given sequence of input events to be delivered on the dedicated input thread. Points of the sequence
+     * are physical screen coordinates.
+     *
+     * @return future completed once the whole sequence is delivered
+     * @see InputQueue
+     */
+    public CompletableFuture<Void> enqueue(InputSequence sequence) {
+        return inputQueue().enqueue(sequence);
+    }
+
+    /**
+     * Enqueues a click and returns immediately, so the next target can be located while the click is delivered.
+     *
+     * @see #click(Point)
+     */
+    public CompletableFuture<Void> enqueueClick(Point point) {
+        log.debug("Enqueueing click {}:{}", point.x, point.y);
+        return enqueue(InputSequence.click(addOffset(point), InputEvent.BUTTON1_DOWN_MASK, actionDelay));
+    }
+
+    /**
+     * @see #enqueueClick(Icon, BiConsumer)
+     */
+    public CompletableFuture<Void> enqueueClick(Icon icon) {
+        return enqueueClick(icon, defaultIconNotFoundHandler);
+    }
+
+    /**
+     * @return future completed once the click is delivered. When the icon is not visible on the current frame
+     * {@code onNotFound} is called and the returned future is already completed - there is nothing to deliver
+     * @see #enqueueClick(Point)
+     */
+    public CompletableFuture<Void> enqueueClick(Icon icon, BiConsumer<Icon, Spotter> onNotFound) {
+        log.debug("Enqueueing click of {}", icon.getFilename());
+        return locateMiddle(icon)
+                .map(this::enqueueClick)
+                .orElseGet(() -> {
+                    onNotFound.accept(icon, this);
+                    return CompletableFuture.completedFuture(null);
+                });
+    }
+
+    /**
+     * @see #enqueueClick(Point)
+     */
+    public CompletableFuture<Void> enqueueRightClick(Point point) {
+        log.debug("Enqueueing right click {}:{}", point.x, point.y);
+        return enqueue(InputSequence.click(addOffset(point), InputEvent.BUTTON3_DOWN_MASK, actionDelay));
+    }
+
+    /**
+     * @see #enqueueClick(Point)
+     */
+    public CompletableFuture<Void> enqueueDoubleClick(Point point) {
+        log.debug("Enqueueing double click {}:{}", point.x, point.y);
+        return enqueue(InputSequence.doubleClick(addOffset(point), InputEvent.BUTTON1_DOWN_MASK, actionDelay));
+    }
+
+    /**
+     * @see #enqueueClick(Point)
+     */
+    public CompletableFuture<Void> enqueueDrag(Point from, Point to) {
+        log.debug("Enqueueing drag from {}:{} to {}:{}", from.x, from.y, to.x, to.y);
+        return enqueue(InputSequence.drag(addOffset(from), addOffset(to), actionDelay));
+    }
+
+    /**
+     * @param key use {@link KeyEvent} constants
+     * @see #press(int)
+     */
+    public CompletableFuture<Void> enqueuePress(int key) {
+        return enqueue(InputSequence.press(key, 100));
+    }
+
+    /**
+     * Blocks until all enqueued input is delivered.
+     */
+    public Spotter awaitInput() {
+        if (inputQueue != null) {
+            enqueue(new InputSequence()).join();
+        }
         return this;
     }
 
     public Spotter holdRMB() {
-        robot.mousePress(InputEvent.BUTTON3_DOWN_MASK);
+        screen.mousePress(InputEvent.BUTTON3_DOWN_MASK);
         return this;
     }
 
     public Spotter releaseRMB() {
-        robot.mouseRelease(InputEvent.BUTTON3_DOWN_MASK);
+        screen.mouseRelease(InputEvent.BUTTON3_DOWN_MASK);
         return this;
     }
 
     public Spotter holdLMB() {
-        robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
+        screen.mousePress(InputEvent.BUTTON1_DOWN_MASK);
         return this;
     }
 
     public Spotter releaseLMB() {
-        robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+        screen.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
         return this;
     }
 
@@ -341,16 +606,20 @@ public class Spotter {
         log.debug("Waiting {}ms for {}", timeout, icon.getFilename());
         long start = System.currentTimeMillis();
         boolean longWaitLogged = false;
+        WaitScheduler.Wait wait = startWait(timeout);
         do {
             refresh();
-            if (isVisible(icon))
+            if (wait.shouldScan(frames.peek()) && isVisible(icon)) {
+                wait.found();
                 return this;
+            }
             if ((System.currentTimeMillis() - start) > waitingLogTimeout && !longWaitLogged) {
                 log.info("Waiting for {} takes more than {}ms", icon.getFilename(), waitingLogTimeout);
                 longWaitLogged = true;
             }
-            halt();
+            wait.pause();
         } while ((System.currentTimeMillis() - start) < timeout);
+        wait.timedOut();
         log.debug("Couldn't find {} in specified time of {}ms", icon.getFilename(), timeout);
         onTimeout.accept(icon, this);
         return this;
@@ -368,23 +637,93 @@ public class Spotter {
         log.debug("Waiting {}ms for {} icons", timeout, icons.size());
         long start = System.currentTimeMillis();
         boolean longWaitLogged = false;
+        WaitScheduler.Wait wait = startWait(timeout);
         do {
             refresh();
-            for (Icon icon : icons) {
-                if (isVisible(icon))
-                    return Optional.of(icon);
+            if (wait.shouldScan(frames.peek())) {
+                for (Icon icon : icons) {
+                    if (isVisible(icon)) {
+                        wait.found();
+                        return Optional.of(icon);
+                    }
+                }
             }
             if ((System.currentTimeMillis() - start) > waitingLogTimeout && !longWaitLogged) {
                 log.info("Waiting for one of the {} icons takes more than {}ms", icons.size(), waitingLogTimeout);
                 longWaitLogged = true;
             }
-            halt();
+            wait.pause();
         } while ((System.currentTimeMillis() - start) < timeout);
+        wait.timedOut();
         log.debug("Couldn't find any of the icons in specified time of {}ms", timeout);
         onTimeout.accept(icons, this);
         return Optional.empty();
     }
 
+    public CompletableFuture<Icon> waitForAsync(Icon icon) {
+        return waitForAsync(icon, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Waits for the icon without blocking the caller. All asynchronous waits of this {@link Spotter} share a single
+     * capture loop - each frame is captured once and tested against all of them.
+     *
+     * @return future completed with the icon once it is visible, or exceptionally with
+     * {@link java.util.concurrent.TimeoutException} after the timeout. Cancelling it ends the wait.
+     * @see CaptureLoop
+     */
+    public CompletableFuture<Icon> waitForAsync(Icon icon, long timeout) {
+        log.debug("Waiting asynchronously {}ms for {}", timeout, icon.getFilename());
+        return captureLoop().await(locator -> Optional.of(icon).filter(locator::isVisible), timeout);
+    }
+
+    public CompletableFuture<Icon> waitForAsync(List<Icon> icons) {
+        return waitForAsync(icons, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @return future completed with the first of the icons which is visible
+     * @see #waitForAsync(Icon, long)
+     */
+    public CompletableFuture<Icon> waitForAsync(List<Icon> icons, long timeout) {
+        log.debug("Waiting asynchronously {}ms for {} icons", timeout, icons.size());
+        return captureLoop().await(locator -> icons.stream().filter(locator::isVisible).findFirst(), timeout);
+    }
+
+    /**
+     * Creates a watch of the icon on the whole working area. Callbacks should be configured before the watch is
+     * started. All watches of this {@link Spotter} are evaluated together on frames of the shared capture loop.
+     *
+     * @see IconWatcher
+     */
+    public Watch watch(Icon icon) {
+        return new Watch(WatchTarget.icon(icon), iconWatcher());
+    }
+
+    /**
+     * @param area part of the working area where the icon is searched
+     * @see #watch(Icon)
+     */
+    public Watch watch(Icon icon, Rectangle area) {
+        return new Watch(WatchTarget.icon(icon, area), iconWatcher());
+    }
+
+    /**
+     * @see #watch(Icon)
+     * @see pl.grizwold.spotter.detection.pattern.PatternMatcher
+     */
+    public Watch watchPattern(Icon pattern) {
+        return new Watch(WatchTarget.pattern(pattern), iconWatcher());
+    }
+
+    /**
+     * @param area part of the working area where the pattern is searched
+     * @see #watch(Icon)
+     */
+    public Watch watchPattern(Icon pattern, Rectangle area) {
+        return new Watch(WatchTarget.pattern(pattern, area), iconWatcher());
+    }
+
     public Spotter halt() {
         return halt(actionDelay);
     }
@@ -433,11 +772,173 @@ public class Spotter {
 
     public Spotter withColorTolerance(int range) {
         this.colorTolerance = range;
-        this.imageLocator.withTolerance(range);
         this.imageComparator = new ImageComparator(range);
+        Frame frame = framePool.acquire(workingArea, range).load(frames.peek());
+        frame.getImageLocator().withPrefilter(prefiltering);
+        IncrementalImageLocator incrementalLocator = this.incrementalLocator;
+        if (incrementalLocator != null) {
+            incrementalLocator.clear().update(frame.getImage(), frame.getImageLocator());
+        }
+        frames.publish(frame);
+        return this;
+    }
+
+    /**
+     * Enables incremental locating - results of previous searches are remembered per {@link Icon} instance and only
+     * the screen regions which changed since the previous {@link #refresh()} are searched again.
+     *
+     * @see IncrementalImageLocator
+     */
+    public Spotter withIncrementalLocating() {
+        if (incrementalLocator == null) {
+            Frame frame = frames.peek();
+            this.incrementalLocator = new IncrementalImageLocator().update(frame.getImage(), frame.getImageLocator());
+        }
+        return this;
+    }
+
+    /**
+     * Enables coarse-to-fine locating - finds the same locations as the full search, faster for big icons on big
+     * screens. Incremental locating takes precedence when both are enabled.
+     *
+     * @see PyramidImageLocator
+     */
+    public Spotter withPyramidLocating() {
+        this.pyramidLocating = true;
+        return this;
+    }
+
+    /**
+     * Enables rejecting most of the screen positions by the mean color and color deviation of the icon before its
+     * pixels are compared. Pays off on screens with large flat areas. Applies from the next {@link #refresh()}.
+     *
+     * @see PixelByPixelImageLocator#withPrefilter(boolean)
+     */
+    public Spotter withPrefiltering(boolean prefiltering) {
+        this.prefiltering = prefiltering;
+        return this;
+    }
+
+    /**
+     * Compares colors converted by given normalization instead of the captured colors, e.g. to find icons of
+     * a differently themed or tinted UI. Color tolerance applies to the converted colors - for
+     * {@link ColorNormalization#LUMINANCE} and {@link ColorNormalization#VALUE} it is the largest difference of gray
+     * levels. Incremental and pyramid locating take precedence when enabled.
+     *
+     * @see NormalizedImageLocator
+     */
+    public Spotter withNormalization(ColorNormalization normalization) {
+        this.normalization = normalization;
+        return this;
+    }
+
+    /**
+     * Locates icons by their edges instead of colors - for icons blurred by anti-aliasing, gradients or compression
+     * noise, which would otherwise need a high color tolerance. Other locating modes take precedence when enabled.
+     *
+     * @see EdgeImageLocator
+     */
+    public Spotter withEdgeLocating() {
+        this.edgeLocating = true;
+        return this;
+    }
+
+    /**
+     * Picks the fastest of the exact locators for every icon, learning from measured latencies. The color map
+     * locator is used only when the color tolerance is 0. Other locating modes take precedence when enabled.
+     *
+     * @see StrategySelector
+     */
+    public Spotter withAdaptiveLocating() {
+        this.strategySelector = new StrategySelector();
+        return this;
+    }
+
+    /**
+     * @return selector enabled by {@link #withAdaptiveLocating()}, with its decisions for inspection
+     */
+    public Optional<StrategySelector> getStrategySelector() {
+        return Optional.ofNullable(strategySelector);
+    }
+
+    /**
+     * Remembers results of searches by the content of the searched pixels - searching an unchanged screen again,
+     * e.g. while idly waiting, returns the remembered locations at the cost of hashing the frame once. Incremental
+     * locating is not cached, it reuses its own results.
+     *
+     * @see CachingImageLocator
+     */
+    public Spotter withResultCache(int capacity) {
+        this.resultCache = new ResultCache(capacity);
+        return this;
+    }
+
+    /**
+     * @see #withResultCache(int)
+     */
+    public Spotter withResultCache() {
+        return withResultCache(ResultCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return cache set by {@link #withResultCache(int)}, with its hit and miss counters
+     */
+    public Optional<ResultCache> getResultCache() {
+        return Optional.ofNullable(resultCache);
+    }
+
+    /**
+     * Sets display scalings at which icons are searched by {@link #locateScaled(Icon)}, e.g. {@code 1, 1.25, 1.5}.
+     * Scaling detected on this display is forgotten.
+     */
+    public Spotter withScales(double... scales) {
+        this.scaleSearch = new MultiScaleSearch(scales);
+        return this;
+    }
+
+    public Spotter withFullLocating() {
+        this.incrementalLocator = null;
+        this.pyramidLocating = false;
+        this.normalization = null;
+        this.edgeLocating = false;
+        this.strategySelector = null;
+        return this;
+    }
+
+    /**
+     * Paces polling of all {@code waitFor} methods - the pause between captures backs off from {@code minDelay}
+     * up to {@code maxLatency} while the screen does not change. Until it is set, blocking {@code waitFor} methods
+     * start from the action delay, see {@link #withActionDelay(long)}.
+     *
+     * @see WaitScheduler
+     */
+    public Spotter withWaitScheduling(long minDelay, long maxLatency) {
+        this.waitScheduler = new WaitScheduler(minDelay, maxLatency);
+        this.waitScheduling = true;
+        this.captureLoop = null;
+        this.iconWatcher = null;
+        return this;
+    }
+
+    public WaitStatistics getWaitStatistics() {
+        return waitScheduler.getStatistics();
+    }
+
+    /**
+     * @param executor executor dispatching events of all watches, by default a single thread preserving their order
+     */
+    public synchronized Spotter withWatchExecutor(Executor executor) {
+        this.watchExecutor = executor;
+        if (iconWatcher != null) {
+            iconWatcher.withExecutor(executor);
+        }
         return this;
     }
 
+    /**
+     * @param delay pause between the steps of mouse and keyboard actions, also the minimal pause between captures of
+     *              blocking {@code waitFor} methods unless {@link #withWaitScheduling(long, long)} is set
+     */
     public Spotter withActionDelay(long delay) {
         this.actionDelay = delay;
         return this;
@@ -448,16 +949,157 @@ public class Spotter {
         return this;
     }
 
+    /**
+     * Stops the threads delivering enqueued input, capturing frames for waits and watches and dispatching the events
+     * of watches - an executor set by {@link #withWatchExecutor(Executor)} is left to the caller. Input which was not
+     * delivered yet and waits which are not completed yet fail.
+     */
+    @Override
+    public synchronized void close() {
+        if (inputQueue != null) {
+            inputQueue.close();
+        }
+        if (captureLoop != null) {
+            captureLoop.close();
+        }
+        if (defaultWatchExecutor != null) {
+            defaultWatchExecutor.shutdownNow();
+        }
+    }
+
+    private WaitScheduler.Wait startWait(long timeout) {
+        return waitScheduling ? waitScheduler.start(timeout) : waitScheduler.start(timeout, actionDelay);
+    }
+
     private Point addOffset(Point p) {
         return p.translate(this.offset);
     }
 
-    private Locator locator() {
-        return new Locator(this.screenCapture, this.imageComparator, this.imageLocator, this.offset);
+    private synchronized CaptureLoop captureLoop() {
+        if (captureLoop == null) {
+            this.captureLoop = new CaptureLoop(() -> screen.capture(workingArea), this::locatorOf, waitScheduler);
+        }
+        return captureLoop;
+    }
+
+    private synchronized InputQueue inputQueue() {
+        if (inputQueue == null) {
+            this.inputQueue = new InputQueue(screen);
+        }
+        return inputQueue;
+    }
+
+    private synchronized IconWatcher iconWatcher() {
+        if (iconWatcher == null) {
+            this.iconWatcher = new IconWatcher(captureLoop(), this::locatorOf, watchExecutor());
+        }
+        return iconWatcher;
+    }
+
+    private synchronized Executor watchExecutor() {
+        if (watchExecutor == null) {
+            this.defaultWatchExecutor = Executors.newSingleThreadExecutor(
+                    Thread.ofVirtual().name("spotter-watch-events").factory());
+            this.watchExecutor = defaultWatchExecutor;
+        }
+        return watchExecutor;
+    }
+
+    private Locator locatorOf(BufferedImage frame) {
+        PixelByPixelImageLocator frameLocator = new PixelByPixelImageLocator(frame).withTolerance(colorTolerance)
+                .withPrefilter(prefiltering);
+        return new Locator(frame, this.imageComparator, frameLocator, this.offset);
+    }
+
+    private Locator frameLocator(Frame frame) {
+        return frame.getLocator(imageLocatorOf(frame));
+    }
+
+    private ImageLocator imageLocatorOf(Frame frame) {
+        IncrementalImageLocator incrementalLocator = this.incrementalLocator;
+        ImageLocator imageLocator = incrementalLocator != null
+                ? incrementalLocator.forFrame(frame.getImage(), frame.getImageLocator())
+                : cachedImageLocator(frame);
+        if (sessionRecorder != null) {
+            imageLocator = new RecordingImageLocator(sessionRecorder, imageLocator);
+        }
+        return imageLocator;
+    }
+
+    private ImageLocator cachedImageLocator(Frame frame) {
+        ImageLocator imageLocator = frameImageLocator(frame);
+        if (resultCache == null) {
+            return imageLocator;
+        }
+        String variant = imageLocator.getClass().getSimpleName()
+                + (imageLocator instanceof NormalizedImageLocator normalized ? "/" + normalized.getNormalization() : "")
+                + "/" + frame.getColorTolerance();
+        return new CachingImageLocator(resultCache, imageLocator, frame.getPixels(), frame.getWidth(),
+                frame.getHeight(), frame.getContentHash(), variant);
+    }
+
+    private ImageLocator frameImageLocator(Frame frame) {
+        if (pyramidLocating) {
+            return frame.getPyramidLocator();
+        }
+        if (normalization != null) {
+            return frame.getNormalizedLocator(normalization);
+        }
+        if (edgeLocating) {
+            return frame.getEdgeLocator();
+        }
+        if (strategySelector != null) {
+            Set<StrategySelector.Strategy> available = frame.getColorTolerance() == 0
+                    ? EnumSet.allOf(StrategySelector.Strategy.class)
+                    : EnumSet.of(StrategySelector.Strategy.PIXEL_BY_PIXEL, StrategySelector.Strategy.PYRAMID);
+            return strategySelector.locatorOf(strategy -> switch (strategy) {
+                case PIXEL_BY_PIXEL -> frame.getImageLocator();
+                case PYRAMID -> frame.getPyramidLocator();
+                case COLOR_MAP -> frame.getColorMapLocator();
+            }, available);
+        }
+        return frame.getImageLocator();
+    }
+
+    /**
+     * @return check rejecting icons which cannot be found on the frame, accepting all when colors are not compared
+     * directly
+     */
+    private Predicate<Icon> mayBeFound(Frame frame) {
+        if (normalization != null || edgeLocating) {
+            return _ -> true;
+        }
+        return icon -> frame.getColorPresence().mayContain(icon.getData(), frame.getColorTolerance());
+    }
+
+    private ScoredImageLocator scoredLocator(Frame frame) {
+        ImageLocator configured = frameImageLocator(frame);
+        if (configured instanceof NormalizedImageLocator) {
+            throw new IllegalStateException("Matches of normalized colors are not scored!");
+        }
+        ScoredImageLocator scored = configured instanceof ScoredImageLocator s ? s : frame.getImageLocator();
+        return sessionRecorder != null ? new RecordingScoredImageLocator(sessionRecorder, scored) : scored;
+    }
+
+    private <T> T search(Function<Locator, T> search) {
+        try (Frame frame = frames.snapshot()) {
+            return search.apply(frameLocator(frame));
+        }
+    }
+
+    /**
+     * @return location of the working area upper left pixel on the physical screen
+     */
+    public Point getOffset() {
+        return offset;
+    }
+
+    public Rectangle getWorkingArea() {
+        return new Rectangle(workingArea);
     }
 
     public Point getMouseLocation() {
-        return new Point(MouseInfo.getPointerInfo().getLocation())
+        return new Point(screen.getMouseLocation())
                 .minus(offset);
     }
 }
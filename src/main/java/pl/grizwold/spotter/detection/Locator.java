@@ -5,6 +5,7 @@ import pl.grizwold.spotter.Spotter;
 import pl.grizwold.spotter.detection.comparision.ImageLocator;
 import pl.grizwold.spotter.model.Icon;
 import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.model.RelativeMatch;
 import pl.grizwold.spotter.detection.comparision.ImageComparator;
 
 import java.awt.*;
@@ -60,22 +61,39 @@ public class Locator {
                 .map(p -> p.translate(iconImage.getWidth() / 2, iconImage.getHeight() / 2));
     }
 
+    /**
+     * Locates the area between two icons. The lower right icon is searched only below and right of the upper left
+     * one, see {@link RelativeQuery#belowRightOf(Icon, Icon)}. Returned rectangle is located on the physical screen.
+     */
     public Optional<Rectangle> locateArea(Icon upperLeft, Icon lowerRight) {
         log.debug("Locating area between {} and {}", upperLeft.getFilename(), lowerRight.getFilename());
-        Optional<Point> upperLeftPoint = locate(upperLeft);
-        Optional<Point> lowerRightPoint = locate(lowerRight);
-
-        if (upperLeftPoint.isPresent() && lowerRightPoint.isPresent()) {
-            BufferedImage lowerRightImage = lowerRight.getImage();
-
-            Point p1 = upperLeftPoint.get();
-            Point p2 = lowerRightPoint.get().translate(lowerRightImage.getWidth(), lowerRightImage.getHeight());
-            p1 = addOffset(p1);
-            p2 = addOffset(p2);
+        return locate(RelativeQuery.belowRightOf(upperLeft, lowerRight))
+                .map(match -> {
+                    Point p1 = addOffset(match.anchor);
+                    Point p2 = addOffset(match.target.translate(lowerRight.getImage().getWidth(),
+                            lowerRight.getImage().getHeight()));
+                    return new Rectangle(p1.toAwt(), p2.minus(p1).toDimension());
+                });
+    }
 
-            return Optional.of(new Rectangle(p1.toAwt(), p2.minus(p1).toDimension()));
+    /**
+     * Locates the target icon of the query relatively to its anchor icon. Every location of the anchor is tried
+     * in turn, the target is searched only within the area the query allows for it. Returned {@link Point}s are
+     * related to the {@link Spotter}.workingArea, like {@link #locate(Icon)} does.
+     *
+     * @return locations of the first anchor with the target found in the required layout
+     */
+    public Optional<RelativeMatch> locate(RelativeQuery query) {
+        log.debug("Locating {}", query);
+        Dimension size = new Dimension(base.getWidth(), base.getHeight());
+        for (Point anchor : locateAll(query.getAnchor())) {
+            Rectangle searchArea = query.searchArea(anchor, size);
+            if (searchArea.isEmpty()) continue;
+            List<Point> targets = imageLocator.locate(query.getTarget(), searchArea);
+            if (!targets.isEmpty()) {
+                return Optional.of(new RelativeMatch(anchor, targets.getFirst()));
+            }
         }
-
         return Optional.empty();
     }
 
@@ -95,8 +113,7 @@ public class Locator {
             return false;
         }
 
-        BufferedImage screen = this.base.getSubimage(p.x, p.y, image.getWidth(), image.getHeight());
-        return this.imageComparator.areTheSame(image, screen);
+        return this.imageComparator.areTheSame(icon, this.base, p.x, p.y);
     }
 
     /**
@@ -0,0 +1,143 @@
+package pl.grizwold.spotter.detection;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.model.ScaledMatch;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Searches an {@link Icon} drawn at one of several display scalings, so a single icon file serves 100%, 125% and
+ * 150% displays. The icon is resized by {@link Icon#scaled(double)} - each scale is prepared once per icon.
+ * <br/><br/>
+ * A display has one scaling, so the scale of the first successful search is remembered and tried first afterwards.
+ * Scales are tried one by one until the icon is found, scales at which the icon is bigger than the searched area
+ * or which are rejected by a cheap pre-check, e.g. {@link pl.grizwold.spotter.detection.comparision.ColorPresence},
+ * are skipped without searching. One instance should be used per display.
+ */
+@Slf4j
+public class MultiScaleSearch {
+    private final double[] scales;
+
+    private volatile double detectedScale = Double.NaN;
+
+    /**
+     * @param scales scales tried in given order until the scale of the display is detected
+     */
+    public MultiScaleSearch(double... scales) {
+        if (scales.length == 0) {
+            throw new IllegalArgumentException("At least one scale is required!");
+        }
+        if (Arrays.stream(scales).anyMatch(s -> !(s > 0))) {
+            throw new IllegalArgumentException("Scales must be positive!");
+        }
+        this.scales = scales.clone();
+    }
+
+    /**
+     * @param icon      icon drawn at 100% scaling
+     * @param area      size of the searched image, scales at which the icon does not fit are skipped
+     * @param locateAll search of the resized icon, e.g. {@link Locator#locateAll(Icon)}
+     * @return locations found at the first scale at which the icon was found at all
+     */
+    @Nonnull
+    public List<ScaledMatch> locateAll(@Nonnull Icon icon, @Nonnull Dimension area,
+                                       @Nonnull Function<Icon, List<Point>> locateAll) {
+        return locateAll(icon, area, _ -> true, locateAll);
+    }
+
+    /**
+     * @param icon       icon drawn at 100% scaling
+     * @param area       size of the searched image, scales at which the icon does not fit are skipped
+     * @param mayBeFound cheap check of the resized icon, scales at which it returns false are skipped
+     * @param locateAll  search of the resized icon, e.g. {@link Locator#locateAll(Icon)}
+     * @return locations found at the first scale at which the icon was found at all
+     */
+    @Nonnull
+    public List<ScaledMatch> locateAll(@Nonnull Icon icon, @Nonnull Dimension area,
+                                       @Nonnull Predicate<Icon> mayBeFound,
+                                       @Nonnull Function<Icon, List<Point>> locateAll) {
+        for (double scale : scalesToTry()) {
+            Icon scaled = icon.scaled(scale);
+            if (scaled.getData().getOpaqueBounds().width > area.width
+                    || scaled.getData().getOpaqueBounds().height > area.height) {
+                log.trace("Icon {} at scale {} is bigger than the searched area", icon.getFilename(), scale);
+                continue;
+            }
+            if (!mayBeFound.test(scaled)) {
+                log.trace("Icon {} at scale {} rejected before searching", icon.getFilename(), scale);
+                continue;
+            }
+            List<Point> found = locateAll.apply(scaled);
+            if (!found.isEmpty()) {
+                if (scale != detectedScale) {
+                    log.debug("Detected scale {} while locating {}", scale, icon.getFilename());
+                    this.detectedScale = scale;
+                }
+                List<ScaledMatch> matches = new ArrayList<>(found.size());
+                for (Point p : found) {
+                    matches.add(new ScaledMatch(p, scale, scaled));
+                }
+                return matches;
+            }
+        }
+        return List.of();
+    }
+
+    @Nonnull
+    public Optional<ScaledMatch> locate(@Nonnull Icon icon, @Nonnull Dimension area,
+                                        @Nonnull Function<Icon, List<Point>> locateAll) {
+        return locateAll(icon, area, locateAll).stream().findFirst();
+    }
+
+    @Nonnull
+    public Optional<ScaledMatch> locate(@Nonnull Icon icon, @Nonnull Dimension area,
+                                        @Nonnull Predicate<Icon> mayBeFound,
+                                        @Nonnull Function<Icon, List<Point>> locateAll) {
+        return locateAll(icon, area, mayBeFound, locateAll).stream().findFirst();
+    }
+
+    /**
+     * @return scale of the last successful search
+     */
+    public OptionalDouble getDetectedScale() {
+        double scale = detectedScale;
+        return Double.isNaN(scale) ? OptionalDouble.empty() : OptionalDouble.of(scale);
+    }
+
+    /**
+     * Forgets the detected scale, e.g. after the display settings changed.
+     */
+    public void reset() {
+        this.detectedScale = Double.NaN;
+    }
+
+    public double[] getScales() {
+        return scales.clone();
+    }
+
+    private double[] scalesToTry() {
+        double detected = detectedScale;
+        if (Double.isNaN(detected)) {
+            return scales;
+        }
+        double[] ordered = new double[scales.length];
+        ordered[0] = detected;
+        int i = 1;
+        for (double scale : scales) {
+            if (scale != detected && i < ordered.length) {
+                ordered[i++] = scale;
+            }
+        }
+        return ordered;
+    }
+}
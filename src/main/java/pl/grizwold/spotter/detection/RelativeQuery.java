@@ -0,0 +1,127 @@
+package pl.grizwold.spotter.detection;
+
+import lombok.Getter;
+import lombok.ToString;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+
+/**
+ * Declarative "target icon relative to anchor icon" query. The anchor is searched on the whole image, the target only
+ * where the layout allows it to be - constraints bound the offset of the target upper left pixel from the anchor
+ * upper left pixel. Constraints add up, e.g. {@code RelativeQuery.of(label, field).rightOf().within(50)} searches
+ * the field only right of the label, at most 50 pixels away from it.
+ *
+ * @see Locator#locate(RelativeQuery)
+ */
+@ToString
+public class RelativeQuery {
+    @Getter
+    private final Icon anchor;
+    @Getter
+    private final Icon target;
+    private long minX = Integer.MIN_VALUE;
+    private long minY = Integer.MIN_VALUE;
+    private long maxX = Integer.MAX_VALUE;
+    private long maxY = Integer.MAX_VALUE;
+
+    private RelativeQuery(Icon anchor, Icon target) {
+        this.anchor = anchor;
+        this.target = target;
+    }
+
+    /**
+     * @return query of the target anywhere on the image, narrowed down by the constraints
+     */
+    public static RelativeQuery of(@Nonnull Icon anchor, @Nonnull Icon target) {
+        return new RelativeQuery(anchor, target);
+    }
+
+    /**
+     * Target which does not start left or above the anchor - the lower right corner of an area whose upper left
+     * corner is the anchor.
+     */
+    public static RelativeQuery belowRightOf(@Nonnull Icon anchor, @Nonnull Icon target) {
+        return of(anchor, target).withMinOffset(0, 0);
+    }
+
+    /**
+     * Target starting where the anchor ends horizontally, or further right.
+     */
+    public RelativeQuery rightOf() {
+        return withMinOffset(anchor.getDimension().width, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Target ending where the anchor starts horizontally, or further left.
+     */
+    public RelativeQuery leftOf() {
+        return withMaxOffset(-target.getDimension().width, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Target starting where the anchor ends vertically, or further down.
+     */
+    public RelativeQuery below() {
+        return withMinOffset(Integer.MIN_VALUE, anchor.getDimension().height);
+    }
+
+    /**
+     * Target ending where the anchor starts vertically, or further up.
+     */
+    public RelativeQuery above() {
+        return withMaxOffset(Integer.MAX_VALUE, -target.getDimension().height);
+    }
+
+    /**
+     * Target at most {@code distance} pixels away from the anchor in each direction, measured between their
+     * bounding boxes.
+     */
+    public RelativeQuery within(int distance) {
+        if (distance < 0) {
+            throw new IllegalArgumentException("Distance cannot be negative!");
+        }
+        Dimension anchorSize = anchor.getDimension();
+        Dimension targetSize = target.getDimension();
+        return withMinOffset(-targetSize.width - distance, -targetSize.height - distance)
+                .withMaxOffset(anchorSize.width + distance, anchorSize.height + distance);
+    }
+
+    /**
+     * Target upper left pixel at least {@code dx} pixels right and {@code dy} pixels below the anchor upper left
+     * pixel, negative offsets point left and up.
+     */
+    public RelativeQuery withMinOffset(int dx, int dy) {
+        this.minX = Math.max(minX, dx);
+        this.minY = Math.max(minY, dy);
+        return this;
+    }
+
+    /**
+     * Target upper left pixel at most {@code dx} pixels right and {@code dy} pixels below the anchor upper left
+     * pixel, negative offsets point left and up.
+     */
+    public RelativeQuery withMaxOffset(int dx, int dy) {
+        this.maxX = Math.min(maxX, dx);
+        this.maxY = Math.min(maxY, dy);
+        return this;
+    }
+
+    /**
+     * @return possible upper left pixels of the target within the image, when the anchor is at given location.
+     * Empty when the target cannot be there.
+     */
+    @Nonnull
+    public Rectangle searchArea(@Nonnull Point anchorLocation, @Nonnull Dimension imageSize) {
+        long fromX = Math.max(0, anchorLocation.x + minX);
+        long fromY = Math.max(0, anchorLocation.y + minY);
+        long toX = Math.min(imageSize.width - 1L, anchorLocation.x + maxX);
+        long toY = Math.min(imageSize.height - 1L, anchorLocation.y + maxY);
+        if (fromX > toX || fromY > toY) {
+            return new Rectangle();
+        }
+        return new Rectangle((int) fromX, (int) fromY, (int) (toX - fromX + 1), (int) (toY - fromY + 1));
+    }
+}
@@ -0,0 +1,65 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * {@link ImageLocator} answering from a {@link ResultCache} when the same pixels were already searched for the same
+ * icon. Searches of the whole image are keyed by the hash of the image, searches of an area by the hash of the pixels
+ * the icon may cover - they hit the cache even when the rest of the screen changed.
+ */
+public class CachingImageLocator implements ImageLocator {
+    private final ResultCache cache;
+    private final ImageLocator delegate;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final long contentHash;
+    private final String variant;
+
+    /**
+     * @param pixels      ARGB pixels of the searched image, row by row
+     * @param contentHash hash of all the pixels, see {@link ImageUtil#contentHash(int[], int, Rectangle)}
+     * @param variant     everything besides the pixels and the icon which changes the results of the delegate,
+     *                    e.g. the color tolerance
+     */
+    public CachingImageLocator(@Nonnull ResultCache cache, @Nonnull ImageLocator delegate, @Nonnull int[] pixels,
+                               int width, int height, long contentHash, @Nonnull String variant) {
+        this.cache = cache;
+        this.delegate = delegate;
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.contentHash = contentHash;
+        this.variant = variant;
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon) {
+        ResultCache.Key key = new ResultCache.Key(contentHash, 0, 0, width, height,
+                icon.getData().getContentHash(), variant);
+        return cache.get(key, () -> delegate.locate(icon));
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+        Dimension size = icon.getDimension();
+        Rectangle covered = new Rectangle(searchArea.x, searchArea.y,
+                searchArea.width + size.width - 1, searchArea.height + size.height - 1)
+                .intersection(new Rectangle(0, 0, width, height));
+        if (covered.isEmpty()) {
+            return List.of();
+        }
+        ResultCache.Key key = new ResultCache.Key(ImageUtil.contentHash(pixels, width, covered),
+                searchArea.x, searchArea.y, searchArea.width, searchArea.height,
+                icon.getData().getContentHash(), variant);
+        return cache.get(key, () -> delegate.locate(icon, searchArea));
+    }
+}
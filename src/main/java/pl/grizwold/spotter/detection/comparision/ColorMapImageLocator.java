@@ -4,22 +4,30 @@ import lombok.extern.slf4j.Slf4j;
 import pl.grizwold.spotter.util.ImageUtil;
 import pl.grizwold.spotter.util.VisualDebug;
 import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
 import pl.grizwold.spotter.model.Point;
 
 import javax.annotation.Nonnull;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Finds icons of exact colors by following the positions of their pixel colors in a map built once per image.
+ * Colors are compared without alpha and overlapping occurrences are skipped the same way the column-by-column scan
+ * of {@link PixelByPixelImageLocator} with no color tolerance skips them, so both locators find the same locations.
+ */
 @Slf4j
 public class ColorMapImageLocator implements ImageLocator {
-    private static final int MASK = -65281; //pure magenta color
+    private static final int RGB = 0xffffff;
+    private static final int OUTSIDE = -1;
 
     private final BufferedImage base;
+    private final int[] basePixels;
     private final Map<Integer, List<Point>> colorMap = new HashMap<>();
     private final VisualDebug debug;
 
@@ -27,6 +35,7 @@ public class ColorMapImageLocator implements ImageLocator {
 
     public ColorMapImageLocator(BufferedImage base) {
         this.base = base;
+        this.basePixels = ImageUtil.pixels(base);
         this.debug = new VisualDebug();
         buildColorMap();
     }
@@ -36,8 +45,8 @@ public class ColorMapImageLocator implements ImageLocator {
 
         for (int x = 0; x < base.getWidth(); x++) {
             for (int y = 0; y < base.getHeight(); y++) {
-                int pixel = base.getRGB(x, y);
-                List<Point> points = colorMap.computeIfAbsent(pixel, _ -> new ArrayList<>());
+                int pixel = basePixels[y * base.getWidth() + x];
+                List<Point> points = colorMap.computeIfAbsent(pixel & RGB, _ -> new ArrayList<>());
                 points.add(new Point(x, y));
             }
         }
@@ -48,43 +57,39 @@ public class ColorMapImageLocator implements ImageLocator {
     @Nonnull
     public List<Point> locate(@Nonnull final Icon icon_) {
         long start = System.currentTimeMillis();
-        final BufferedImage sample = icon_.getImage();
-        List<Point> possibleFirstPixels = new ArrayList<>();
-        boolean startedSampling = false;
-        Point[] firstSampledLocation = new Point[1];
-
-        for (int x = 0; x < sample.getWidth(); x++) {
-            for (int y = 0; y < sample.getHeight(); y++) {
-                int pixel = sample.getRGB(x, y);
-                final Point location = new Point(x, y);
-
-                if (pixel == MASK) continue;
-
-                if (!startedSampling) {
-                    possibleFirstPixels = colorMap.computeIfAbsent(pixel, _ -> new ArrayList<>());
-                    startedSampling = true;
-                    firstSampledLocation[0] = location;
-                } else {
-                    possibleFirstPixels = possibleFirstPixels.stream()
-                            .filter(fpix -> colorMap.computeIfAbsent(pixel, _ -> new ArrayList<>()).stream()
-                                    .anyMatch(p -> fpix.translate(location.minus(firstSampledLocation[0]))
-                                            .equals(p)))
-                            .collect(Collectors.toList());
-                }
+        final IconData sample = icon_.getData();
+        final int[] xs = sample.getXs();
+        final int[] ys = sample.getYs();
+        final int[] colors = sample.getColors();
+        if (colors.length == 0) {
+            throw new IllegalArgumentException("Sample icon cannot be all magenta!");
+        }
+        final Point anchor = new Point(xs[0], ys[0]);
+        List<Point> possibleFirstPixels = colorMap.getOrDefault(colors[0] & RGB, List.of()).stream()
+                .filter(p -> p.x >= anchor.x && p.y >= anchor.y)
+                .toList();
 
-                saveStepVisualization(this.base, icon_, possibleFirstPixels, x + "x" + y);
+        for (int i = 1; i < colors.length && !possibleFirstPixels.isEmpty(); i++) {
+            final int dx = xs[i] - anchor.x;
+            final int dy = ys[i] - anchor.y;
+            final int color = colors[i] & RGB;
+            possibleFirstPixels = possibleFirstPixels.stream()
+                    .filter(p -> colorAt(p.x + dx, p.y + dy) == color)
+                    .toList();
 
-                if (possibleFirstPixels.isEmpty()) {
-                    long time = System.currentTimeMillis() - start;
-                    log.debug("Icon {} not found in {}ms", icon_.getFilename(), time);
-                    return possibleFirstPixels;
-                }
-            }
+            saveStepVisualization(this.base, icon_, possibleFirstPixels, xs[i] + "x" + ys[i]);
+        }
+
+        if (possibleFirstPixels.isEmpty()) {
+            long time = System.currentTimeMillis() - start;
+            log.debug("Icon {} not found in {}ms", icon_.getFilename(), time);
+            return possibleFirstPixels;
         }
 
-        possibleFirstPixels = possibleFirstPixels.stream()
-                .map(p -> p.minus(firstSampledLocation[0]))
-                .collect(Collectors.toList());
+        possibleFirstPixels = skipOverlapping(possibleFirstPixels.stream()
+                .map(p -> p.minus(anchor))
+                .sorted(Comparator.<Point>comparingInt(p -> p.x).thenComparingInt(p -> p.y))
+                .toList(), sample.getWidth());
 
         saveResultVisualization(this.base, icon_, possibleFirstPixels);
 
@@ -96,6 +101,33 @@ public class ColorMapImageLocator implements ImageLocator {
         return possibleFirstPixels;
     }
 
+    /**
+     * Once an icon is found the scan continues below it in the column of its right edge, then from the next column
+     * on - locations passed over in the meantime are dropped.
+     *
+     * @param locations all locations of the icon in column-by-column order
+     */
+    private static List<Point> skipOverlapping(List<Point> locations, int iconWidth) {
+        List<Point> result = new ArrayList<>();
+        int nextX = 0;
+        int nextY = 0;
+        for (Point p : locations) {
+            if (p.x > nextX || (p.x == nextX && p.y >= nextY)) {
+                result.add(p);
+                nextX = p.x + iconWidth - 1;
+                nextY = p.y + 1;
+            }
+        }
+        return result;
+    }
+
+    private int colorAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= base.getWidth() || y >= base.getHeight()) {
+            return OUTSIDE;
+        }
+        return basePixels[y * base.getWidth() + x] & RGB;
+    }
+
     private void saveStepVisualization(BufferedImage baseImage, Icon icon, List<Point> pixelsToHighlight, String iteration) {
         if (pixelsToHighlight.size() != amountOfLastFoundPixels) {
             String fileName = icon.getFilename().substring(0, icon.getFilename().length() - 4) // remove original ".png"
@@ -103,7 +135,7 @@ public class ColorMapImageLocator implements ImageLocator {
                     .replaceAll("/", "-") // on linux
                     .replaceAll("\\\\", "-") // on windows
                     + "-" + iteration;
-            this.debug.saveDebugImage(() -> provideImageWithFoundPixels(pixelsToHighlight, baseImage), fileName);
+            this.debug.saveDebugImage(baseImage, provideFoundPixels(pixelsToHighlight), fileName);
             amountOfLastFoundPixels = pixelsToHighlight.size();
         }
     }
@@ -115,36 +147,33 @@ public class ColorMapImageLocator implements ImageLocator {
                     .replaceAll("/", "-") // on linux
                     .replaceAll("\\\\", "-") // on windows
                     + "-final";
-            this.debug.saveDebugImage(() -> provideImageWithFoundAreas(possibleFirstPixels, base, icon), fileName);
+            this.debug.saveDebugImage(base, provideFoundAreas(possibleFirstPixels, icon), fileName);
         }
     }
 
-    private BufferedImage provideImageWithFoundAreas(List<Point> possibleFirstPixels, BufferedImage base, Icon icon) {
-        List<Rectangle> rectangles = possibleFirstPixels.stream()
-                .map(p -> new Rectangle(p.toAwt(), icon.getDimension()))
-                .toList();
-        BufferedImage copy = ImageUtil.copy(base);
-
-        Graphics2D g = copy.createGraphics();
-        g.setColor(Color.MAGENTA);
-        for (Rectangle p : rectangles) {
-            g.drawRect(p.x, p.y, p.width, p.height);
-        }
-        g.dispose();
-
-        return copy;
+    private VisualDebug.DebugOverlayProvider provideFoundAreas(List<Point> possibleFirstPixels, Icon icon) {
+        return () -> {
+            List<Rectangle> rectangles = possibleFirstPixels.stream()
+                    .map(p -> new Rectangle(p.toAwt(), icon.getDimension()))
+                    .toList();
+            return g -> {
+                g.setColor(Color.MAGENTA);
+                for (Rectangle p : rectangles) {
+                    g.drawRect(p.x, p.y, p.width, p.height);
+                }
+            };
+        };
     }
 
-    private BufferedImage provideImageWithFoundPixels(@Nonnull List<Point> possibleFirstPixels, BufferedImage baseImage) {
-        BufferedImage copy = ImageUtil.copy(baseImage);
-
-        Graphics2D g = copy.createGraphics();
-        g.setColor(Color.MAGENTA);
-        for (Point p : possibleFirstPixels) {
-            g.drawLine(p.x, p.y, p.x, p.y);
-        }
-        g.dispose();
-
-        return copy;
+    private VisualDebug.DebugOverlayProvider provideFoundPixels(@Nonnull List<Point> possibleFirstPixels) {
+        return () -> {
+            List<Point> pixels = List.copyOf(possibleFirstPixels);
+            return g -> {
+                g.setColor(Color.MAGENTA);
+                for (Point p : pixels) {
+                    g.drawLine(p.x, p.y, p.x, p.y);
+                }
+            };
+        };
     }
 }
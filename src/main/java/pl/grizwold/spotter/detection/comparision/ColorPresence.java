@@ -0,0 +1,75 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import pl.grizwold.spotter.model.IconData;
+
+import javax.annotation.Nonnull;
+import java.util.BitSet;
+
+/**
+ * Set of colors present in an image, quantized to 5 bits per channel. Tells cheaply whether an icon may be found in
+ * the image at all - an icon is rejected only when one of its anchor pixels has no color within tolerance anywhere
+ * in the image, so {@link PixelByPixelImageLocator} would not find it either. Takes 4KB per image.
+ */
+public class ColorPresence {
+    private static final int SHIFT = 3;
+    private static final int ANCHORS = 16;
+
+    private final BitSet present = new BitSet(1 << 15);
+
+    /**
+     * @param pixels ARGB pixels of the image
+     */
+    public ColorPresence(@Nonnull int[] pixels) {
+        for (int pixel : pixels) {
+            present.set(bucket((pixel >> 16) & 0xff, (pixel >> 8) & 0xff, pixel & 0xff));
+        }
+    }
+
+    /**
+     * @param icon           searched icon
+     * @param colorTolerance tolerance of the search, as in {@link PixelByPixelImageLocator#withTolerance(int)}
+     * @return false when the icon cannot be found in the image, true when it may be
+     */
+    public boolean mayContain(@Nonnull IconData icon, int colorTolerance) {
+        int[] colors = icon.getColors();
+        int step = Math.max(1, colors.length / ANCHORS);
+        for (int i = 0; i < colors.length; i += step) {
+            if (!mayContain(colors[i], colorTolerance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false when no color of the image is within tolerance from given one, true when some may be
+     */
+    public boolean mayContain(int argb, int colorTolerance) {
+        int r = (argb >> 16) & 0xff;
+        int g = (argb >> 8) & 0xff;
+        int b = argb & 0xff;
+        int tolerance = Math.max(colorTolerance, 0);
+        for (int qr = low(r, tolerance); qr <= high(r, tolerance); qr++) {
+            for (int qg = low(g, tolerance); qg <= high(g, tolerance); qg++) {
+                for (int qb = low(b, tolerance); qb <= high(b, tolerance); qb++) {
+                    if (present.get((qr << 10) | (qg << 5) | qb)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int bucket(int r, int g, int b) {
+        return ((r >> SHIFT) << 10) | ((g >> SHIFT) << 5) | (b >> SHIFT);
+    }
+
+    private static int low(int channel, int tolerance) {
+        return Math.max(channel - tolerance, 0) >> SHIFT;
+    }
+
+    private static int high(int channel, int tolerance) {
+        return Math.min(channel + tolerance, 255) >> SHIFT;
+    }
+}
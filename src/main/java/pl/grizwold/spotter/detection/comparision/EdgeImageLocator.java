@@ -0,0 +1,193 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.IconEdges;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.EdgeUtil;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link ImageLocator} matching the sparse edges of an icon with the {@link EdgeMap} of the base image, instead of
+ * comparing colors. Anti-aliasing, gradients and compression noise move the colors a lot, but barely move the edges,
+ * so no color tolerance is needed.
+ * <br/><br/>
+ * An edge of the icon is a hit when an edge of similar orientation lies within {@link #withMaxDistance(double)}
+ * pixels. Misses are allowed evenly - a position is rejected as soon as the misses among the checked edges exceed
+ * the allowed ratio by more than {@value #MISS_SLACK}, so most positions are rejected after a handful of edges.
+ * Score of a match is the mean chamfer distance of the icon edges to the edges of the image, in pixels, with misses
+ * counted as just beyond the max distance.
+ */
+@Slf4j
+public class EdgeImageLocator implements ScoredImageLocator {
+    public static final int DEFAULT_EDGE_THRESHOLD = 64;
+    private static final int MISS_SLACK = 2;
+
+    private final BufferedImage base;
+    private final int[] basePixels;
+
+    @Getter
+    private int edgeThreshold = DEFAULT_EDGE_THRESHOLD;
+    @Getter
+    private double maxDistance = 1;
+    @Getter
+    private double missRatio = 0.1;
+    private volatile EdgeMap edgeMap;
+
+    /**
+     * @param base searched image. Changes of {@link BufferedImage#TYPE_INT_ARGB} images are visible to the locator
+     *             after {@link #reset()}.
+     */
+    public EdgeImageLocator(@Nonnull BufferedImage base) {
+        this.base = base;
+        this.basePixels = ImageUtil.pixels(base);
+    }
+
+    /**
+     * @return locations of the matches in the column-by-column order of other locators
+     */
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon) {
+        return locate(icon, new Rectangle(0, 0, base.getWidth(), base.getHeight()));
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+        return locateScored(icon, searchArea).stream()
+                .map(m -> m.location)
+                .sorted(Comparator.<Point>comparingInt(p -> p.x).thenComparingInt(p -> p.y))
+                .toList();
+    }
+
+    @Nonnull
+    @Override
+    public List<Match> locateScored(@Nonnull Icon icon) {
+        return locateScored(icon, new Rectangle(0, 0, base.getWidth(), base.getHeight()));
+    }
+
+    /**
+     * @param searchArea rectangle of possible upper left pixel locations of the icon
+     */
+    @Nonnull
+    public List<Match> locateScored(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+        long start = System.currentTimeMillis();
+        final IconData sample = PixelByPixelImageLocator.checkedData(icon);
+        final IconEdges edges = sample.getEdges(edgeThreshold);
+        final int count = edges.getCount();
+        if (count == 0) {
+            throw new IllegalArgumentException("Icon \"" + icon.getFilename() + "\" has no edges!");
+        }
+        final EdgeMap map = edgeMap();
+        final byte[] distances = map.getDistances();
+        final byte[] nearest = map.getNearest();
+        final int width = map.getWidth();
+        final int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = edges.getYs()[i] * width + edges.getXs()[i];
+        }
+        final int[] orientations = edges.getOrientations();
+        final int hitDistance = (int) Math.round(maxDistance * EdgeMap.STRAIGHT);
+        final int missCost = hitDistance + EdgeMap.STRAIGHT;
+        final int allowedMisses = (int) (missRatio * count);
+
+        final List<Match> candidates = new ArrayList<>();
+        final Rectangle area = searchArea.intersection(
+                PixelByPixelImageLocator.possibleLocations(sample, width, map.getHeight()));
+        for (int x = area.x; x < area.x + area.width; x++) {
+            positions:
+            for (int y = area.y; y < area.y + area.height; y++) {
+                int position = y * width + x;
+                int misses = 0;
+                int cost = 0;
+                for (int i = 0; i < count; i++) {
+                    int pixel = position + offsets[i];
+                    int distance = distances[pixel] & 0xff;
+                    if (distance <= hitDistance && EdgeUtil.similar(nearest[pixel], orientations[i])) {
+                        cost += distance;
+                    } else {
+                        cost += missCost;
+                        if (++misses > MISS_SLACK + missRatio * (i + 1)) continue positions;
+                    }
+                }
+                if (misses <= allowedMisses) {
+                    candidates.add(new Match(new Point(x, y), (double) cost / (EdgeMap.STRAIGHT * count)));
+                }
+            }
+        }
+
+        List<Match> matches = NonMaximumSuppression.suppress(candidates, icon.getDimension(), Integer.MAX_VALUE);
+        log.debug("Locating edges of icon \"{}\" took: {} ms, {} matches", icon.getFilename(),
+                (System.currentTimeMillis() - start), matches.size());
+        return matches;
+    }
+
+    private EdgeMap edgeMap() {
+        EdgeMap result = edgeMap;
+        if (result == null) {
+            synchronized (this) {
+                result = edgeMap;
+                if (result == null) {
+                    result = EdgeMap.of(basePixels, base.getWidth(), base.getHeight(), edgeThreshold);
+                    this.edgeMap = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the edges of the base image, e.g. after its pixels were overwritten.
+     */
+    public EdgeImageLocator reset() {
+        this.edgeMap = null;
+        return this;
+    }
+
+    /**
+     * @param edgeThreshold least sum of absolute horizontal and vertical Sobel gradients of the luminance of an edge
+     */
+    public synchronized EdgeImageLocator withEdgeThreshold(int edgeThreshold) {
+        if (edgeThreshold < 1) {
+            throw new IllegalArgumentException("Edge threshold must be positive!");
+        }
+        if (edgeThreshold != this.edgeThreshold) {
+            this.edgeThreshold = edgeThreshold;
+            this.edgeMap = null;
+        }
+        return this;
+    }
+
+    /**
+     * @param maxDistance distance in pixels within which an edge of the image has to lie to match an icon edge
+     */
+    public EdgeImageLocator withMaxDistance(double maxDistance) {
+        if (maxDistance < 0 || maxDistance * EdgeMap.STRAIGHT >= EdgeMap.MAX_DISTANCE) {
+            throw new IllegalArgumentException("Max distance out of range: " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        return this;
+    }
+
+    /**
+     * @param missRatio part of the icon edges which may have no matching edge in the image
+     */
+    public EdgeImageLocator withMissRatio(double missRatio) {
+        if (missRatio < 0 || missRatio >= 1) {
+            throw new IllegalArgumentException("Miss ratio out of range: " + missRatio);
+        }
+        this.missRatio = missRatio;
+        return this;
+    }
+}
@@ -0,0 +1,127 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.util.EdgeUtil;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Edges of a frame together with their chamfer distance transform. For every pixel the distance to the nearest edge
+ * and the orientation of that edge are known, so matching an edge of an icon against the frame is a single lookup.
+ * Distances are measured in thirds of a pixel (3-4 chamfer metric) and saturate at {@link #MAX_DISTANCE}.
+ *
+ * @see EdgeUtil
+ */
+@Slf4j
+public class EdgeMap {
+    /**
+     * distance of a straight step to the neighbouring pixel
+     */
+    public static final int STRAIGHT = 3;
+    private static final int DIAGONAL = 4;
+    public static final int MAX_DISTANCE = 255;
+
+    @Getter
+    private final int width;
+    @Getter
+    private final int height;
+    /**
+     * distance to the nearest edge of every pixel, unsigned
+     */
+    private final byte[] distances;
+    /**
+     * orientation of the nearest edge of every pixel
+     */
+    private final byte[] nearest;
+
+    private EdgeMap(int width, int height, byte[] distances, byte[] nearest) {
+        this.width = width;
+        this.height = height;
+        this.distances = distances;
+        this.nearest = nearest;
+    }
+
+    /**
+     * @param pixels    ARGB pixels, row by row
+     * @param threshold least gradient of an edge
+     * @see EdgeUtil#orientation(int[], int, int, int)
+     */
+    @Nonnull
+    public static EdgeMap of(@Nonnull int[] pixels, int width, int height, int threshold) {
+        long start = System.currentTimeMillis();
+        int[] luminance = EdgeUtil.luminance(pixels);
+        byte[] distances = new byte[width * height];
+        byte[] nearest = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                int orientation = border ? EdgeUtil.NO_EDGE : EdgeUtil.orientation(luminance, width, i, threshold);
+                nearest[i] = (byte) orientation;
+                distances[i] = (byte) (orientation == EdgeUtil.NO_EDGE ? MAX_DISTANCE : 0);
+            }
+        }
+        transform(distances, nearest, width, height);
+        log.debug("Edge map of {}x{} image took: {} ms", width, height, (System.currentTimeMillis() - start));
+        return new EdgeMap(width, height, distances, nearest);
+    }
+
+    /**
+     * Two pass chamfer distance transform carrying the orientation of the nearest edge along.
+     */
+    private static void transform(byte[] distances, byte[] nearest, int width, int height) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (x > 0) relax(distances, nearest, i, i - 1, STRAIGHT);
+                if (y > 0) {
+                    if (x > 0) relax(distances, nearest, i, i - width - 1, DIAGONAL);
+                    relax(distances, nearest, i, i - width, STRAIGHT);
+                    if (x < width - 1) relax(distances, nearest, i, i - width + 1, DIAGONAL);
+                }
+            }
+        }
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int i = y * width + x;
+                if (x < width - 1) relax(distances, nearest, i, i + 1, STRAIGHT);
+                if (y < height - 1) {
+                    if (x < width - 1) relax(distances, nearest, i, i + width + 1, DIAGONAL);
+                    relax(distances, nearest, i, i + width, STRAIGHT);
+                    if (x > 0) relax(distances, nearest, i, i + width - 1, DIAGONAL);
+                }
+            }
+        }
+    }
+
+    private static void relax(byte[] distances, byte[] nearest, int pixel, int neighbour, int step) {
+        int distance = (distances[neighbour] & 0xff) + step;
+        if (distance < (distances[pixel] & 0xff)) {
+            distances[pixel] = (byte) distance;
+            nearest[pixel] = nearest[neighbour];
+        }
+    }
+
+    /**
+     * @return distance from the pixel to the nearest edge, in thirds of a pixel
+     */
+    public int distance(int x, int y) {
+        return distances[y * width + x] & 0xff;
+    }
+
+    /**
+     * @return orientation of the edge nearest to the pixel, {@link EdgeUtil#NO_EDGE} when there are no edges
+     */
+    public int nearestOrientation(int x, int y) {
+        return nearest[y * width + x];
+    }
+
+    byte[] getDistances() {
+        return distances;
+    }
+
+    byte[] getNearest() {
+        return nearest;
+    }
+}
@@ -0,0 +1,159 @@
+package pl.grizwold.spotter.detection.comparision;
+
+/**
+ * In-place radix-2 fast Fourier transform of square complex matrices, stored row by row in separate arrays of real
+ * and imaginary parts. The size has to be a power of two.
+ */
+class Fft2d {
+    private final int size;
+    private final int[] reversed;
+    private final double[] cos;
+    private final double[] sin;
+    private final double[] row;
+
+    Fft2d(int size) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two, got " + size);
+        }
+        this.size = size;
+        this.reversed = new int[size];
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+        this.cos = new double[size / 2 + 1];
+        this.sin = new double[size / 2 + 1];
+        for (int i = 0; i < cos.length; i++) {
+            cos[i] = Math.cos(2 * Math.PI * i / size);
+            sin[i] = Math.sin(2 * Math.PI * i / size);
+        }
+        this.row = new double[size];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forward(double[] re, double[] im) {
+        transform(re, im, false);
+    }
+
+    /**
+     * Inverse transform, already divided by the amount of elements.
+     */
+    void inverse(double[] re, double[] im) {
+        transform(re, im, true);
+        double scale = 1.0 / ((double) size * size);
+        for (int i = 0; i < re.length; i++) {
+            re[i] *= scale;
+            im[i] *= scale;
+        }
+    }
+
+    private void transform(double[] re, double[] im, boolean inverse) {
+        for (int row = 0; row < size; row++) {
+            transform1d(re, im, row * size, inverse);
+        }
+        transformColumns(re, im, inverse);
+    }
+
+    /**
+     * Transforms all columns at once - every butterfly combines two whole rows, so the memory is read sequentially.
+     */
+    private void transformColumns(double[] re, double[] im, boolean inverse) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                swapRows(re, i, j);
+                swapRows(im, i, j);
+            }
+        }
+        double sign = inverse ? 1 : -1;
+        for (int length = 2; length <= size; length <<= 1) {
+            int half = length / 2;
+            int step = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    double wRe = cos[k * step];
+                    double wIm = sign * sin[k * step];
+                    int a = (start + k) * size;
+                    int b = a + half * size;
+                    for (int column = 0; column < size; column++, a++, b++) {
+                        double tRe = re[b] * wRe - im[b] * wIm;
+                        double tIm = re[b] * wIm + im[b] * wRe;
+                        re[b] = re[a] - tRe;
+                        im[b] = im[a] - tIm;
+                        re[a] += tRe;
+                        im[a] += tIm;
+                    }
+                }
+            }
+        }
+    }
+
+    private void swapRows(double[] values, int i, int j) {
+        System.arraycopy(values, i * size, row, 0, size);
+        System.arraycopy(values, j * size, values, i * size, size);
+        System.arraycopy(row, 0, values, j * size, size);
+    }
+
+    private void transform1d(double[] re, double[] im, int offset, boolean inverse) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                double t = re[offset + i];
+                re[offset + i] = re[offset + j];
+                re[offset + j] = t;
+                t = im[offset + i];
+                im[offset + i] = im[offset + j];
+                im[offset + j] = t;
+            }
+        }
+        double sign = inverse ? 1 : -1;
+        for (int length = 2; length <= size; length <<= 1) {
+            int half = length / 2;
+            int step = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    double wRe = cos[k * step];
+                    double wIm = sign * sin[k * step];
+                    int a = offset + start + k;
+                    int b = a + half;
+                    double tRe = re[b] * wRe - im[b] * wIm;
+                    double tIm = re[b] * wIm + im[b] * wRe;
+                    re[b] = re[a] - tRe;
+                    im[b] = im[a] - tIm;
+                    re[a] += tRe;
+                    im[a] += tIm;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the spectrum of {@code a + i*b}, where {@code a} and {@code b} are real, into spectra of {@code a}
+     * and {@code b}. The packed spectrum is overwritten by the spectrum of {@code a}.
+     */
+    void unpack(double[] re, double[] im, double[] bRe, double[] bIm) {
+        for (int y = 0; y < size; y++) {
+            int my = (size - y) & (size - 1);
+            for (int x = 0; x < size; x++) {
+                int mx = (size - x) & (size - 1);
+                int i = y * size + x;
+                int m = my * size + mx;
+                if (m < i) continue;
+                double zRe = re[i], zIm = im[i];
+                double mRe = re[m], mIm = im[m];
+                // A(k) = (Z(k) + conj(Z(-k))) / 2, B(k) = (Z(k) - conj(Z(-k))) / 2i
+                re[i] = (zRe + mRe) / 2;
+                im[i] = (zIm - mIm) / 2;
+                bRe[i] = (zIm + mIm) / 2;
+                bIm[i] = -(zRe - mRe) / 2;
+                re[m] = (mRe + zRe) / 2;
+                im[m] = (mIm - zIm) / 2;
+                bRe[m] = (mIm + zIm) / 2;
+                bIm[m] = -(mRe - zRe) / 2;
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package pl.grizwold.spotter.detection.comparision;
 
 import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.IconSpans;
+import pl.grizwold.spotter.util.ColorUtil;
 
 import java.awt.image.BufferedImage;
 import java.time.Instant;
@@ -33,7 +37,7 @@ public class ImageComparator {
                 int rgb1 = img1.getRGB(x, y);
                 int rgb2 = img2.getRGB(x, y);
                 if (rgb1 == MASK || rgb2 == MASK) continue;
-                double diff = colorDifference(rgb1, rgb2);
+                int diff = ColorUtil.distanceSquared(rgb1, rgb2);
 
                 if (diff > tolerance * tolerance) return false;
             }
@@ -43,22 +47,28 @@ public class ImageComparator {
         return true;
     }
 
-    private double colorDifference(int samplePixelColor, int basePixelColor) {
-        int[] sampleRGB = destructARGB(samplePixelColor);
-        int[] baseRGB = destructARGB(basePixelColor);
-        return cartesianPowerDistance(sampleRGB, baseRGB);
-    }
-
-    private double cartesianPowerDistance(int[] a, int[] b) {
-        return (a[0] - b[0]) * (a[0] - b[0]) + (a[1] - b[1]) * (a[1] - b[1]) + (a[2] - b[2]) * (a[2] - b[2]);
-    }
+    /**
+     * Compares the icon with the area of the base image whose upper left pixel is at given coordinates.
+     * Only the non-mask spans of the icon are visited.
+     */
+    public boolean areTheSame(Icon icon, BufferedImage base, int x, int y) {
+        IconData data = icon.getData();
+        if (x < 0 || y < 0 || x + data.getWidth() > base.getWidth() || y + data.getHeight() > base.getHeight())
+            throw new IllegalArgumentException("Icon sticks out of the image!");
 
-    private int[] destructARGB(int argb) {
-        return new int[]{
-                (argb >> 24) & 0xff,
-                (argb >> 16) & 0xff,
-                (argb >> 8) & 0xff,
-                argb & 0xff
-        };
+        final IconSpans spans = data.getSpans();
+        final int[] colors = spans.getColors();
+        final int[] row = new int[data.getWidth()];
+        for (int s = 0; s < spans.getCount(); s++) {
+            int length = spans.getLengths()[s];
+            int offset = spans.getOffsets()[s];
+            base.getRGB(x + spans.getStarts()[s], y + spans.getRows()[s], length, 1, row, 0, length);
+            for (int i = 0; i < length; i++) {
+                int rgb = row[i];
+                if (rgb == MASK) continue;
+                if (ColorUtil.distanceSquared(colors[offset + i], rgb) > tolerance * tolerance) return false;
+            }
+        }
+        return true;
     }
 }
@@ -1,11 +1,42 @@
 package pl.grizwold.spotter.detection.comparision;
 
 import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.LocateResult;
 import pl.grizwold.spotter.model.Point;
 
 import javax.annotation.Nonnull;
+import java.awt.*;
 import java.util.List;
 
 public interface ImageLocator {
     List<Point> locate(@Nonnull final Icon icon);
+
+    /**
+     * Searches only the upper left pixel locations of the icon within given area. By default the whole image is
+     * searched and the locations outside the area are dropped - locators able to skip the rest of the image
+     * override it.
+     *
+     * @param searchArea rectangle of possible upper left pixel locations of the icon
+     */
+    @Nonnull
+    default List<Point> locate(@Nonnull final Icon icon, @Nonnull final Rectangle searchArea) {
+        return locate(icon).stream()
+                .filter(p -> searchArea.contains(p.x, p.y))
+                .toList();
+    }
+
+    /**
+     * Searches like {@link #locate(Icon)} until the limit is reached. By default the limit is checked once before the
+     * whole search - locators able to stop in the middle of the search override it.
+     *
+     * @return locations found before the limit was reached, truncated when it was reached before the whole image was
+     * searched
+     */
+    @Nonnull
+    default LocateResult locate(@Nonnull final Icon icon, @Nonnull final SearchLimit limit) {
+        if (limit.isReached()) {
+            return new LocateResult(List.of(), true);
+        }
+        return new LocateResult(locate(icon), false);
+    }
 }
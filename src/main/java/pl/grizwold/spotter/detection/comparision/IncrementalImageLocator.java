@@ -0,0 +1,174 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.detection.diff.TileDiff;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link ImageLocator} remembering results of previous searches. After each {@link #update(BufferedImage, PixelByPixelImageLocator)}
+ * only the regions which changed since the previous frame are searched again - results found elsewhere are reused.
+ * <br/><br/>
+ * Icons are remembered by identity, so the same {@link Icon} instance should be reused between searches.
+ * Reused results are reported in the same column-by-column order as the full search does, but overlapping
+ * occurrences of an icon may be reported when one of them was found in a changed region.
+ * <br/><br/>
+ * The locator is thread safe. Remembered results describe only the last updated frame - older frames should be
+ * searched through {@link #forFrame(BufferedImage, ImageLocator)}.
+ */
+@Slf4j
+public class IncrementalImageLocator implements ImageLocator {
+    private static final int MAX_PENDING_REGIONS = 64;
+    private static final double MAX_CHANGED_AREA_RATIO = 0.5;
+
+    private final TileDiff tileDiff;
+    private final Map<Icon, CachedResult> cache = new IdentityHashMap<>();
+
+    private BufferedImage frame;
+    private PixelByPixelImageLocator frameLocator;
+
+    public IncrementalImageLocator(TileDiff tileDiff) {
+        this.tileDiff = tileDiff;
+    }
+
+    public IncrementalImageLocator() {
+        this(new TileDiff());
+    }
+
+    /**
+     * Switches the locator to the new frame. Regions changed since the previous frame are marked as stale for every
+     * remembered icon.
+     *
+     * @param newFrame     freshly captured screen
+     * @param frameLocator locator searching the new frame
+     */
+    public synchronized IncrementalImageLocator update(@Nonnull BufferedImage newFrame, @Nonnull PixelByPixelImageLocator frameLocator) {
+        if (this.frame != null && !cache.isEmpty()) {
+            List<Rectangle> changed = tileDiff.getChangedRegions(this.frame, newFrame);
+            double changedArea = changed.stream()
+                    .mapToDouble(r -> (double) r.width * r.height)
+                    .sum();
+            boolean mostlyChanged = changedArea > MAX_CHANGED_AREA_RATIO * newFrame.getWidth() * newFrame.getHeight();
+            cache.values().forEach(result -> result.invalidate(changed, mostlyChanged));
+        }
+        this.frame = newFrame;
+        this.frameLocator = frameLocator;
+        return this;
+    }
+
+    /**
+     * Forgets all remembered results, e.g. when color tolerance changed.
+     */
+    public synchronized IncrementalImageLocator clear() {
+        cache.clear();
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized List<Point> locate(@Nonnull final Icon icon) {
+        if (frameLocator == null) {
+            throw new IllegalStateException("No frame to search on. Update the locator first!");
+        }
+
+        CachedResult cached = cache.get(icon);
+        if (cached == null || cached.fullSearchNeeded) {
+            List<Point> locations = List.copyOf(frameLocator.locate(icon));
+            cache.put(icon, new CachedResult(locations));
+            return locations;
+        }
+        if (cached.pendingRegions.isEmpty()) {
+            log.debug("Reusing {} locations of icon \"{}\"", cached.locations.size(), icon.getFilename());
+            return cached.locations;
+        }
+
+        Dimension size = icon.getDimension();
+        List<Rectangle> footprints = cached.pendingRegions;
+        Set<Point> locations = new LinkedHashSet<>();
+        for (Point p : cached.locations) {
+            Rectangle footprint = p.toRectangle(size);
+            if (footprints.stream().noneMatch(footprint::intersects)) {
+                locations.add(p);
+            }
+        }
+        for (Rectangle changed : footprints) {
+            Rectangle searchArea = new Rectangle(changed.x - size.width + 1, changed.y - size.height + 1,
+                    changed.width + size.width - 1, changed.height + size.height - 1);
+            locations.addAll(frameLocator.locate(icon, searchArea));
+        }
+
+        List<Point> result = locations.stream()
+                .sorted(Comparator.<Point>comparingInt(p -> p.x).thenComparingInt(p -> p.y))
+                .toList();
+        log.debug("Searched {} changed regions for icon \"{}\"", footprints.size(), icon.getFilename());
+        cache.put(icon, new CachedResult(result));
+        return result;
+    }
+
+    /**
+     * Searches the current frame directly, remembered results are neither used nor updated.
+     */
+    @Nonnull
+    @Override
+    public synchronized List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+        if (frameLocator == null) {
+            throw new IllegalStateException("No frame to search on. Update the locator first!");
+        }
+        return frameLocator.locate(icon, searchArea);
+    }
+
+    /**
+     * @param frame        frame to search on
+     * @param frameLocator locator searching the given frame
+     * @return locator using remembered results as long as the given frame is the last updated one, searching the
+     * given frame with {@code frameLocator} otherwise
+     */
+    @Nonnull
+    public ImageLocator forFrame(@Nonnull BufferedImage frame, @Nonnull ImageLocator frameLocator) {
+        return new ImageLocator() {
+            @Nonnull
+            @Override
+            public List<Point> locate(@Nonnull Icon icon) {
+                synchronized (IncrementalImageLocator.this) {
+                    if (IncrementalImageLocator.this.frame == frame) {
+                        return IncrementalImageLocator.this.locate(icon);
+                    }
+                }
+                return frameLocator.locate(icon);
+            }
+
+            @Nonnull
+            @Override
+            public List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+                return frameLocator.locate(icon, searchArea);
+            }
+        };
+    }
+
+    private static class CachedResult {
+        private final List<Point> locations;
+        private final List<Rectangle> pendingRegions = new ArrayList<>();
+        private boolean fullSearchNeeded;
+
+        private CachedResult(List<Point> locations) {
+            this.locations = locations;
+        }
+
+        private void invalidate(List<Rectangle> changed, boolean mostlyChanged) {
+            if (fullSearchNeeded) return;
+            pendingRegions.addAll(changed);
+            fullSearchNeeded = mostlyChanged || pendingRegions.size() > MAX_PENDING_REGIONS;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.IconData;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+
+/**
+ * Summed-area tables of the red, green and blue channels and of the squared channels of an image. Mean color and
+ * color deviation of any rectangle are computed in constant time.
+ * <br/><br/>
+ * Channel sums are kept in {@code int}s and rely on the overflow arithmetic - the sum of any rectangle up to 8M pixels
+ * is still exact. Tables take 20 bytes per pixel of the image.
+ */
+@Slf4j
+public class IntegralImage {
+    @Getter
+    private final int width;
+    @Getter
+    private final int height;
+    private final int stride;
+    private final int[] red;
+    private final int[] green;
+    private final int[] blue;
+    private final long[] squares;
+
+    private IntegralImage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        int size = (width + 1) * (height + 1);
+        this.red = new int[size];
+        this.green = new int[size];
+        this.blue = new int[size];
+        this.squares = new long[size];
+    }
+
+    /**
+     * @param pixels ARGB pixels, row by row. Alpha is ignored.
+     */
+    public static IntegralImage of(@Nonnull int[] pixels, int width, int height) {
+        long start = System.currentTimeMillis();
+        IntegralImage integral = new IntegralImage(width, height);
+        int stride = integral.stride;
+        for (int y = 0; y < height; y++) {
+            int rowR = 0, rowG = 0, rowB = 0;
+            long rowSquares = 0;
+            int above = y * stride;
+            int current = above + stride;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[y * width + x];
+                int r = (pixel >> 16) & 0xff;
+                int g = (pixel >> 8) & 0xff;
+                int b = pixel & 0xff;
+                rowR += r;
+                rowG += g;
+                rowB += b;
+                rowSquares += r * r + g * g + b * b;
+                integral.red[current + x + 1] = integral.red[above + x + 1] + rowR;
+                integral.green[current + x + 1] = integral.green[above + x + 1] + rowG;
+                integral.blue[current + x + 1] = integral.blue[above + x + 1] + rowB;
+                integral.squares[current + x + 1] = integral.squares[above + x + 1] + rowSquares;
+            }
+        }
+        log.debug("Building integral image of {}x{} pixels took: {}ms", width, height, (System.currentTimeMillis() - start));
+        return integral;
+    }
+
+    /**
+     * @return mean red, green and blue of the rectangle
+     */
+    public double[] mean(@Nonnull Rectangle r) {
+        double n = (double) r.width * r.height;
+        return new double[]{
+                sum(red, r.x, r.y, r.x + r.width, r.y + r.height) / n,
+                sum(green, r.x, r.y, r.x + r.width, r.y + r.height) / n,
+                sum(blue, r.x, r.y, r.x + r.width, r.y + r.height) / n
+        };
+    }
+
+    /**
+     * @return deviation of the colors of the rectangle - the root of the mean squared distance of its pixels from
+     * their mean color
+     */
+    public double deviation(@Nonnull Rectangle r) {
+        double[] mean = mean(r);
+        double n = (double) r.width * r.height;
+        double squareMean = sum(squares, r.x, r.y, r.x + r.width, r.y + r.height) / n;
+        return Math.sqrt(Math.max(0, squareMean - mean[0] * mean[0] - mean[1] * mean[1] - mean[2] * mean[2]));
+    }
+
+    /**
+     * Prepares the constant time rejection of positions of the icon. Statistics of the largest visible rectangle of
+     * the icon are compared with the same rectangle of the image.
+     *
+     * @return filter of the icon, or null when its visible rectangle is smaller than {@code minArea}
+     */
+    public Filter filter(@Nonnull IconData sample, int colorTolerance, int minArea) {
+        Rectangle r = sample.getVisibleRectangle();
+        if (r.width * r.height < minArea) {
+            return null;
+        }
+        double n = (double) r.width * r.height;
+        double sumR = 0, sumG = 0, sumB = 0, sumSquares = 0;
+        for (int x = r.x; x < r.x + r.width; x++) {
+            for (int y = r.y; y < r.y + r.height; y++) {
+                int pixel = sample.getRGB(x, y);
+                int red = (pixel >> 16) & 0xff;
+                int green = (pixel >> 8) & 0xff;
+                int blue = pixel & 0xff;
+                sumR += red;
+                sumG += green;
+                sumB += blue;
+                sumSquares += red * red + green * green + blue * blue;
+            }
+        }
+        double meanR = sumR / n, meanG = sumG / n, meanB = sumB / n;
+        double deviation = Math.sqrt(Math.max(0, sumSquares / n - meanR * meanR - meanG * meanG - meanB * meanB));
+        return new Filter(r, n, meanR, meanG, meanB, deviation, (double) colorTolerance * colorTolerance);
+    }
+
+    private long sum(int[] table, int x0, int y0, int x1, int y1) {
+        return table[y1 * stride + x1] - table[y0 * stride + x1] - table[y1 * stride + x0] + table[y0 * stride + x0];
+    }
+
+    private long sum(long[] table, int x0, int y0, int x1, int y1) {
+        return table[y1 * stride + x1] - table[y0 * stride + x1] - table[y1 * stride + x0] + table[y0 * stride + x0];
+    }
+
+    /**
+     * When every pixel of the icon is within the tolerance from the image pixel under it, the squared distance of
+     * the mean colors plus the squared difference of the deviations of any part of the icon is within the squared
+     * tolerance too. Positions failing this condition are rejected without looking at the pixels, so flat areas
+     * of the image which differ from the icon cost a few additions.
+     */
+    public class Filter {
+        private static final double ROUNDING_SLACK = 1e-6;
+
+        private final Rectangle rectangle;
+        private final double n;
+        private final double meanR;
+        private final double meanG;
+        private final double meanB;
+        private final double deviation;
+        private final double maxDistance;
+
+        private Filter(Rectangle rectangle, double n, double meanR, double meanG, double meanB, double deviation,
+                       double maxDistance) {
+            this.rectangle = rectangle;
+            this.n = n;
+            this.meanR = meanR;
+            this.meanG = meanG;
+            this.meanB = meanB;
+            this.deviation = deviation;
+            this.maxDistance = maxDistance + ROUNDING_SLACK * (maxDistance + 1);
+        }
+
+        /**
+         * @return false when the icon with the upper left pixel at given position surely does not match
+         */
+        public boolean mayMatchAt(int x, int y) {
+            int x0 = x + rectangle.x;
+            int y0 = y + rectangle.y;
+            int x1 = x0 + rectangle.width;
+            int y1 = y0 + rectangle.height;
+            double r = sum(red, x0, y0, x1, y1) / n;
+            double g = sum(green, x0, y0, x1, y1) / n;
+            double b = sum(blue, x0, y0, x1, y1) / n;
+            double meanDistance = (r - meanR) * (r - meanR) + (g - meanG) * (g - meanG) + (b - meanB) * (b - meanB);
+            if (meanDistance > maxDistance) {
+                return false;
+            }
+            double squareMean = sum(squares, x0, y0, x1, y1) / n;
+            double baseDeviation = Math.sqrt(Math.max(0, squareMean - r * r - g * g - b * b));
+            double deviationDifference = baseDeviation - deviation;
+            return meanDistance + deviationDifference * deviationDifference <= maxDistance;
+        }
+    }
+}
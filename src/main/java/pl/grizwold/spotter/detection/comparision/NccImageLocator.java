@@ -0,0 +1,296 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scores every position of the icon by the normalized cross-correlation of its non-mask pixels with the base image,
+ * computed with the fast Fourier transform. The cost barely depends on the icon size and on the color tolerance, so
+ * it complements {@link PixelByPixelImageLocator} for big panels, where comparing pixels is the slowest, and gives
+ * a score of every match instead of a yes/no answer. Areas of a single color never match.
+ * <br/><br/>
+ * The {@link IconData#MASK} is honoured as in the masked normalized cross-correlation of D. Padfield - sums over
+ * the visible pixels of the icon are correlations of the image with the mask and with the masked icon.
+ * Red, green and blue are correlated together, as one vector of three channels per pixel, each channel centered
+ * by its own mean. The correlation is 1 for a perfect match, also when the image is uniformly brighter or has more
+ * contrast than the icon. The distance of a {@link Match} is {@code 1 - correlation}.
+ * <br/><br/>
+ * The base image is processed in square tiles - the size with the least transform work is chosen for each icon.
+ */
+@Slf4j
+public class NccImageLocator implements ScoredImageLocator {
+    private static final double DEFAULT_MIN_CORRELATION = 0.95;
+    private static final int MIN_TILE_SIZE = 64;
+    /**
+     * transforms of bigger tiles do not fit the processor caches and get much slower than the tile count suggests
+     */
+    private static final int MAX_CACHED_TILE_SIZE = 512;
+    private static final double FLAT_VARIANCE = 1e-6;
+
+    private final BufferedImage base;
+    private final int[] basePixels;
+    private double minCorrelation = DEFAULT_MIN_CORRELATION;
+
+    public NccImageLocator(@Nonnull BufferedImage base) {
+        this.base = base;
+        this.basePixels = ImageUtil.pixels(base);
+    }
+
+    /**
+     * @param minCorrelation positions correlated less are not reported, 1 is a perfect match
+     */
+    public NccImageLocator withThreshold(double minCorrelation) {
+        this.minCorrelation = minCorrelation;
+        return this;
+    }
+
+    /**
+     * @return locations of the best matches first
+     * @see #locateScored(Icon)
+     */
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon) {
+        return locateScored(icon).stream()
+                .map(m -> m.location)
+                .toList();
+    }
+
+    /**
+     * @return matches correlated at least as given by {@link #withThreshold(double)}, the best first. Of
+     * overlapping matches only the best is returned.
+     */
+    @Nonnull
+    @Override
+    public List<Match> locateScored(@Nonnull Icon icon) {
+        long start = System.currentTimeMillis();
+        IconData sample = icon.getData();
+        int positionsX = base.getWidth() - sample.getWidth() + 1;
+        int positionsY = base.getHeight() - sample.getHeight() + 1;
+        if (positionsX <= 0 || positionsY <= 0) {
+            return List.of();
+        }
+
+        int tileSize = tileSize(sample, positionsX, positionsY);
+        Fft2d fft = new Fft2d(tileSize);
+        Kernel kernel = Kernel.of(sample, fft);
+        Workspace work = new Workspace(tileSize * tileSize);
+        List<Match> candidates = new ArrayList<>();
+        int stepX = tileSize - sample.getWidth() + 1;
+        int stepY = tileSize - sample.getHeight() + 1;
+        for (int tileY = 0; tileY < positionsY; tileY += stepY) {
+            for (int tileX = 0; tileX < positionsX; tileX += stepX) {
+                correlateTile(fft, kernel, work, tileX, tileY,
+                        Math.min(stepX, positionsX - tileX), Math.min(stepY, positionsY - tileY), candidates);
+            }
+        }
+
+        List<Match> matches = NonMaximumSuppression.suppress(candidates, icon.getDimension(), Integer.MAX_VALUE);
+        log.debug("Correlating icon \"{}\" in {}x{} tiles took: {} ms, {} matches", icon.getFilename(), tileSize,
+                tileSize, (System.currentTimeMillis() - start), matches.size());
+        return matches;
+    }
+
+    /**
+     * @return power of two tile size with the least transform work - smaller tiles are cheaper, but overlap more.
+     * Tiles are bigger than {@link #MAX_CACHED_TILE_SIZE} only for icons which do not fit smaller ones.
+     */
+    private int tileSize(IconData sample, int positionsX, int positionsY) {
+        int iconSize = Math.max(sample.getWidth(), sample.getHeight());
+        int smallest = Integer.highestOneBit(Math.max(MIN_TILE_SIZE, iconSize) * 2 - 1);
+        int largest = Math.max(smallest, Math.min(MAX_CACHED_TILE_SIZE,
+                Integer.highestOneBit(Math.max(base.getWidth(), base.getHeight()) * 2 - 1)));
+        int best = smallest;
+        double bestCost = Double.MAX_VALUE;
+        for (int size = smallest; size <= largest; size *= 2) {
+            long tilesX = Math.ceilDiv(positionsX, size - sample.getWidth() + 1);
+            long tilesY = Math.ceilDiv(positionsY, size - sample.getHeight() + 1);
+            double cost = (double) tilesX * tilesY * size * size * Integer.numberOfTrailingZeros(size);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = size;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Correlates the icon with the tile of the base image having the upper left pixel at ({@code tileX},
+     * {@code tileY}), scoring {@code positionsX x positionsY} positions from it.
+     */
+    private void correlateTile(Fft2d fft, Kernel kernel, Workspace work, int tileX, int tileY, int positionsX,
+                               int positionsY, List<Match> matches) {
+        int size = fft.size();
+        int length = size * size;
+        double[] rg = work.rg, rgIm = work.rgIm, bs = work.bs, bsIm = work.bsIm;
+        Arrays.fill(rg, 0);
+        Arrays.fill(rgIm, 0);
+        Arrays.fill(bs, 0);
+        Arrays.fill(bsIm, 0);
+        int width = Math.min(size, base.getWidth() - tileX);
+        int height = Math.min(size, base.getHeight() - tileY);
+        for (int y = 0; y < height; y++) {
+            int row = (tileY + y) * base.getWidth() + tileX;
+            for (int x = 0; x < width; x++) {
+                int pixel = basePixels[row + x];
+                int r = (pixel >> 16) & 0xff;
+                int g = (pixel >> 8) & 0xff;
+                int b = pixel & 0xff;
+                int i = y * size + x;
+                rg[i] = r;
+                rgIm[i] = g;
+                bs[i] = b;
+                bsIm[i] = r * r + g * g + b * b;
+            }
+        }
+
+        // spectra of red, green, blue and the sum of squares
+        double[] gRe = work.gRe, gIm = work.gIm, sRe = work.sRe, sIm = work.sIm;
+        fft.forward(rg, rgIm);
+        fft.unpack(rg, rgIm, gRe, gIm);
+        fft.forward(bs, bsIm);
+        fft.unpack(bs, bsIm, sRe, sIm);
+        double[] rRe = rg, rIm = rgIm, bRe = bs, bIm = bsIm;
+
+        // two real correlations are computed by one inverse transform: the first as the real part, the second
+        // as the imaginary part
+        double[] productRe = work.productRe, productIm = work.productIm;
+        double[] windowRe = work.windowRe, windowIm = work.windowIm;
+        double[] blueRe = work.blueRe, blueIm = work.blueIm;
+        for (int i = 0; i < length; i++) {
+            // sum of masked icon times image, over all channels
+            double pRe = rRe[i] * kernel.rRe[i] + rIm[i] * kernel.rIm[i]
+                    + gRe[i] * kernel.gRe[i] + gIm[i] * kernel.gIm[i]
+                    + bRe[i] * kernel.bRe[i] + bIm[i] * kernel.bIm[i];
+            double pIm = rIm[i] * kernel.rRe[i] - rRe[i] * kernel.rIm[i]
+                    + gIm[i] * kernel.gRe[i] - gRe[i] * kernel.gIm[i]
+                    + bIm[i] * kernel.bRe[i] - bRe[i] * kernel.bIm[i];
+            // sum of squares under the mask
+            double qRe = sRe[i] * kernel.mRe[i] + sIm[i] * kernel.mIm[i];
+            double qIm = sIm[i] * kernel.mRe[i] - sRe[i] * kernel.mIm[i];
+            productRe[i] = pRe - qIm;
+            productIm[i] = pIm + qRe;
+
+            // per channel sums under the mask
+            double rwRe = rRe[i] * kernel.mRe[i] + rIm[i] * kernel.mIm[i];
+            double rwIm = rIm[i] * kernel.mRe[i] - rRe[i] * kernel.mIm[i];
+            double gwRe = gRe[i] * kernel.mRe[i] + gIm[i] * kernel.mIm[i];
+            double gwIm = gIm[i] * kernel.mRe[i] - gRe[i] * kernel.mIm[i];
+            windowRe[i] = rwRe - gwIm;
+            windowIm[i] = rwIm + gwRe;
+            blueRe[i] = bRe[i] * kernel.mRe[i] + bIm[i] * kernel.mIm[i];
+            blueIm[i] = bIm[i] * kernel.mRe[i] - bRe[i] * kernel.mIm[i];
+        }
+        fft.inverse(productRe, productIm);
+        fft.inverse(windowRe, windowIm);
+        fft.inverse(blueRe, blueIm);
+
+        double n = kernel.n;
+        for (int x = 0; x < positionsX; x++) {
+            for (int y = 0; y < positionsY; y++) {
+                int i = y * size + x;
+                double sumR = windowRe[i], sumG = windowIm[i], sumB = blueRe[i];
+                double numerator = productRe[i] - (kernel.sumR * sumR + kernel.sumG * sumG + kernel.sumB * sumB) / n;
+                double imageVariance = productIm[i] - (sumR * sumR + sumG * sumG + sumB * sumB) / n;
+                if (imageVariance <= FLAT_VARIANCE * n) continue;
+                double correlation = numerator / Math.sqrt(imageVariance * kernel.variance);
+                if (correlation >= minCorrelation) {
+                    matches.add(new Match(new Point(tileX + x, tileY + y), 1 - Math.min(1, correlation)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Arrays reused by all tiles of one search.
+     */
+    private static class Workspace {
+        private final double[] rg, rgIm, bs, bsIm, gRe, gIm, sRe, sIm;
+        private final double[] productRe, productIm, windowRe, windowIm, blueRe, blueIm;
+
+        private Workspace(int length) {
+            rg = new double[length];
+            rgIm = new double[length];
+            bs = new double[length];
+            bsIm = new double[length];
+            gRe = new double[length];
+            gIm = new double[length];
+            sRe = new double[length];
+            sIm = new double[length];
+            productRe = new double[length];
+            productIm = new double[length];
+            windowRe = new double[length];
+            windowIm = new double[length];
+            blueRe = new double[length];
+            blueIm = new double[length];
+        }
+    }
+
+    /**
+     * Conjugated spectra are not stored - correlation multiplies the image spectrum by the conjugated kernel
+     * spectrum, which is expanded in {@link #correlateTile}.
+     */
+    private static class Kernel {
+        private double[] rRe, rIm, gRe, gIm, bRe, bIm, mRe, mIm;
+        private double n;
+        private double sumR, sumG, sumB;
+        private double variance;
+
+        static Kernel of(IconData sample, Fft2d fft) {
+            int size = fft.size();
+            int length = size * size;
+            Kernel kernel = new Kernel();
+            double[] rg = new double[length], rgIm = new double[length];
+            double[] bm = new double[length], bmIm = new double[length];
+            double squares = 0;
+            int[] xs = sample.getXs();
+            int[] ys = sample.getYs();
+            int[] colors = sample.getColors();
+            for (int i = 0; i < colors.length; i++) {
+                int r = (colors[i] >> 16) & 0xff;
+                int g = (colors[i] >> 8) & 0xff;
+                int b = colors[i] & 0xff;
+                int j = ys[i] * size + xs[i];
+                rg[j] = r;
+                rgIm[j] = g;
+                bm[j] = b;
+                bmIm[j] = 1;
+                kernel.sumR += r;
+                kernel.sumG += g;
+                kernel.sumB += b;
+                squares += r * r + g * g + b * b;
+            }
+            kernel.n = colors.length;
+            kernel.variance = squares - (kernel.sumR * kernel.sumR + kernel.sumG * kernel.sumG
+                    + kernel.sumB * kernel.sumB) / kernel.n;
+            if (kernel.variance <= FLAT_VARIANCE * kernel.n) {
+                throw new IllegalArgumentException("Icon of a single color cannot be correlated!");
+            }
+
+            kernel.gRe = new double[length];
+            kernel.gIm = new double[length];
+            kernel.mRe = new double[length];
+            kernel.mIm = new double[length];
+            fft.forward(rg, rgIm);
+            fft.unpack(rg, rgIm, kernel.gRe, kernel.gIm);
+            fft.forward(bm, bmIm);
+            fft.unpack(bm, bmIm, kernel.mRe, kernel.mIm);
+            kernel.rRe = rg;
+            kernel.rIm = rgIm;
+            kernel.bRe = bm;
+            kernel.bIm = bmIm;
+            return kernel;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Greedy non-maximum suppression of the matches of one icon. Matches are offered from the best one and each is kept
+ * unless an already kept match overlaps it. Kept matches are bucketed in a grid of icon sized cells, so every offered
+ * match is compared only with the matches of its neighbouring cells.
+ */
+public class NonMaximumSuppression {
+    /**
+     * lower distance first, ties in the column-by-column order of a scan
+     */
+    public static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble((Match m) -> m.distance)
+            .thenComparingInt(m -> m.location.x)
+            .thenComparingInt(m -> m.location.y);
+
+    private final int width;
+    private final int height;
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final List<Match> kept = new ArrayList<>();
+
+    public NonMaximumSuppression(@Nonnull Dimension iconSize) {
+        if (iconSize.width < 1 || iconSize.height < 1) {
+            throw new IllegalArgumentException("Icon size must be positive!");
+        }
+        this.width = iconSize.width;
+        this.height = iconSize.height;
+    }
+
+    /**
+     * @return {@code limit} best of given matches which do not overlap each other, the best first
+     */
+    @Nonnull
+    public static List<Match> suppress(@Nonnull Collection<Match> candidates, @Nonnull Dimension iconSize, int limit) {
+        NonMaximumSuppression suppression = new NonMaximumSuppression(iconSize);
+        List<Match> sorted = new ArrayList<>(candidates);
+        sorted.sort(BEST_FIRST);
+        for (Match candidate : sorted) {
+            if (suppression.offer(candidate) && suppression.size() >= limit) {
+                break;
+            }
+        }
+        return suppression.getKept();
+    }
+
+    /**
+     * Matches have to be offered in the {@link #BEST_FIRST} order.
+     *
+     * @return true when the match was kept
+     */
+    public boolean offer(@Nonnull Match match) {
+        Point p = match.location;
+        int cellX = Math.floorDiv(p.x, width);
+        int cellY = Math.floorDiv(p.y, height);
+        for (int cx = cellX - 1; cx <= cellX + 1; cx++) {
+            for (int cy = cellY - 1; cy <= cellY + 1; cy++) {
+                List<Point> cell = cells.get(key(cx, cy));
+                if (cell != null && cell.stream().anyMatch(k -> overlaps(k, p))) {
+                    return false;
+                }
+            }
+        }
+        cells.computeIfAbsent(key(cellX, cellY), _ -> new ArrayList<>()).add(p);
+        kept.add(match);
+        return true;
+    }
+
+    /**
+     * @return kept matches in the order they were offered
+     */
+    @Nonnull
+    public List<Match> getKept() {
+        return kept;
+    }
+
+    public int size() {
+        return kept.size();
+    }
+
+    private boolean overlaps(Point a, Point b) {
+        return Math.abs(a.x - b.x) < width && Math.abs(a.y - b.y) < height;
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+}
@@ -0,0 +1,151 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.IconSpans;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ColorNormalization;
+import pl.grizwold.spotter.util.ColorUtil;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ImageLocator} comparing colors converted by a {@link ColorNormalization}, so tinted or themed versions of
+ * an icon are found without raising the color tolerance. The base image is converted once, on the first search, and
+ * the icon colors once per icon - see {@link IconData#getSpans(ColorNormalization)}. Apart from that it searches the
+ * same way as {@link PixelByPixelImageLocator}, the color tolerance applies to the converted colors. For gray
+ * normalizations it is the largest difference of gray levels.
+ */
+@Slf4j
+public class NormalizedImageLocator implements ImageLocator {
+    private final BufferedImage base;
+    private final int[] basePixels;
+    @Getter
+    private final ColorNormalization normalization;
+
+    @Getter
+    private int colorTolerance = 1;
+    private volatile int[] normalizedPixels;
+    /**
+     * converted pixels kept for reuse after {@link #reset()}
+     */
+    private int[] buffer;
+
+    /**
+     * @param base searched image. Changes of {@link BufferedImage#TYPE_INT_ARGB} images are visible to the locator
+     *             after {@link #reset()}.
+     */
+    public NormalizedImageLocator(@Nonnull BufferedImage base, @Nonnull ColorNormalization normalization) {
+        this.base = base;
+        this.basePixels = ImageUtil.pixels(base);
+        this.normalization = normalization;
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon) {
+        return locate(icon, new Rectangle(0, 0, base.getWidth(), base.getHeight()));
+    }
+
+    /**
+     * @see PixelByPixelImageLocator#locate(Icon, Rectangle)
+     */
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+        long start = System.currentTimeMillis();
+        final IconData sample = PixelByPixelImageLocator.checkedData(icon);
+        final IconSpans spans = sample.getSpans(normalization);
+        final int[] pixels = normalizedPixels();
+        final int width = base.getWidth();
+        final int anchorOffset = sample.getYs()[0] * width + sample.getXs()[0];
+        final int anchorColor = normalization.convert(sample.getColors()[0]);
+        final int maxDistance = maxDistanceSquared();
+        final List<Point> locations = new ArrayList<>();
+
+        final Rectangle area = searchArea.intersection(
+                PixelByPixelImageLocator.possibleLocations(sample, width, base.getHeight()));
+        final int endX = area.x + area.width;
+        for (int x = area.x; x < endX; x++) {
+            for (int y = area.y; y < area.y + area.height && x < endX; y++) {
+                if (ColorUtil.distanceSquared(anchorColor, pixels[y * width + x + anchorOffset]) <= maxDistance
+                        && spansMatch(pixels, x, y, spans, maxDistance)) {
+                    locations.add(new Point(x, y));
+                    x += sample.getWidth() - 1;
+                }
+            }
+        }
+
+        log.debug("Locating icon \"{}\" by {} took: {} ms", icon.getFilename(), normalization,
+                (System.currentTimeMillis() - start));
+        return locations;
+    }
+
+    /**
+     * Gray colors differ in all three channels by the same difference of gray levels.
+     */
+    private int maxDistanceSquared() {
+        return (normalization.isGray() ? 3 : 1) * colorTolerance * colorTolerance;
+    }
+
+    private boolean spansMatch(int[] pixels, int baseX, int baseY, IconSpans spans, int maxDistance) {
+        final int width = base.getWidth();
+        final int[] rows = spans.getRows();
+        final int[] starts = spans.getStarts();
+        final int[] lengths = spans.getLengths();
+        final int[] offsets = spans.getOffsets();
+        final int[] colors = spans.getColors();
+        for (int s = 0; s < rows.length; s++) {
+            int basePixel = (baseY + rows[s]) * width + baseX + starts[s];
+            int samplePixel = offsets[s];
+            for (int end = samplePixel + lengths[s]; samplePixel < end; samplePixel++, basePixel++) {
+                if (ColorUtil.distanceSquared(colors[samplePixel], pixels[basePixel]) > maxDistance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int[] normalizedPixels() {
+        int[] result = normalizedPixels;
+        if (result == null) {
+            synchronized (this) {
+                result = normalizedPixels;
+                if (result == null) {
+                    long start = System.currentTimeMillis();
+                    if (buffer == null) {
+                        buffer = new int[basePixels.length];
+                    }
+                    result = buffer;
+                    normalization.convert(basePixels, result);
+                    log.debug("Converting {}x{} image by {} took: {} ms", base.getWidth(), base.getHeight(),
+                            normalization, (System.currentTimeMillis() - start));
+                    this.normalizedPixels = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the converted base image, e.g. after its pixels were overwritten. It is converted again on the next
+     * search.
+     */
+    public synchronized NormalizedImageLocator reset() {
+        this.normalizedPixels = null;
+        return this;
+    }
+
+    public NormalizedImageLocator withTolerance(int colorTolerance) {
+        this.colorTolerance = colorTolerance;
+        return this;
+    }
+}
@@ -1,9 +1,15 @@
 package pl.grizwold.spotter.detection.comparision;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.util.ColorUtil;
 import pl.grizwold.spotter.util.ImageUtil;
 import pl.grizwold.spotter.util.VisualDebug;
 import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.IconSpans;
+import pl.grizwold.spotter.model.LocateResult;
+import pl.grizwold.spotter.model.Match;
 import pl.grizwold.spotter.model.Point;
 
 import javax.annotation.Nonnull;
@@ -14,31 +20,84 @@ import java.util.List;
 import java.util.Optional;
 
 @Slf4j
-public class PixelByPixelImageLocator implements ImageLocator {
-    // pure magenta color - RGB(255, 0, 255)
-    private static final int MASK = -65281;
+public class PixelByPixelImageLocator implements ScoredImageLocator {
+    private static final int MIN_PREFILTERED_AREA = 16;
 
+    @Getter
     private final BufferedImage base;
+    private final int[] basePixels;
     private final VisualDebug debug;
 
+    @Getter
     private int colorTolerance = 1;
+    private boolean prefiltering;
+    private volatile IntegralImage integralImage;
 
+    /**
+     * @param base searched image. Changes of {@link BufferedImage#TYPE_INT_ARGB} images are visible to the locator,
+     *             other images are copied once.
+     * @see ImageUtil#pixels(BufferedImage)
+     */
     public PixelByPixelImageLocator(BufferedImage base) {
         this.debug = new VisualDebug();
         this.base = base;
+        this.basePixels = ImageUtil.pixels(base);
     }
 
     @Nonnull
     public List<Point> locate(@Nonnull final Icon icon_) {
+        return locate(icon_, new Rectangle(0, 0, base.getWidth(), base.getHeight()));
+    }
+
+    /**
+     * @see #locate(Icon, Rectangle, SearchLimit)
+     */
+    @Nonnull
+    @Override
+    public LocateResult locate(@Nonnull final Icon icon_, @Nonnull final SearchLimit limit) {
+        return locate(icon_, new Rectangle(0, 0, base.getWidth(), base.getHeight()), limit);
+    }
+
+    /**
+     * Searches only the positions within given area of the base image. Returned {@link Point}s are still related to
+     * the whole base image. The icon itself may stick out of the area - only its upper left pixel is bounded by it.
+     *
+     * @param icon_      small image which will be searched on the base image
+     * @param searchArea rectangle of possible upper left pixel locations of the icon
+     * @return locations of upper left pixel of given icon
+     */
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull final Icon icon_, @Nonnull final Rectangle searchArea) {
+        return locate(icon_, searchArea, SearchLimit.NONE).locations;
+    }
+
+    /**
+     * Searches like {@link #locate(Icon, Rectangle)} until the limit is reached. The limit is checked between columns
+     * of the search area, so the search overruns it by at most one column.
+     *
+     * @return locations found before the limit was reached, truncated when it was reached before the whole area was
+     * searched
+     */
+    @Nonnull
+    public LocateResult locate(@Nonnull final Icon icon_, @Nonnull final Rectangle searchArea,
+                               @Nonnull final SearchLimit limit) {
         long start = System.currentTimeMillis();
         final List<Point> locations = new ArrayList<>();
-        final BufferedImage sample = icon_.getImage();
-
-        Point sampleOffsetVector = getSampleOffset(sample)
-                .orElseThrow(() -> new IllegalArgumentException("Sample icon cannot be all magenta!"));
-        for (int x = 0; x < base.getWidth(); x++) {
-            for (int y = 0; y < base.getHeight(); y++) {
-                if (foundSample(base, x, y, sample, sampleOffsetVector)) {
+        final IconData sample = checkedData(icon_);
+        final Rectangle area = searchArea.intersection(possibleLocations(sample));
+        final IntegralImage.Filter filter = prefilter(sample, area);
+        final int endX = area.x + area.width;
+        boolean truncated = false;
+        for (int x = area.x; x < endX; x++) {
+            if (limit.isReached()) {
+                truncated = true;
+                break;
+            }
+            for (int y = area.y; y < area.y + area.height && x < endX; y++) {
+                if (anchorMatches(x, y, sample)
+                        && (filter == null || filter.mayMatchAt(x, y))
+                        && spansMatch(x, y, sample)) {
                     locations.add(new Point(x, y));
                     x += sample.getWidth() - 1;
                 }
@@ -46,37 +105,146 @@ public class PixelByPixelImageLocator implements ImageLocator {
         }
 
         long algoTime = System.currentTimeMillis() - start;
-        if (algoTime > 100) {
+        if (truncated) {
+            log.debug("Locating icon \"{}\" stopped at its limit after: {} ms", icon_.getFilename(), algoTime);
+        } else if (algoTime > 100) {
             log.warn("Locating icon \"{}\" took: {} ms", icon_.getFilename(), algoTime);
         } else {
             log.debug("Locating icon \"{}\" took: {} ms", icon_.getFilename(), algoTime);
         }
         saveResultVisualization(this.base, icon_, locations);
-        return locations;
+        return new LocateResult(locations, truncated);
     }
 
-    private boolean foundSample(BufferedImage base, int baseX, int baseY, BufferedImage sample, Point v) {
-        int maxX = base.getWidth() - 1;
-        int maxY = base.getHeight() - 1;
-        for (int sampleX = v.x; sampleX < sample.getWidth(); sampleX++) {
-            for (int sampleY = v.y; sampleY < sample.getHeight(); sampleY++) {
-                int samplePixelColor = sample.getRGB(sampleX, sampleY);
-                if (samplePixelColor == MASK) continue;
-
-                int baseSampledX = baseX + sampleX;
-                int baseSampledY = baseY + sampleY;
+    /**
+     * Distance of a match is the largest color distance between a non-mask pixel of the icon and the base image, so
+     * it never exceeds the color tolerance. Unlike {@link #locate(Icon)} every position is scored, overlapping
+     * matches are reduced to the best one by {@link NonMaximumSuppression}.
+     */
+    @Nonnull
+    @Override
+    public List<Match> locateScored(@Nonnull Icon icon) {
+        return locateTop(icon, Integer.MAX_VALUE);
+    }
 
-                if (baseSampledX > maxX || baseSampledY > maxY) {
-                    return false;
+    /**
+     * Scanning stops when {@code k} perfect, not overlapping matches are found - none could be better.
+     *
+     * @see #locateScored(Icon)
+     */
+    @Nonnull
+    @Override
+    public List<Match> locateTop(@Nonnull Icon icon, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one match has to be requested!");
+        }
+        long start = System.currentTimeMillis();
+        final IconData sample = checkedData(icon);
+        final Rectangle area = possibleLocations(sample);
+        final IntegralImage.Filter filter = prefilter(sample, area);
+        final int maxDistance = colorTolerance * colorTolerance;
+        final NonMaximumSuppression perfect = new NonMaximumSuppression(icon.getDimension());
+        final List<Match> candidates = new ArrayList<>();
+        scan:
+        for (int x = area.x; x < area.x + area.width; x++) {
+            for (int y = area.y; y < area.y + area.height; y++) {
+                if (filter != null && !filter.mayMatchAt(x, y)) continue;
+                int distance = distanceSquared(x, y, sample, maxDistance);
+                if (distance > maxDistance) continue;
+                Match match = new Match(new Point(x, y), Math.sqrt(distance));
+                candidates.add(match);
+                if (distance == 0 && perfect.offer(match) && perfect.size() >= k) {
+                    break scan;
                 }
+            }
+        }
 
-                int basePixelColor = base.getRGB(baseSampledX, baseSampledY);
-                if (samplePixelColor == basePixelColor) {
-                    continue;
-                }
+        List<Match> matches = NonMaximumSuppression.suppress(candidates, icon.getDimension(), k);
+        log.debug("Scoring icon \"{}\" took: {} ms, {} of {} matches kept", icon.getFilename(),
+                (System.currentTimeMillis() - start), matches.size(), candidates.size());
+        saveResultVisualization(this.base, icon, matches.stream().map(m -> m.location).toList());
+        return matches;
+    }
+
+    /**
+     * Branch and bound search - once a match is found, positions are abandoned at the first pixel which is not
+     * closer than the best match so far. Stops at the first perfect match.
+     *
+     * @see #locateScored(Icon)
+     */
+    @Nonnull
+    @Override
+    public Optional<Match> locateBest(@Nonnull Icon icon) {
+        long start = System.currentTimeMillis();
+        final IconData sample = checkedData(icon);
+        final Rectangle area = possibleLocations(sample);
+        final IntegralImage.Filter filter = prefilter(sample, area);
+        int bound = colorTolerance * colorTolerance;
+        Match best = null;
+        scan:
+        for (int x = area.x; x < area.x + area.width; x++) {
+            for (int y = area.y; y < area.y + area.height; y++) {
+                if (filter != null && !filter.mayMatchAt(x, y)) continue;
+                int distance = distanceSquared(x, y, sample, bound);
+                if (distance > bound) continue;
+                best = new Match(new Point(x, y), Math.sqrt(distance));
+                // distances are integers, ties are resolved in favour of the first position scanned
+                bound = distance - 1;
+                if (bound < 0) break scan;
+            }
+        }
+
+        Optional<Match> result = Optional.ofNullable(best);
+        log.debug("Finding best match of icon \"{}\" took: {} ms", icon.getFilename(),
+                (System.currentTimeMillis() - start));
+        saveResultVisualization(this.base, icon, result.map(m -> List.of(m.location)).orElse(List.of()));
+        return result;
+    }
+
+    /**
+     * @return upper left pixel locations at which all non-mask pixels of the sample are within the base image
+     */
+    private Rectangle possibleLocations(IconData sample) {
+        return possibleLocations(sample, base.getWidth(), base.getHeight());
+    }
 
-                double colorDifference = calcColorDifference(samplePixelColor, basePixelColor);
-                if (colorDifference > colorTolerance * colorTolerance) {
+    static Rectangle possibleLocations(IconData sample, int baseWidth, int baseHeight) {
+        Rectangle opaque = sample.getOpaqueBounds();
+        int lastX = baseWidth - (opaque.x + opaque.width);
+        int lastY = baseHeight - (opaque.y + opaque.height);
+        return new Rectangle(0, 0, lastX + 1, lastY + 1);
+    }
+
+    /**
+     * Exact comparison of the sample at given position. The whole non-mask part of the sample must be within
+     * the base image.
+     */
+    boolean foundSample(int baseX, int baseY, IconData sample) {
+        return anchorMatches(baseX, baseY, sample) && spansMatch(baseX, baseY, sample);
+    }
+
+    /**
+     * Most positions are rejected by the anchor alone.
+     */
+    private boolean anchorMatches(int baseX, int baseY, IconData sample) {
+        int anchor = basePixels[(baseY + sample.getYs()[0]) * base.getWidth() + baseX + sample.getXs()[0]];
+        return matches(sample.getColors()[0], anchor, colorTolerance * colorTolerance);
+    }
+
+    private boolean spansMatch(int baseX, int baseY, IconData sample) {
+        final int width = base.getWidth();
+        final int maxDistance = colorTolerance * colorTolerance;
+        final IconSpans spans = sample.getSpans();
+        final int[] rows = spans.getRows();
+        final int[] starts = spans.getStarts();
+        final int[] lengths = spans.getLengths();
+        final int[] offsets = spans.getOffsets();
+        final int[] colors = spans.getColors();
+        for (int s = 0; s < rows.length; s++) {
+            int basePixel = (baseY + rows[s]) * width + baseX + starts[s];
+            int samplePixel = offsets[s];
+            for (int end = samplePixel + lengths[s]; samplePixel < end; samplePixel++, basePixel++) {
+                if (!matches(colors[samplePixel], basePixels[basePixel], maxDistance)) {
                     return false;
                 }
             }
@@ -84,67 +252,128 @@ public class PixelByPixelImageLocator implements ImageLocator {
         return true;
     }
 
-    private double calcColorDifference(int samplePixelColor, int basePixelColor) {
-        int[] sampleRGB = destructARGB(samplePixelColor);
-        int[] baseRGB = destructARGB(basePixelColor);
-        return cartesianPowerDistance(sampleRGB, baseRGB);
+    /**
+     * @return largest squared color distance of the non-mask pixels of the sample at given position, or any value
+     * greater than {@code bound} as soon as a pixel exceeds it
+     */
+    private int distanceSquared(int baseX, int baseY, IconData sample, int bound) {
+        final int width = base.getWidth();
+        int anchor = basePixels[(baseY + sample.getYs()[0]) * width + baseX + sample.getXs()[0]];
+        int max = ColorUtil.distanceSquared(sample.getColors()[0], anchor);
+        if (max > bound) {
+            return max;
+        }
+        final IconSpans spans = sample.getSpans();
+        final int[] rows = spans.getRows();
+        final int[] starts = spans.getStarts();
+        final int[] lengths = spans.getLengths();
+        final int[] offsets = spans.getOffsets();
+        final int[] colors = spans.getColors();
+        for (int s = 0; s < rows.length; s++) {
+            int basePixel = (baseY + rows[s]) * width + baseX + starts[s];
+            int samplePixel = offsets[s];
+            for (int end = samplePixel + lengths[s]; samplePixel < end; samplePixel++, basePixel++) {
+                int distance = ColorUtil.distanceSquared(colors[samplePixel], basePixels[basePixel]);
+                if (distance > max) {
+                    if (distance > bound) {
+                        return distance;
+                    }
+                    max = distance;
+                }
+            }
+        }
+        return max;
     }
 
-    private double cartesianPowerDistance(int[] a, int[] b) {
-        return (a[0] - b[0]) * (a[0] - b[0]) + (a[1] - b[1]) * (a[1] - b[1]) + (a[2] - b[2]) * (a[2] - b[2]);
+    static IconData checkedData(Icon icon) {
+        IconData sample = icon.getData();
+        if (sample.getOpaqueCount() == 0) {
+            throw new IllegalArgumentException("Sample icon cannot be all magenta!");
+        }
+        return sample;
+    }
+
+    /**
+     * @return constant time rejection of positions, or null when prefiltering is off or would not pay off
+     */
+    private IntegralImage.Filter prefilter(IconData sample, Rectangle area) {
+        if (!prefiltering || area.isEmpty()) {
+            return null;
+        }
+        Rectangle visible = sample.getVisibleRectangle();
+        if (visible.width * visible.height < MIN_PREFILTERED_AREA) {
+            return null;
+        }
+        return integralImage().filter(sample, colorTolerance, MIN_PREFILTERED_AREA);
     }
 
-    private Optional<Point> getSampleOffset(BufferedImage sample) {
-        for (int x = 0; x < sample.getWidth(); x++) {
-            for (int y = 0; y < sample.getHeight(); y++) {
-                int color = sample.getRGB(x, y);
-                if (color != MASK) return Optional.of(new Point(x, y));
+    private IntegralImage integralImage() {
+        IntegralImage result = integralImage;
+        if (result == null) {
+            synchronized (this) {
+                result = integralImage;
+                if (result == null) {
+                    result = IntegralImage.of(basePixels, base.getWidth(), base.getHeight());
+                    this.integralImage = result;
+                }
             }
         }
-        return Optional.empty();
+        return result;
     }
 
-    public PixelByPixelImageLocator withTolerance(int colorTolerance) {
-        this.colorTolerance = colorTolerance;
+    private static boolean matches(int samplePixelColor, int basePixelColor, int maxDistance) {
+        return samplePixelColor == basePixelColor
+                || ColorUtil.distanceSquared(samplePixelColor, basePixelColor) <= maxDistance;
+    }
+
+    int[] getBasePixels() {
+        return basePixels;
+    }
+
+    /**
+     * Enables rejecting positions by comparing the mean color and color deviation of the largest visible rectangle
+     * of the icon with the same rectangle of the base image, before comparing pixels. Finds exactly the same
+     * locations, flat areas of the base image are skipped in constant time per position. The {@link IntegralImage}
+     * of the base image is built on the first search which uses it.
+     */
+    public PixelByPixelImageLocator withPrefilter(boolean prefiltering) {
+        this.prefiltering = prefiltering;
         return this;
     }
 
-    private int[] destructARGB(int argb) {
-        return new int[]{
-                (argb >> 24) & 0xff,
-                (argb >> 16) & 0xff,
-                (argb >> 8) & 0xff,
-                argb & 0xff
-        };
+    /**
+     * Forgets the structures derived from the base image pixels, e.g. after they were overwritten.
+     */
+    public PixelByPixelImageLocator reset() {
+        this.integralImage = null;
+        return this;
     }
 
-    private int constructARGB(int[] argb) {
-        return (argb[0] << 24) | (argb[1] << 16) | (argb[2] << 8) | argb[3];
+    public PixelByPixelImageLocator withTolerance(int colorTolerance) {
+        this.colorTolerance = colorTolerance;
+        return this;
     }
 
-    private void saveResultVisualization(BufferedImage base, Icon icon, List<Point> locations) {
+    void saveResultVisualization(BufferedImage base, Icon icon, List<Point> locations) {
         String fileName = icon.getFilename().substring(0, icon.getFilename().length() - 4) // remove original ".png"
                 // do not create subdirectories if icon is loaded from deeper directory
                 .replaceAll("/", "-") // on linux
                 .replaceAll("\\\\", "-") // on windows
                 + (locations.isEmpty() ? "_NOT_FOUND" : "");
-        this.debug.saveDebugImage(this.provideImageWithFoundAreas(base, icon, locations), fileName);
+        this.debug.saveDebugImage(base, this.provideFoundAreas(icon, locations), fileName);
     }
 
-    private VisualDebug.DebugImageProvider provideImageWithFoundAreas(BufferedImage base, Icon icon, List<Point> locations) {
+    private VisualDebug.DebugOverlayProvider provideFoundAreas(Icon icon, List<Point> locations) {
         return () -> {
             List<Rectangle> rectangles = locations.stream()
                     .map(p -> new Rectangle(p.toAwt(), icon.getDimension()))
                     .toList();
-            BufferedImage copy = ImageUtil.copy(base);
-
-            Graphics2D g = copy.createGraphics();
-            g.setColor(Color.MAGENTA);
-            for (Rectangle p : rectangles) {
-                g.drawRect(p.x, p.y, p.width, p.height);
-            }
-            g.dispose();
-            return copy;
+            return g -> {
+                g.setColor(Color.MAGENTA);
+                for (Rectangle p : rectangles) {
+                    g.drawRect(p.x, p.y, p.width, p.height);
+                }
+            };
         };
     }
 }
@@ -0,0 +1,338 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Coarse-to-fine search finding exactly the same locations as {@link PixelByPixelImageLocator}, in the same order.
+ * <br/><br/>
+ * The base image is reduced into levels of 2x2, 4x4, 8x8... blocks, remembering the per channel minimum and maximum
+ * of every block. A candidate at level {@code k} stands for all positions of a {@code 2^k x 2^k} block, and is
+ * dropped only when the icon cannot match at any of them: the mean color of each fully visible {@code 2^k x 2^k}
+ * block of the icon must be within the color tolerance of the range of base colors it could cover. That condition
+ * is necessary for the exact match, so no location is lost. Surviving candidates are split into four at the finer
+ * level and positions left at the full resolution are verified with the exact comparison.
+ * <br/><br/>
+ * Pays off for big icons on big images. Icons whose visible part is smaller than 4x4 pixels are searched by the
+ * {@link PixelByPixelImageLocator} directly.
+ * The levels are built on the first search - changes of the base image made afterwards require {@link #reset()}.
+ */
+@Slf4j
+public class PyramidImageLocator implements ImageLocator {
+    private static final int DEFAULT_MAX_LEVEL = 4;
+
+    private final PixelByPixelImageLocator exact;
+    private final int maxLevel;
+    private final int width;
+    private final int height;
+
+    private volatile Level[] levels;
+
+    public PyramidImageLocator(@Nonnull PixelByPixelImageLocator exact, int maxLevel) {
+        if (maxLevel < 1) {
+            throw new IllegalArgumentException("Pyramid needs at least one level!");
+        }
+        this.exact = exact;
+        this.maxLevel = maxLevel;
+        this.width = exact.getBase().getWidth();
+        this.height = exact.getBase().getHeight();
+    }
+
+    public PyramidImageLocator(@Nonnull PixelByPixelImageLocator exact) {
+        this(exact, DEFAULT_MAX_LEVEL);
+    }
+
+    public PyramidImageLocator(@Nonnull BufferedImage base) {
+        this(new PixelByPixelImageLocator(base));
+    }
+
+    public PyramidImageLocator withTolerance(int colorTolerance) {
+        exact.withTolerance(colorTolerance);
+        return this;
+    }
+
+    /**
+     * Forgets the levels built from the base image, e.g. when its pixels were overwritten.
+     */
+    public PyramidImageLocator reset() {
+        this.levels = null;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull final Icon icon_) {
+        final IconData sample = icon_.getData();
+        if (sample.getOpaqueCount() == 0) {
+            throw new IllegalArgumentException("Sample icon cannot be all magenta!");
+        }
+        final Rectangle opaque = sample.getOpaqueBounds();
+        final int top = Math.min(maxLevel, 31 - Integer.numberOfLeadingZeros(Math.min(opaque.width, opaque.height) / 2));
+        if (top < 1) {
+            return exact.locate(icon_);
+        }
+
+        long start = System.currentTimeMillis();
+        final int positionsX = width - (opaque.x + opaque.width) + 1;
+        final int positionsY = height - (opaque.y + opaque.height) + 1;
+        final List<Point> locations = new ArrayList<>();
+        if (positionsX > 0 && positionsY > 0) {
+            Level[] pyramid = levels(top);
+            BitSet candidates = new BitSet();
+            candidates.set(0, cells(positionsX, top) * cells(positionsY, top));
+            for (int k = top; k >= 1; k--) {
+                candidates = refine(candidates, pyramid[k], probes(sample, k), positionsX, positionsY, k);
+            }
+            BitSet hits = verify(candidates, sample, positionsY);
+            replay(hits, sample.getWidth(), positionsX, positionsY, locations);
+        }
+
+        long algoTime = System.currentTimeMillis() - start;
+        if (algoTime > 100) {
+            log.warn("Locating icon \"{}\" on {} levels took: {} ms", icon_.getFilename(), top, algoTime);
+        } else {
+            log.debug("Locating icon \"{}\" on {} levels took: {} ms", icon_.getFilename(), top, algoTime);
+        }
+        exact.saveResultVisualization(exact.getBase(), icon_, locations);
+        return locations;
+    }
+
+    /**
+     * Tests candidates of level {@code k} and splits the survivors into the candidates of level {@code k - 1}.
+     * Candidates are indexed column by column.
+     */
+    private BitSet refine(BitSet candidates, Level level, Probe[] probes, int positionsX, int positionsY, int k) {
+        final int rows = cells(positionsY, k);
+        final int finerColumns = cells(positionsX, k - 1);
+        final int finerRows = cells(positionsY, k - 1);
+        final long maxDistance = (long) exact.getColorTolerance() * exact.getColorTolerance();
+        BitSet finer = new BitSet();
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int cx = i / rows;
+            int cy = i % rows;
+            if (!level.mayMatch(cx, cy, probes, maxDistance)) continue;
+
+            for (int fx = 2 * cx; fx <= 2 * cx + 1 && fx < finerColumns; fx++) {
+                for (int fy = 2 * cy; fy <= 2 * cy + 1 && fy < finerRows; fy++) {
+                    finer.set(fx * finerRows + fy);
+                }
+            }
+        }
+        return finer;
+    }
+
+    private BitSet verify(BitSet candidates, IconData sample, int positionsY) {
+        BitSet hits = new BitSet();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (exact.foundSample(i / positionsY, i % positionsY, sample)) {
+                hits.set(i);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Reports the hits in the order of the column by column scan of {@link PixelByPixelImageLocator} - after each
+     * hit the scan jumps right by the icon width, skipping the hits it would not visit.
+     */
+    private void replay(BitSet hits, int iconWidth, int positionsX, int positionsY, List<Point> locations) {
+        int x = 0;
+        int y = 0;
+        while (x < positionsX) {
+            int hit = hits.nextSetBit(x * positionsY + y);
+            if (hit < 0) break;
+            int hitX = hit / positionsY;
+            int hitY = hit % positionsY;
+            locations.add(new Point(hitX, hitY));
+            x = hitX + iconWidth - 1;
+            y = hitY + 1;
+            if (y >= positionsY) {
+                x++;
+                y = 0;
+            }
+        }
+    }
+
+    /**
+     * @return probes of the icon at level {@code k}: its anchor pixel and all fully visible blocks aligned to
+     * the {@code 2^k} grid
+     */
+    private Probe[] probes(IconData sample, int k) {
+        final int size = 1 << k;
+        List<Probe> probes = new ArrayList<>();
+        int anchorX = sample.getXs()[0];
+        int anchorY = sample.getYs()[0];
+        probes.add(Probe.of(anchorX >> k, anchorY >> k, 1, sample.getColors()[0]));
+
+        for (int bx = 0; (bx + 1) * size <= sample.getWidth(); bx++) {
+            blocks:
+            for (int by = 0; (by + 1) * size <= sample.getHeight(); by++) {
+                long r = 0, g = 0, b = 0;
+                for (int x = bx * size; x < (bx + 1) * size; x++) {
+                    for (int y = by * size; y < (by + 1) * size; y++) {
+                        if (sample.isMasked(x, y)) continue blocks;
+                        int color = sample.getRGB(x, y);
+                        r += (color >> 16) & 0xff;
+                        g += (color >> 8) & 0xff;
+                        b += color & 0xff;
+                    }
+                }
+                probes.add(new Probe(bx, by, (long) size * size, r, g, b));
+            }
+        }
+        return probes.toArray(new Probe[0]);
+    }
+
+    private Level[] levels(int top) {
+        Level[] result = levels;
+        if (result == null || result.length <= top) {
+            synchronized (this) {
+                result = levels;
+                if (result == null || result.length <= top) {
+                    long start = System.currentTimeMillis();
+                    result = new Level[maxLevel + 1];
+                    result[1] = Level.of(exact.getBasePixels(), width, height);
+                    for (int k = 2; k <= maxLevel; k++) {
+                        result[k] = Level.of(result[k - 1]);
+                    }
+                    log.debug("Building {} pyramid levels of {}x{} image took: {} ms", maxLevel, width, height,
+                            (System.currentTimeMillis() - start));
+                    this.levels = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return amount of level {@code k} cells covering given amount of positions
+     */
+    private static int cells(int positions, int k) {
+        return ((positions - 1) >> k) + 1;
+    }
+
+    /**
+     * Icon part compared at a pyramid level - sum of channels of {@code n} pixels located in the block
+     * ({@code blockX}, {@code blockY}) of the icon.
+     */
+    private record Probe(int blockX, int blockY, long n, long r, long g, long b) {
+        static Probe of(int blockX, int blockY, long n, int color) {
+            return new Probe(blockX, blockY, n, (color >> 16) & 0xff, (color >> 8) & 0xff, color & 0xff);
+        }
+    }
+
+    /**
+     * Blocks of one pyramid level. Colors are packed as RGB of the per channel minimum and maximum. A window is
+     * the union of 2x2 neighbouring blocks - the area covered by a block of the icon shifted by less than a block.
+     */
+    private static class Level {
+        private final int columns;
+        private final int rows;
+        private final int[] min;
+        private final int[] max;
+        private final int[] windowMin;
+        private final int[] windowMax;
+
+        private Level(int columns, int rows, int[] min, int[] max) {
+            this.columns = columns;
+            this.rows = rows;
+            this.min = min;
+            this.max = max;
+            this.windowMin = new int[min.length];
+            this.windowMax = new int[max.length];
+            combine2x2(columns, rows, min, max, windowMin, windowMax);
+        }
+
+        static Level of(int[] pixels, int width, int height) {
+            return reduce(width, height, pixels, pixels);
+        }
+
+        static Level of(Level finer) {
+            return reduce(finer.columns, finer.rows, finer.min, finer.max);
+        }
+
+        private static Level reduce(int finerColumns, int finerRows, int[] finerMin, int[] finerMax) {
+            int columns = (finerColumns + 1) / 2;
+            int rows = (finerRows + 1) / 2;
+            int[] min = new int[columns * rows];
+            int[] max = new int[columns * rows];
+            for (int y = 0; y < rows; y++) {
+                int row0 = 2 * y * finerColumns;
+                int row1 = Math.min(2 * y + 1, finerRows - 1) * finerColumns;
+                for (int x = 0; x < columns; x++) {
+                    int x0 = 2 * x;
+                    int x1 = Math.min(2 * x + 1, finerColumns - 1);
+                    min[y * columns + x] = minRGB(minRGB(finerMin[row0 + x0], finerMin[row0 + x1]),
+                            minRGB(finerMin[row1 + x0], finerMin[row1 + x1]));
+                    max[y * columns + x] = maxRGB(maxRGB(finerMax[row0 + x0], finerMax[row0 + x1]),
+                            maxRGB(finerMax[row1 + x0], finerMax[row1 + x1]));
+                }
+            }
+            return new Level(columns, rows, min, max);
+        }
+
+        /**
+         * Combines every cell with its right, bottom and bottom right neighbours - clipped at the edges.
+         */
+        private static void combine2x2(int columns, int rows, int[] min, int[] max, int[] targetMin, int[] targetMax) {
+            for (int y = 0; y < rows; y++) {
+                int row0 = y * columns;
+                int row1 = Math.min(y + 1, rows - 1) * columns;
+                for (int x = 0; x < columns; x++) {
+                    int x1 = Math.min(x + 1, columns - 1);
+                    targetMin[row0 + x] = minRGB(minRGB(min[row0 + x], min[row0 + x1]),
+                            minRGB(min[row1 + x], min[row1 + x1]));
+                    targetMax[row0 + x] = maxRGB(maxRGB(max[row0 + x], max[row0 + x1]),
+                            maxRGB(max[row1 + x], max[row1 + x1]));
+                }
+            }
+        }
+
+        /**
+         * @return false when no position of the cell ({@code cx}, {@code cy}) can match - the mean color of some
+         * probe is further than the tolerance from the box of colors its window contains
+         */
+        boolean mayMatch(int cx, int cy, Probe[] probes, long maxDistance) {
+            for (Probe p : probes) {
+                int i = (cy + p.blockY()) * columns + cx + p.blockX();
+                int lo = windowMin[i];
+                int hi = windowMax[i];
+                long n = p.n();
+                long dr = excess(p.r(), (lo >> 16) & 0xff, (hi >> 16) & 0xff, n);
+                long dg = excess(p.g(), (lo >> 8) & 0xff, (hi >> 8) & 0xff, n);
+                long db = excess(p.b(), lo & 0xff, hi & 0xff, n);
+                if (dr * dr + dg * dg + db * db > maxDistance * n * n) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return distance of the channel sum from the range of sums of {@code n} pixels within [min, max]
+         */
+        private static long excess(long sum, int min, int max, long n) {
+            long lo = min * n;
+            long hi = max * n;
+            return sum < lo ? lo - sum : sum > hi ? sum - hi : 0;
+        }
+
+        private static int minRGB(int a, int b) {
+            return Math.min(a & 0xff0000, b & 0xff0000) | Math.min(a & 0xff00, b & 0xff00) | Math.min(a & 0xff, b & 0xff);
+        }
+
+        private static int maxRGB(int a, int b) {
+            return Math.max(a & 0xff0000, b & 0xff0000) | Math.max(a & 0xff00, b & 0xff00) | Math.max(a & 0xff, b & 0xff);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.LocateResult;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.session.SessionRecorder;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * {@link ImageLocator} recording every search of the delegate together with its results and duration.
+ */
+public class RecordingImageLocator implements ImageLocator {
+    private final SessionRecorder recorder;
+    private final ImageLocator delegate;
+
+    public RecordingImageLocator(@Nonnull SessionRecorder recorder, @Nonnull ImageLocator delegate) {
+        this.recorder = recorder;
+        this.delegate = delegate;
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon) {
+        long start = System.nanoTime();
+        List<Point> locations = delegate.locate(icon);
+        recorder.recordLocate(icon, null, locations, System.nanoTime() - start);
+        return locations;
+    }
+
+    @Nonnull
+    @Override
+    public List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+        long start = System.nanoTime();
+        List<Point> locations = delegate.locate(icon, searchArea);
+        recorder.recordLocate(icon, searchArea, locations, System.nanoTime() - start);
+        return locations;
+    }
+
+    @Nonnull
+    @Override
+    public LocateResult locate(@Nonnull Icon icon, @Nonnull SearchLimit limit) {
+        long start = System.nanoTime();
+        LocateResult result = delegate.locate(icon, limit);
+        recorder.recordLocate(icon, null, result.locations, System.nanoTime() - start);
+        return result;
+    }
+}
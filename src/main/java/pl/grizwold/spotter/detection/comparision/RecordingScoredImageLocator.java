@@ -0,0 +1,54 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.session.SessionRecorder;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link RecordingImageLocator} also recording scored searches - locations of the matches are recorded, best first.
+ */
+public class RecordingScoredImageLocator extends RecordingImageLocator implements ScoredImageLocator {
+    private final SessionRecorder recorder;
+    private final ScoredImageLocator delegate;
+
+    public RecordingScoredImageLocator(@Nonnull SessionRecorder recorder, @Nonnull ScoredImageLocator delegate) {
+        super(recorder, delegate);
+        this.recorder = recorder;
+        this.delegate = delegate;
+    }
+
+    @Nonnull
+    @Override
+    public List<Match> locateScored(@Nonnull Icon icon) {
+        long start = System.nanoTime();
+        List<Match> matches = delegate.locateScored(icon);
+        record(icon, matches, System.nanoTime() - start);
+        return matches;
+    }
+
+    @Nonnull
+    @Override
+    public List<Match> locateTop(@Nonnull Icon icon, int k) {
+        long start = System.nanoTime();
+        List<Match> matches = delegate.locateTop(icon, k);
+        record(icon, matches, System.nanoTime() - start);
+        return matches;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Match> locateBest(@Nonnull Icon icon) {
+        long start = System.nanoTime();
+        Optional<Match> match = delegate.locateBest(icon);
+        record(icon, match.stream().toList(), System.nanoTime() - start);
+        return match;
+    }
+
+    private void record(Icon icon, List<Match> matches, long duration) {
+        recorder.recordLocate(icon, null, matches.stream().map(m -> m.location).toList(), duration);
+    }
+}
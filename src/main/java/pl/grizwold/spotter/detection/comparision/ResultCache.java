@@ -0,0 +1,88 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search results, the least recently used result is evicted first. Results are keyed by the content
+ * of the searched pixels, not by the frame they come from - the same screen captured again hits the cache.
+ *
+ * @see CachingImageLocator
+ */
+@Slf4j
+public class ResultCache {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Map<Key, List<Point>> results;
+    private long hits;
+    private long misses;
+
+    public ResultCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Point>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public ResultCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return the cached result, or the result of the search which is cached. The search is run without holding
+     * the cache, so searches of the same key may run in parallel.
+     */
+    @Nonnull
+    public List<Point> get(@Nonnull Key key, @Nonnull Supplier<List<Point>> search) {
+        synchronized (this) {
+            List<Point> cached = results.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        List<Point> result = List.copyOf(search.get());
+        synchronized (this) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized ResultCache clear() {
+        results.clear();
+        return this;
+    }
+
+    /**
+     * @param contentHash hash of the searched pixels
+     * @param x           upper left pixel of the searched region
+     * @param iconHash    {@link pl.grizwold.spotter.model.IconData#getContentHash()} of the icon
+     * @param variant     everything else changing the results, e.g. the locator and the color tolerance
+     */
+    public record Key(long contentHash, int x, int y, int width, int height, long iconHash, String variant) {
+    }
+}
@@ -0,0 +1,37 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Match;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link ImageLocator} telling how well the icon matches at each found location. Of overlapping matches only the
+ * best one is returned, see {@link NonMaximumSuppression}.
+ */
+public interface ScoredImageLocator extends ImageLocator {
+    /**
+     * @return all matches, the best first
+     */
+    @Nonnull
+    List<Match> locateScored(@Nonnull Icon icon);
+
+    /**
+     * @return {@code k} best matches, the best first
+     */
+    @Nonnull
+    default List<Match> locateTop(@Nonnull Icon icon, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("At least one match has to be requested!");
+        }
+        List<Match> matches = locateScored(icon);
+        return matches.size() <= k ? matches : matches.subList(0, k);
+    }
+
+    @Nonnull
+    default Optional<Match> locateBest(@Nonnull Icon icon) {
+        return locateTop(icon, 1).stream().findFirst();
+    }
+}
@@ -0,0 +1,56 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deadline and cancellation of a search, checked cooperatively by the locators - a search which reached its limit
+ * stops at the next column of the image and returns what it found so far.
+ *
+ * @see ImageLocator#locate(pl.grizwold.spotter.model.Icon, SearchLimit)
+ * @see PixelByPixelImageLocator#locate(pl.grizwold.spotter.model.Icon, java.awt.Rectangle, SearchLimit)
+ */
+public class SearchLimit {
+    public static final SearchLimit NONE = new SearchLimit(Long.MAX_VALUE, () -> false);
+
+    /**
+     * {@link System#nanoTime()} after which the search stops, {@link Long#MAX_VALUE} when there is no deadline
+     */
+    private final long deadline;
+    private final BooleanSupplier cancelled;
+
+    private SearchLimit(long deadline, BooleanSupplier cancelled) {
+        this.deadline = deadline;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return limit of searches finishing within given time from now
+     */
+    public static SearchLimit of(@Nonnull Duration timeout) {
+        return new SearchLimit(System.nanoTime() + timeout.toNanos(), () -> false);
+    }
+
+    /**
+     * @param cancelled checked between the columns of the image, e.g. {@code AtomicBoolean::get}
+     */
+    public static SearchLimit cancelledBy(@Nonnull BooleanSupplier cancelled) {
+        return new SearchLimit(Long.MAX_VALUE, cancelled);
+    }
+
+    /**
+     * @return the same limit which is also reached when given condition holds
+     */
+    public SearchLimit orCancelledBy(@Nonnull BooleanSupplier cancelled) {
+        BooleanSupplier previous = this.cancelled;
+        return new SearchLimit(deadline, () -> previous.getAsBoolean() || cancelled.getAsBoolean());
+    }
+
+    /**
+     * @return true when the deadline passed or the search was cancelled
+     */
+    public boolean isReached() {
+        return (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) || cancelled.getAsBoolean();
+    }
+}
@@ -0,0 +1,186 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Picks the fastest locator for every icon, learning from measured latencies. The first search of an icon uses
+ * the locator its statistics suggest - the pyramid for big, mostly visible icons, pixel by pixel otherwise. Every
+ * other locator is then tried once, afterwards the one with the lowest exponentially smoothed latency is used.
+ * Slower locators are measured again from time to time, the slower they were the less often, so changes of the
+ * screen content are noticed.
+ * <br/><br/>
+ * Latencies include building the structures the locator needs for a frame, e.g. the color map, so a locator paying
+ * off only for many icons per frame is judged fairly. Statistics are kept per icon content.
+ */
+@Slf4j
+public class StrategySelector {
+    private static final double SMOOTHING = 0.2;
+    private static final int EXPLORATION_PERIOD = 16;
+    private static final int LARGE_ICON_AREA = 1024;
+    private static final double MOSTLY_VISIBLE = 0.75;
+
+    public enum Strategy {
+        PIXEL_BY_PIXEL,
+        PYRAMID,
+        /**
+         * exact colors only, available when the color tolerance is 0
+         */
+        COLOR_MAP
+    }
+
+    private final Map<Long, Statistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * @param locators  locators of one frame
+     * @param available strategies which may be used for the frame
+     * @return locator choosing one of the frame locators for every searched icon
+     */
+    @Nonnull
+    public ImageLocator locatorOf(@Nonnull Function<Strategy, ImageLocator> locators, @Nonnull Set<Strategy> available) {
+        if (available.isEmpty()) {
+            throw new IllegalArgumentException("At least one strategy has to be available!");
+        }
+        return new SelectingLocator(locators, available);
+    }
+
+    /**
+     * @return the last decision made for every searched icon
+     */
+    @Nonnull
+    public List<Decision> getDecisions() {
+        return statistics.values().stream()
+                .map(Statistics::toDecision)
+                .sorted(Comparator.comparing(Decision::icon))
+                .toList();
+    }
+
+    Strategy choose(Icon icon, Set<Strategy> available) {
+        Statistics stats = statistics.computeIfAbsent(icon.getData().getContentHash(),
+                _ -> new Statistics(icon.getFilename()));
+        synchronized (stats) {
+            stats.searches++;
+            Strategy suggested = suggest(icon.getData(), available);
+            if (!stats.latencies.containsKey(suggested)) {
+                return stats.decide(suggested, "suggested by icon statistics");
+            }
+            for (Strategy strategy : available) {
+                if (!stats.latencies.containsKey(strategy)) {
+                    return stats.decide(strategy, "not measured yet");
+                }
+            }
+            Strategy fastest = available.stream()
+                    .min(Comparator.comparingDouble(stats.latencies::get))
+                    .orElseThrow();
+            for (Strategy strategy : available) {
+                double slowdown = stats.latencies.get(strategy) / Math.max(stats.latencies.get(fastest), 1);
+                long stale = stats.searches - stats.measuredAt.get(strategy);
+                if (strategy != fastest && stale >= EXPLORATION_PERIOD * Math.max(1, slowdown)) {
+                    return stats.decide(strategy, "measuring again");
+                }
+            }
+            return stats.decide(fastest, "fastest");
+        }
+    }
+
+    void record(Icon icon, Strategy strategy, long nanos) {
+        Statistics stats = statistics.get(icon.getData().getContentHash());
+        synchronized (stats) {
+            Double previous = stats.latencies.get(strategy);
+            stats.latencies.put(strategy, previous == null ? nanos : previous + SMOOTHING * (nanos - previous));
+            stats.measuredAt.put(strategy, stats.searches);
+        }
+        log.debug("Locating icon \"{}\" by {} took: {} ms", icon.getFilename(), strategy, nanos / 1_000_000);
+    }
+
+    private static Strategy suggest(IconData icon, Set<Strategy> available) {
+        int area = icon.getWidth() * icon.getHeight();
+        boolean large = area >= LARGE_ICON_AREA && icon.getOpaqueCount() >= MOSTLY_VISIBLE * area;
+        if (large && available.contains(Strategy.PYRAMID)) {
+            return Strategy.PYRAMID;
+        }
+        if (available.contains(Strategy.PIXEL_BY_PIXEL)) {
+            return Strategy.PIXEL_BY_PIXEL;
+        }
+        return available.iterator().next();
+    }
+
+    /**
+     * @param icon      file name of the icon
+     * @param strategy  locator used for the last search
+     * @param reason    why it was used
+     * @param latencies smoothed latency of every measured locator, in milliseconds
+     * @param searches  amount of searches of the icon
+     */
+    public record Decision(String icon, Strategy strategy, String reason, Map<Strategy, Double> latencies,
+                           long searches) {
+    }
+
+    private static class Statistics {
+        private final String icon;
+        private final Map<Strategy, Double> latencies = new EnumMap<>(Strategy.class);
+        private final Map<Strategy, Long> measuredAt = new EnumMap<>(Strategy.class);
+        private long searches;
+        private Strategy strategy;
+        private String reason;
+
+        private Statistics(String icon) {
+            this.icon = icon;
+        }
+
+        private Strategy decide(Strategy strategy, String reason) {
+            this.strategy = strategy;
+            this.reason = reason;
+            return strategy;
+        }
+
+        private synchronized Decision toDecision() {
+            Map<Strategy, Double> millis = new EnumMap<>(Strategy.class);
+            latencies.forEach((s, nanos) -> millis.put(s, nanos / 1_000_000));
+            return new Decision(icon, strategy, reason, millis, searches);
+        }
+    }
+
+    private class SelectingLocator implements ImageLocator {
+        private final Function<Strategy, ImageLocator> locators;
+        private final Set<Strategy> available;
+
+        private SelectingLocator(Function<Strategy, ImageLocator> locators, Set<Strategy> available) {
+            this.locators = locators;
+            this.available = available;
+        }
+
+        @Nonnull
+        @Override
+        public List<Point> locate(@Nonnull Icon icon) {
+            Strategy strategy = choose(icon, available);
+            long start = System.nanoTime();
+            List<Point> locations = locators.apply(strategy).locate(icon);
+            record(icon, strategy, System.nanoTime() - start);
+            return locations;
+        }
+
+        /**
+         * Searches of an area are not measured, their latency depends on the area more than on the locator.
+         */
+        @Nonnull
+        @Override
+        public List<Point> locate(@Nonnull Icon icon, @Nonnull Rectangle searchArea) {
+            Strategy strategy = available.contains(Strategy.PIXEL_BY_PIXEL)
+                    ? Strategy.PIXEL_BY_PIXEL : available.iterator().next();
+            return locators.apply(strategy).locate(icon, searchArea);
+        }
+    }
+}
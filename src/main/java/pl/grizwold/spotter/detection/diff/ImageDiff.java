@@ -1,7 +1,6 @@
 package pl.grizwold.spotter.detection.diff;
 
 import lombok.extern.slf4j.Slf4j;
-import pl.grizwold.spotter.util.ImageUtil;
 import pl.grizwold.spotter.util.VisualDebug;
 import pl.grizwold.spotter.model.Point;
 
@@ -162,16 +161,15 @@ public class ImageDiff {
 
     private void debug_saveRegionVisualization(int[][] diffMatrix, BufferedImage sample) {
         String fileName = "image-diff-regions.png";
-        this.debug.saveDebugImage(() -> this.createImageWithRegions(diffMatrix, sample), fileName);
+        this.debug.saveDebugImage(sample, this.provideRegions(diffMatrix, sample.getWidth(), sample.getHeight()), fileName);
     }
 
     private void debug_saveBoundariesVisualization(List<Rectangle> rectangles, BufferedImage sample) {
         String fileName = "image-diff-boundaries.png";
-        this.debug.saveDebugImage(() -> this.createImageWithBoundaries(sample, rectangles), fileName);
+        this.debug.saveDebugImage(sample, this.provideBoundaries(rectangles), fileName);
     }
 
-    private BufferedImage createImageWithRegions(int[][] diffMatrix, BufferedImage sample) {
-        BufferedImage copy = ImageUtil.copy(sample);
+    private VisualDebug.DebugOverlayProvider provideRegions(int[][] diffMatrix, int width, int height) {
         List<Color> colors = Arrays.asList(
                 Color.MAGENTA,
                 Color.BLUE,
@@ -183,35 +181,28 @@ public class ImageDiff {
                 Color.YELLOW,
                 Color.LIGHT_GRAY
         );
-
-        Graphics2D g = copy.createGraphics();
-        for (int x = 0; x < copy.getWidth(); x++) {
-            for (int y = 0; y < copy.getHeight(); y++) {
-                int region = diffMatrix[y][x] - 2;
-                if (region >= 0) {
-                    int colorIndex = region % (colors.size() - 1);
-                    g.setColor(colors.get(colorIndex));
-                } else {
-                    g.setColor(Color.BLACK);
+        return () -> g -> {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    int region = diffMatrix[y][x] - 2;
+                    if (region >= 0) {
+                        int colorIndex = region % (colors.size() - 1);
+                        g.setColor(colors.get(colorIndex));
+                    } else {
+                        g.setColor(Color.BLACK);
+                    }
+                    g.drawLine(x, y, x, y);
                 }
-                g.drawLine(x, y, x, y);
             }
-        }
-        g.dispose();
-
-        return copy;
+        };
     }
 
-    private BufferedImage createImageWithBoundaries(BufferedImage sample, List<Rectangle> rectangles) {
-        BufferedImage copy = ImageUtil.copy(sample);
-
-        Graphics2D g = copy.createGraphics();
-        g.setColor(Color.MAGENTA);
-        for (Rectangle r : rectangles) {
-            g.drawRect(r.x, r.y, r.width, r.height);
-        }
-        g.dispose();
-
-        return copy;
+    private VisualDebug.DebugOverlayProvider provideBoundaries(List<Rectangle> rectangles) {
+        return () -> g -> {
+            g.setColor(Color.MAGENTA);
+            for (Rectangle r : rectangles) {
+                g.drawRect(r.x, r.y, r.width, r.height);
+            }
+        };
     }
 }
@@ -0,0 +1,118 @@
+package pl.grizwold.spotter.detection.diff;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Cheap frame-to-frame change detection. Both images are split into square tiles and only the information whether
+ * a tile changed is kept - unlike {@link ImageDiff} there is no flood filling, so it is suitable to be run on every
+ * screen refresh.
+ */
+@Slf4j
+public class TileDiff {
+    private static final int DEFAULT_TILE_SIZE = 32;
+
+    private final int tileSize;
+
+    public TileDiff(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive!");
+        }
+        this.tileSize = tileSize;
+    }
+
+    public TileDiff() {
+        this(DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Returns regions which differ between given images. Horizontally adjacent changed tiles are merged into one
+     * rectangle. When images are not the same size the whole current image is considered changed.
+     */
+    @Nonnull
+    public List<Rectangle> getChangedRegions(@Nonnull BufferedImage previous, @Nonnull BufferedImage current) {
+        long start = System.currentTimeMillis();
+        int width = current.getWidth();
+        int height = current.getHeight();
+
+        if (previous.getWidth() != width || previous.getHeight() != height) {
+            return List.of(new Rectangle(0, 0, width, height));
+        }
+
+        int[] previousRow = new int[width];
+        int[] currentRow = new int[width];
+        List<Rectangle> regions = changedRegions(width, height, y -> {
+            previous.getRGB(0, y, width, 1, previousRow, 0, width);
+            current.getRGB(0, y, width, 1, currentRow, 0, width);
+        }, previousRow, currentRow, _ -> 0);
+
+        log.debug("Detecting changed tiles of {}x{} image took: {}ms, {} regions changed", width, height,
+                (System.currentTimeMillis() - start), regions.size());
+        return regions;
+    }
+
+    /**
+     * Same as {@link #getChangedRegions(BufferedImage, BufferedImage)} for pixels of images of the same size,
+     * compared directly without reading them row by row.
+     *
+     * @param previous ARGB pixels, row by row
+     * @param current  ARGB pixels, row by row
+     */
+    @Nonnull
+    public List<Rectangle> getChangedRegions(@Nonnull int[] previous, @Nonnull int[] current, int width, int height) {
+        if (previous.length < width * height || current.length < width * height) {
+            throw new IllegalArgumentException("Pixels do not cover " + width + "x" + height + " image!");
+        }
+        return changedRegions(width, height, _ -> {
+        }, previous, current, y -> y * width);
+    }
+
+    private List<Rectangle> changedRegions(int width, int height, IntConsumer readRow, int[] previous, int[] current,
+                                           IntUnaryOperator rowOffset) {
+        int tilesX = (width + tileSize - 1) / tileSize;
+        boolean[] changedTiles = new boolean[tilesX];
+        List<Rectangle> regions = new ArrayList<>();
+
+        for (int tileY = 0; tileY < height; tileY += tileSize) {
+            int tileHeight = Math.min(tileSize, height - tileY);
+            Arrays.fill(changedTiles, false);
+
+            for (int y = tileY; y < tileY + tileHeight; y++) {
+                readRow.accept(y);
+                int offset = rowOffset.applyAsInt(y);
+                for (int tileX = 0; tileX < tilesX; tileX++) {
+                    if (changedTiles[tileX]) continue;
+                    int from = offset + tileX * tileSize;
+                    int to = offset + Math.min((tileX + 1) * tileSize, width);
+                    changedTiles[tileX] = Arrays.mismatch(previous, from, to, current, from, to) >= 0;
+                }
+            }
+
+            collectRuns(changedTiles, tileY, tileHeight, width, regions);
+        }
+        return regions;
+    }
+
+    private void collectRuns(boolean[] changedTiles, int tileY, int tileHeight, int width, List<Rectangle> regions) {
+        int runStart = -1;
+        for (int tileX = 0; tileX <= changedTiles.length; tileX++) {
+            boolean changed = tileX < changedTiles.length && changedTiles[tileX];
+            if (changed && runStart < 0) {
+                runStart = tileX;
+            } else if (!changed && runStart >= 0) {
+                int x = runStart * tileSize;
+                int runWidth = Math.min(tileX * tileSize, width) - x;
+                regions.add(new Rectangle(x, tileY, runWidth, tileHeight));
+                runStart = -1;
+            }
+        }
+    }
+}
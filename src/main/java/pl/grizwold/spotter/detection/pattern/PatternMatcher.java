@@ -4,6 +4,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import lombok.extern.slf4j.Slf4j;
 import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
 import pl.grizwold.spotter.model.Point;
 
 import java.awt.image.BufferedImage;
@@ -30,14 +31,14 @@ public class PatternMatcher {
             return false;
         }
 
-        BufferedImage subimage = image.getSubimage(x, y, pattern.getImage().getWidth(), pattern.getImage().getHeight());
+        IconData data = pattern.getData();
         BiMap<Integer, Integer> colorMap = HashBiMap.create();
         Set<Integer> ignoredColors = new HashSet<>();
 
-        for (int _x = 0; _x < pattern.getImage().getWidth(); _x++) {
-            for (int _y = 0; _y < pattern.getImage().getHeight(); _y++) {
-                int patternPixel = pattern.getImage().getRGB(_x, _y);
-                int imagePixel = subimage.getRGB(_x, _y);
+        for (int _x = 0; _x < data.getWidth(); _x++) {
+            for (int _y = 0; _y < data.getHeight(); _y++) {
+                int patternPixel = data.getRGB(_x, _y);
+                int imagePixel = image.getRGB(x + _x, y + _y);
 
                 if (patternPixel == MASK) {
                     if (colorMap.containsValue(imagePixel)) {
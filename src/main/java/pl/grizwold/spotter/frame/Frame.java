@@ -0,0 +1,329 @@
+package pl.grizwold.spotter.frame;
+
+import lombok.Getter;
+import pl.grizwold.spotter.detection.Locator;
+import pl.grizwold.spotter.detection.comparision.ColorMapImageLocator;
+import pl.grizwold.spotter.detection.comparision.ColorPresence;
+import pl.grizwold.spotter.detection.comparision.EdgeImageLocator;
+import pl.grizwold.spotter.detection.comparision.ImageComparator;
+import pl.grizwold.spotter.detection.comparision.ImageLocator;
+import pl.grizwold.spotter.detection.comparision.NormalizedImageLocator;
+import pl.grizwold.spotter.detection.comparision.PixelByPixelImageLocator;
+import pl.grizwold.spotter.detection.comparision.PyramidImageLocator;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ColorNormalization;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Captured screen together with the structures derived from it. The pixel buffer, the image backed by it and the
+ * locators are created once and reused - a {@link FramePool} recycles frames between refreshes, only the pixels are
+ * overwritten when the frame is loaded again.
+ * <br/><br/>
+ * Once published by {@link FramePublisher} the frame is immutable - its pixels and color tolerance do not change
+ * until the last holder closes it, so any number of threads can search it in parallel. Frames are reference counted,
+ * each snapshot has to be closed to let the frame be recycled.
+ */
+public class Frame implements AutoCloseable {
+    @Getter
+    private final int width;
+    @Getter
+    private final int height;
+    @Getter
+    private final BufferedImage image;
+    /**
+     * location of the upper left pixel of the frame on the physical screen
+     */
+    @Getter
+    private final Point offset;
+    @Getter
+    private final int colorTolerance;
+    @Getter
+    private final PixelByPixelImageLocator imageLocator;
+    private final int[] pixels;
+    private final ImageComparator imageComparator;
+    private final Locator locator;
+    private final FramePool pool;
+    private final AtomicInteger references = new AtomicInteger();
+
+    private volatile CustomLocator customLocator;
+    private volatile PyramidImageLocator pyramidLocator;
+    private volatile NormalizedImageLocator normalizedLocator;
+    private volatile EdgeImageLocator edgeLocator;
+    private volatile ColorMapImageLocator colorMapLocator;
+    private volatile ColorPresence colorPresence;
+    private volatile boolean hashed;
+    private long contentHash;
+
+    Frame(int width, int height, Point offset, int colorTolerance, FramePool pool) {
+        this.width = width;
+        this.height = height;
+        this.offset = offset;
+        this.colorTolerance = colorTolerance;
+        this.pool = pool;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.imageLocator = new PixelByPixelImageLocator(image).withTolerance(colorTolerance);
+        this.imageComparator = new ImageComparator(colorTolerance);
+        this.locator = new Locator(image, imageComparator, imageLocator, offset);
+    }
+
+    /**
+     * Overwrites the pixels of this frame with the captured image of the same size. Only the owner of a frame which
+     * was not published yet may load it.
+     */
+    public Frame load(@Nonnull BufferedImage capture) {
+        if (capture.getWidth() != width || capture.getHeight() != height) {
+            throw new IllegalArgumentException("Capture of size " + capture.getWidth() + "x" + capture.getHeight() +
+                    " does not fit the frame of size " + width + "x" + height);
+        }
+        ImageUtil.readPixels(capture, pixels);
+        pixelsChanged();
+        return this;
+    }
+
+    /**
+     * Overwrites the pixels of this frame with pixels of the other frame of the same size.
+     *
+     * @see #load(BufferedImage)
+     */
+    public Frame load(@Nonnull Frame other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("Frames are not the same size!");
+        }
+        System.arraycopy(other.pixels, 0, pixels, 0, pixels.length);
+        pixelsChanged();
+        return this;
+    }
+
+    /**
+     * @return ARGB pixels of the frame, row by row. The array is owned by the frame and must not be modified.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return hash of all pixels of the frame, computed on the first call
+     * @see ImageUtil#contentHash(int[], int, Rectangle)
+     */
+    public long getContentHash() {
+        if (!hashed) {
+            synchronized (this) {
+                if (!hashed) {
+                    contentHash = ImageUtil.contentHash(pixels, width, new Rectangle(0, 0, width, height));
+                    hashed = true;
+                }
+            }
+        }
+        return contentHash;
+    }
+
+    /**
+     * @return locator searching this frame with its own {@link PixelByPixelImageLocator}
+     */
+    public Locator getLocator() {
+        return locator;
+    }
+
+    /**
+     * @return locator searching this frame with given image locator. The last one is kept for reuse.
+     */
+    public Locator getLocator(@Nonnull ImageLocator imageLocator) {
+        if (imageLocator == this.imageLocator) {
+            return locator;
+        }
+        CustomLocator custom = this.customLocator;
+        if (custom == null || custom.imageLocator != imageLocator) {
+            custom = new CustomLocator(imageLocator, new Locator(image, imageComparator, imageLocator, offset));
+            this.customLocator = custom;
+        }
+        return custom.locator;
+    }
+
+    /**
+     * @return coarse-to-fine locator of this frame, its levels are built on the first search
+     */
+    public PyramidImageLocator getPyramidLocator() {
+        PyramidImageLocator result = pyramidLocator;
+        if (result == null) {
+            synchronized (this) {
+                result = pyramidLocator;
+                if (result == null) {
+                    result = new PyramidImageLocator(imageLocator);
+                    this.pyramidLocator = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return locator of this frame comparing colors converted by given normalization. The locator of the last used
+     * normalization is kept for reuse, the frame is converted on the first search.
+     */
+    public NormalizedImageLocator getNormalizedLocator(@Nonnull ColorNormalization normalization) {
+        NormalizedImageLocator result = normalizedLocator;
+        if (result == null || result.getNormalization() != normalization) {
+            synchronized (this) {
+                result = normalizedLocator;
+                if (result == null || result.getNormalization() != normalization) {
+                    result = new NormalizedImageLocator(image, normalization).withTolerance(colorTolerance);
+                    this.normalizedLocator = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return locator matching edges of icons with edges of this frame, the edges are detected on the first search
+     */
+    public EdgeImageLocator getEdgeLocator() {
+        EdgeImageLocator result = edgeLocator;
+        if (result == null) {
+            synchronized (this) {
+                result = edgeLocator;
+                if (result == null) {
+                    result = new EdgeImageLocator(image);
+                    this.edgeLocator = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return locator of exact colors of this frame, its color map is built on the first call
+     */
+    public ColorMapImageLocator getColorMapLocator() {
+        ColorMapImageLocator result = colorMapLocator;
+        if (result == null) {
+            synchronized (this) {
+                result = colorMapLocator;
+                if (result == null) {
+                    result = new ColorMapImageLocator(image);
+                    this.colorMapLocator = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return colors present in this frame, collected on the first call
+     */
+    public ColorPresence getColorPresence() {
+        ColorPresence result = colorPresence;
+        if (result == null) {
+            synchronized (this) {
+                result = colorPresence;
+                if (result == null) {
+                    result = new ColorPresence(pixels);
+                    this.colorPresence = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see Locator#locate(Icon)
+     */
+    public Optional<Point> locate(@Nonnull Icon icon) {
+        return retainedLocator().locate(icon);
+    }
+
+    /**
+     * @see Locator#locateAll(Icon)
+     */
+    public List<Point> locateAll(@Nonnull Icon icon) {
+        return retainedLocator().locateAll(icon);
+    }
+
+    /**
+     * @see Locator#isVisible(Icon)
+     */
+    public boolean isVisible(@Nonnull Icon icon) {
+        return retainedLocator().isVisible(icon);
+    }
+
+    /**
+     * Releases this reference to the frame. The frame is recycled when the last reference is released.
+     */
+    @Override
+    public void close() {
+        int left = references.decrementAndGet();
+        if (left == 0) {
+            pool.recycle(this);
+        } else if (left < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Frame was already released!");
+        }
+    }
+
+    /**
+     * Takes the first reference to a frame fresh from the pool.
+     */
+    void own() {
+        if (!references.compareAndSet(0, 1)) {
+            throw new IllegalStateException("Frame is still in use!");
+        }
+    }
+
+    /**
+     * Takes another reference unless the frame was already released by all of its holders.
+     */
+    boolean tryRetain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    boolean fits(int width, int height, Point offset, int colorTolerance) {
+        return this.width == width && this.height == height && this.offset.equals(offset)
+                && this.colorTolerance == colorTolerance;
+    }
+
+    private void pixelsChanged() {
+        hashed = false;
+        colorMapLocator = null;
+        colorPresence = null;
+        imageLocator.reset();
+        PyramidImageLocator pyramid = pyramidLocator;
+        if (pyramid != null) {
+            pyramid.reset();
+        }
+        NormalizedImageLocator normalized = normalizedLocator;
+        if (normalized != null) {
+            normalized.reset();
+        }
+        EdgeImageLocator edges = edgeLocator;
+        if (edges != null) {
+            edges.reset();
+        }
+    }
+
+    private Locator retainedLocator() {
+        if (references.get() <= 0) {
+            throw new IllegalStateException("Frame was already released!");
+        }
+        return locator;
+    }
+
+    private record CustomLocator(ImageLocator imageLocator, Locator locator) {
+    }
+}
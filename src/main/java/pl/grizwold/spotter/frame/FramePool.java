@@ -0,0 +1,52 @@
+package pl.grizwold.spotter.frame;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Recycles {@link Frame}s of a working area, so refreshing the screen does not allocate pixel buffers and locators
+ * over and over again. Frames of a different size, offset or color tolerance are dropped instead of being reused.
+ */
+@Slf4j
+public class FramePool {
+    private static final int MAX_FREE_FRAMES = 4;
+
+    private final Deque<Frame> free = new ArrayDeque<>();
+
+    /**
+     * @return recycled frame, or a new one when none of the free frames fits. The caller owns the only reference to
+     * it and should close it when it is not needed anymore.
+     */
+    @Nonnull
+    public Frame acquire(@Nonnull Rectangle area, int colorTolerance) {
+        Point offset = new Point(area.getLocation());
+        Frame frame = pollFitting(area, offset, colorTolerance);
+        if (frame == null) {
+            log.debug("Allocating new frame of size {}x{}", area.width, area.height);
+            frame = new Frame(area.width, area.height, offset, colorTolerance, this);
+        }
+        frame.own();
+        return frame;
+    }
+
+    synchronized void recycle(@Nonnull Frame frame) {
+        if (free.size() < MAX_FREE_FRAMES) {
+            free.addFirst(frame);
+        }
+    }
+
+    private synchronized Frame pollFitting(Rectangle area, Point offset, int colorTolerance) {
+        Frame frame;
+        while ((frame = free.pollFirst()) != null) {
+            if (frame.fits(area.width, area.height, offset, colorTolerance)) {
+                return frame;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package pl.grizwold.spotter.frame;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free holder of the latest {@link Frame}. One thread publishes new captures, any number of threads take
+ * snapshots of the latest one and search them in parallel. A snapshot stays consistent even when newer frames are
+ * published meanwhile - the frame is recycled only after all snapshots of it are closed.
+ */
+public class FramePublisher {
+    private final AtomicReference<Frame> latest = new AtomicReference<>();
+
+    /**
+     * Publishes the frame, handing the caller's reference over to the publisher. The reference to the previously
+     * published frame is released.
+     */
+    public void publish(@Nonnull Frame frame) {
+        Frame previous = latest.getAndSet(frame);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * @return new reference to the latest frame, which has to be closed by the caller
+     * @throws IllegalStateException when nothing was published yet
+     */
+    @Nonnull
+    public Frame snapshot() {
+        while (true) {
+            Frame frame = latest.get();
+            if (frame == null) {
+                throw new IllegalStateException("No frame was published yet!");
+            }
+            if (frame.tryRetain()) {
+                if (latest.get() == frame) {
+                    return frame;
+                }
+                // the frame got recycled and reused before it was retained
+                frame.close();
+            }
+        }
+    }
+
+    /**
+     * @return the latest frame without taking a reference - it is safe to use only by the publishing thread
+     */
+    @Nullable
+    public Frame peek() {
+        return latest.get();
+    }
+}
@@ -0,0 +1,124 @@
+package pl.grizwold.spotter.input;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.screen.ScreenSource;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executes {@link InputSequence}s one after another on a dedicated thread, so the caller can continue with the
+ * recognition of the next target while the input is still being delivered. Pauses are measured from the start of
+ * the sequence - the thread parks until shortly before each event is due and spins for the rest, so the timing does
+ * not drift with the scheduler latency.
+ */
+@Slf4j
+public class InputQueue implements AutoCloseable {
+    private static final long SPIN_THRESHOLD_NANOS = 1_000_000;
+
+    private final ScreenSource screen;
+    private final BlockingQueue<QueuedSequence> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public InputQueue(ScreenSource screen) {
+        this.screen = screen;
+        this.worker = Thread.ofPlatform()
+                .name("spotter-input-queue")
+                .daemon()
+                .start(this::run);
+    }
+
+    /**
+     * @return future completed once the last event of the sequence is delivered, or exceptionally when delivering
+     * fails or the queue is closed before the sequence is executed
+     */
+    @Nonnull
+    public CompletableFuture<Void> enqueue(@Nonnull InputSequence sequence) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("Input queue is closed"));
+            return future;
+        }
+        QueuedSequence queued = new QueuedSequence(sequence, future);
+        queue.add(queued);
+        // closed meanwhile - the worker may have drained the queue already, nobody would complete the future
+        if (closed && queue.remove(queued)) {
+            future.completeExceptionally(new IllegalStateException("Input queue is closed"));
+        }
+        return future;
+    }
+
+    /**
+     * @return amount of sequences waiting for execution, not counting the one being executed
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the worker thread. Sequences which were not executed yet are completed exceptionally.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                QueuedSequence next = queue.take();
+                if (next.future.isDone()) continue;
+                try {
+                    execute(next.sequence);
+                    next.future.complete(null);
+                } catch (InterruptedException e) {
+                    next.future.completeExceptionally(new IllegalStateException("Input queue is closed"));
+                    throw e;
+                } catch (RuntimeException e) {
+                    log.error("Delivering input failed", e);
+                    next.future.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            log.debug("Input queue stopped");
+        } finally {
+            QueuedSequence left;
+            while ((left = queue.poll()) != null) {
+                left.future.completeExceptionally(new IllegalStateException("Input queue is closed"));
+            }
+        }
+    }
+
+    private void execute(InputSequence sequence) throws InterruptedException {
+        long due = System.nanoTime();
+        for (InputSequence.Step step : sequence.getSteps()) {
+            if (step.pauseNanos() > 0) {
+                due += step.pauseNanos();
+                waitUntil(due);
+            } else {
+                step.execute(screen);
+            }
+        }
+    }
+
+    private void waitUntil(long due) throws InterruptedException {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        while (due - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private record QueuedSequence(InputSequence sequence, CompletableFuture<Void> future) {
+    }
+}
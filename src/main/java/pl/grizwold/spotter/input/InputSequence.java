@@ -0,0 +1,201 @@
+package pl.grizwold.spotter.input;
+
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.screen.ScreenSource;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable sequence of input events with pauses between them, executed by the {@link InputQueue}. Points are
+ * physical screen coordinates.
+ * <pre>{@code
+ * InputSequence drag = InputSequence.builder()
+ *         .move(from).pause(50)
+ *         .mousePress(InputEvent.BUTTON1_DOWN_MASK).pause(50)
+ *         .move(to).pause(50)
+ *         .mouseRelease(InputEvent.BUTTON1_DOWN_MASK)
+ *         .build();
+ * }</pre>
+ */
+public class InputSequence {
+    private final List<Step> steps;
+
+    public InputSequence() {
+        this(List.of());
+    }
+
+    private InputSequence(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static InputSequence click(Point point, int buttons, long delay) {
+        return clickSteps(builder(), point, buttons, delay)
+                .build();
+    }
+
+    public static InputSequence doubleClick(Point point, int buttons, long delay) {
+        Builder builder = clickSteps(builder(), point, buttons, delay)
+                .pause(delay);
+        return clickSteps(builder, point, buttons, delay)
+                .build();
+    }
+
+    public static InputSequence drag(Point from, Point to, long delay) {
+        return builder()
+                .move(from).pause(delay)
+                .mousePress(InputEvent.BUTTON1_DOWN_MASK).pause(delay)
+                .move(to).pause(delay)
+                .mouseRelease(InputEvent.BUTTON1_DOWN_MASK)
+                .build();
+    }
+
+    /**
+     * @param key use {@link KeyEvent} constants
+     */
+    public static InputSequence press(int key, long holdTime) {
+        return builder()
+                .keyPress(key).pause(holdTime)
+                .keyRelease(key)
+                .build();
+    }
+
+    public InputSequence then(InputSequence next) {
+        return builder()
+                .then(this)
+                .then(next)
+                .build();
+    }
+
+    /**
+     * @return total time of all pauses in milliseconds
+     */
+    public long getDuration() {
+        return steps.stream().mapToLong(Step::pauseNanos).sum() / 1_000_000;
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    private static Builder clickSteps(Builder builder, Point point, int buttons, long delay) {
+        return builder
+                .move(point).pause(delay)
+                .mousePress(buttons).pause(delay)
+                .mouseRelease(buttons);
+    }
+
+    public static class Builder {
+        private final List<Step> steps = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder move(Point point) {
+            steps.add(new Move(point.x, point.y));
+            return this;
+        }
+
+        /**
+         * @param buttons use {@link InputEvent} button masks
+         */
+        public Builder mousePress(int buttons) {
+            steps.add(new MousePress(buttons));
+            return this;
+        }
+
+        /**
+         * @param buttons use {@link InputEvent} button masks
+         */
+        public Builder mouseRelease(int buttons) {
+            steps.add(new MouseRelease(buttons));
+            return this;
+        }
+
+        /**
+         * @param key use {@link KeyEvent} constants
+         */
+        public Builder keyPress(int key) {
+            steps.add(new KeyPress(key));
+            return this;
+        }
+
+        /**
+         * @param key use {@link KeyEvent} constants
+         */
+        public Builder keyRelease(int key) {
+            steps.add(new KeyRelease(key));
+            return this;
+        }
+
+        /**
+         * @param delay in milliseconds
+         */
+        public Builder pause(long delay) {
+            steps.add(new Pause(delay * 1_000_000));
+            return this;
+        }
+
+        public Builder then(InputSequence next) {
+            steps.addAll(next.steps);
+            return this;
+        }
+
+        public InputSequence build() {
+            return new InputSequence(List.copyOf(steps));
+        }
+    }
+
+    sealed interface Step {
+        default long pauseNanos() {
+            return 0;
+        }
+
+        default void execute(ScreenSource screen) {
+        }
+    }
+
+    record Move(int x, int y) implements Step {
+        @Override
+        public void execute(ScreenSource screen) {
+            screen.mouseMove(x, y);
+        }
+    }
+
+    record MousePress(int buttons) implements Step {
+        @Override
+        public void execute(ScreenSource screen) {
+            screen.mousePress(buttons);
+        }
+    }
+
+    record MouseRelease(int buttons) implements Step {
+        @Override
+        public void execute(ScreenSource screen) {
+            screen.mouseRelease(buttons);
+        }
+    }
+
+    record KeyPress(int keyCode) implements Step {
+        @Override
+        public void execute(ScreenSource screen) {
+            screen.keyPress(keyCode);
+        }
+    }
+
+    record KeyRelease(int keyCode) implements Step {
+        @Override
+        public void execute(ScreenSource screen) {
+            screen.keyRelease(keyCode);
+        }
+    }
+
+    record Pause(long pauseNanos) implements Step {
+    }
+}
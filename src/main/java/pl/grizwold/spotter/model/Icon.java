@@ -6,9 +6,12 @@ import lombok.extern.slf4j.Slf4j;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.sun.jna.Platform.isWindows;
 
@@ -17,6 +20,8 @@ public class Icon {
     private Path path;
     @Getter
     private BufferedImage image;
+    private volatile IconData data;
+    private final Map<Double, Icon> scaledIcons = new ConcurrentHashMap<>();
 
     public Icon(Path path) {
         this.path = path;
@@ -31,6 +36,71 @@ public class Icon {
         this(Paths.get(linuxFix(path)));
     }
 
+    /**
+     * Creates an already preprocessed icon, without reading the file.
+     */
+    Icon(Path path, BufferedImage image, IconData data) {
+        this.path = path;
+        this.image = image;
+        this.data = data;
+    }
+
+    /**
+     * @return preprocessed form of the icon image, computed once on the first call
+     */
+    public IconData getData() {
+        IconData result = data;
+        if (result == null) {
+            synchronized (this) {
+                result = data;
+                if (result == null) {
+                    result = IconData.of(image);
+                    this.data = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resizes the icon with the nearest neighbour method, so no new colors appear and masked pixels stay masked.
+     * Scaled icons are created from the preprocessed data once and cached.
+     *
+     * @param scale e.g. 1.25 for the 125% display scaling
+     * @return the same icon for scale 1
+     */
+    public Icon scaled(double scale) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be positive!");
+        }
+        if (scale == 1) {
+            return this;
+        }
+        return scaledIcons.computeIfAbsent(scale, this::createScaled);
+    }
+
+    private Icon createScaled(double scale) {
+        IconData source = getData();
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) scaledImage.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < height; y++) {
+            int sourceY = Math.min(source.getHeight() - 1, (int) ((y + 0.5) / scale));
+            for (int x = 0; x < width; x++) {
+                int sourceX = Math.min(source.getWidth() - 1, (int) ((x + 0.5) / scale));
+                pixels[y * width + x] = source.getRGB(sourceX, sourceY);
+            }
+        }
+
+        String name = getFilename();
+        int extension = name.lastIndexOf('.');
+        String scaledName = extension < 0
+                ? name + "@" + scale
+                : name.substring(0, extension) + "@" + scale + name.substring(extension);
+        return new Icon(path.resolveSibling(scaledName), scaledImage, new IconData(width, height, pixels));
+    }
+
     public Point getCenter() {
         Rectangle imageBounds = getBounds();
         return new Point(imageBounds.getCenterX(), imageBounds.getCenterY());
@@ -48,7 +118,7 @@ public class Icon {
         return new Dimension(image.getWidth(), image.getHeight());
     }
 
-    private static String linuxFix(String path) {
+    static String linuxFix(String path) {
         if (!isWindows()) {
             path = path.replaceAll("\\\\", "/");
         }
@@ -0,0 +1,248 @@
+package pl.grizwold.spotter.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import pl.grizwold.spotter.util.ColorNormalization;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Preprocessed form of an {@link Icon} image - everything the locators and comparators need, computed once per icon.
+ * Pixels not covered by the {@link #MASK} are listed column by column - the first listed pixel is the anchor of
+ * the icon, checked first by the locators. They are also available as row spans for the full comparison.
+ */
+@Getter
+public class IconData {
+    /**
+     * pure magenta color - RGB(255, 0, 255). Pixels of this color are ignored while comparing images.
+     */
+    public static final int MASK = -65281;
+
+    private final int width;
+    private final int height;
+    /**
+     * ARGB pixels, row by row
+     */
+    private final int[] pixels;
+    /**
+     * bit {@code y * width + x} is set when the pixel is masked
+     */
+    private final long[] mask;
+    /**
+     * x coordinates of the non-mask pixels, column by column
+     */
+    private final int[] xs;
+    /**
+     * y coordinates of the non-mask pixels, column by column
+     */
+    private final int[] ys;
+    /**
+     * colors of the non-mask pixels, column by column
+     */
+    private final int[] colors;
+    /**
+     * non-mask pixels as horizontal runs, row by row
+     */
+    private final IconSpans spans;
+    /**
+     * smallest rectangle containing all non-mask pixels
+     */
+    private final Rectangle opaqueBounds;
+    /**
+     * largest rectangle without any masked pixel
+     */
+    private final Rectangle visibleRectangle;
+    /**
+     * amount of non-mask pixels of each color
+     */
+    private final Map<Integer, Integer> histogram;
+    /**
+     * hash of the size and all pixels
+     */
+    private final long contentHash;
+    /**
+     * hash of the size and the mask only
+     */
+    private final long maskHash;
+    @Getter(AccessLevel.NONE)
+    private final Map<ColorNormalization, IconSpans> normalizedSpans = new EnumMap<>(ColorNormalization.class);
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, IconEdges> edges = new HashMap<>();
+
+    public IconData(int width, int height, @Nonnull int[] pixels) {
+        this(width, height, pixels, Plan.of(width, height, pixels));
+    }
+
+    private IconData(int width, int height, int[] pixels, Plan plan) {
+        this(width, height, pixels, maskOf(pixels), plan.xs(), plan.ys(), plan.colors(), hash(width, height, pixels));
+    }
+
+    /**
+     * Creates the data from already preprocessed parts, e.g. read from an {@link IconPack}. Only the cheap summaries
+     * of the non-mask pixels are computed.
+     */
+    IconData(int width, int height, int[] pixels, long[] mask, int[] xs, int[] ys, int[] colors, long contentHash) {
+        if (pixels.length != width * height || mask.length != (pixels.length + 63) / 64
+                || xs.length != colors.length || ys.length != colors.length) {
+            throw new IllegalArgumentException("Inconsistent icon data of " + width + "x" + height + " icon");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.mask = mask;
+        this.xs = xs;
+        this.ys = ys;
+        this.colors = colors;
+        this.spans = IconSpans.of(width, height, pixels, colors.length);
+
+        Map<Integer, Integer> colorCount = new HashMap<>();
+        int minX = width, minY = height, maxX = -1, maxY = -1;
+        for (int i = 0; i < colors.length; i++) {
+            colorCount.merge(colors[i], 1, Integer::sum);
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        this.opaqueBounds = colors.length == 0 ? new Rectangle() : new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        this.visibleRectangle = largestVisibleRectangle(width, height, pixels);
+        this.histogram = Collections.unmodifiableMap(colorCount);
+        this.contentHash = contentHash;
+        this.maskHash = hash(width, height, mask);
+    }
+
+    public static IconData of(@Nonnull BufferedImage image) {
+        int[] pixels = new int[image.getWidth() * image.getHeight()];
+        ImageUtil.readPixels(image, pixels);
+        return new IconData(image.getWidth(), image.getHeight(), pixels);
+    }
+
+    public boolean isMasked(int x, int y) {
+        int i = y * width + x;
+        return (mask[i >> 6] & (1L << (i & 63))) != 0;
+    }
+
+    /**
+     * @return amount of pixels not covered by the mask
+     */
+    public int getOpaqueCount() {
+        return colors.length;
+    }
+
+    /**
+     * @return {@link #getSpans()} with colors converted by given normalization, converted once per icon
+     */
+    @Nonnull
+    public IconSpans getSpans(@Nonnull ColorNormalization normalization) {
+        synchronized (normalizedSpans) {
+            return normalizedSpans.computeIfAbsent(normalization, spans::normalized);
+        }
+    }
+
+    /**
+     * @return edges of the icon, detected once per icon and threshold
+     * @see IconEdges
+     */
+    @Nonnull
+    public IconEdges getEdges(int threshold) {
+        synchronized (edges) {
+            return edges.computeIfAbsent(threshold, t -> IconEdges.of(this, t));
+        }
+    }
+
+    public int getRGB(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Finds the largest rectangle of non-mask pixels row by row - for each row the heights of visible columns ending
+     * in it form a histogram, its largest rectangle is found with a stack.
+     */
+    private static Rectangle largestVisibleRectangle(int width, int height, int[] pixels) {
+        int[] heights = new int[width + 1];
+        int[] stack = new int[width + 1];
+        Rectangle best = new Rectangle();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                heights[x] = pixels[y * width + x] == MASK ? 0 : heights[x] + 1;
+            }
+            int top = -1;
+            for (int x = 0; x <= width; x++) {
+                while (top >= 0 && heights[stack[top]] >= heights[x]) {
+                    int h = heights[stack[top--]];
+                    int left = top >= 0 ? stack[top] + 1 : 0;
+                    if (h * (x - left) > best.width * best.height) {
+                        best = new Rectangle(left, y - h + 1, x - left, h);
+                    }
+                }
+                stack[++top] = x;
+            }
+        }
+        return best;
+    }
+
+    private static long[] maskOf(int[] pixels) {
+        long[] mask = new long[(pixels.length + 63) / 64];
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] == MASK) {
+                mask[i >> 6] |= 1L << (i & 63);
+            }
+        }
+        return mask;
+    }
+
+    private static long hash(int width, int height, int[] values) {
+        long hash = fnv(fnv(0xcbf29ce484222325L, width), height);
+        for (int value : values) {
+            hash = fnv(hash, value);
+        }
+        return hash;
+    }
+
+    private static long hash(int width, int height, long[] values) {
+        long hash = fnv(fnv(0xcbf29ce484222325L, width), height);
+        for (long value : values) {
+            hash = fnv(fnv(hash, (int) value), (int) (value >>> 32));
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private record Plan(int[] xs, int[] ys, int[] colors) {
+        private static Plan of(int width, int height, int[] pixels) {
+            if (pixels.length != width * height) {
+                throw new IllegalArgumentException("Expected " + width * height + " pixels but got " + pixels.length);
+            }
+            int opaque = 0;
+            for (int pixel : pixels) {
+                if (pixel != MASK) opaque++;
+            }
+
+            int[] xs = new int[opaque];
+            int[] ys = new int[opaque];
+            int[] colors = new int[opaque];
+            int n = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    int color = pixels[y * width + x];
+                    if (color == MASK) continue;
+                    xs[n] = x;
+                    ys[n] = y;
+                    colors[n] = color;
+                    n++;
+                }
+            }
+            return new Plan(xs, ys, colors);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package pl.grizwold.spotter.model;
+
+import lombok.Getter;
+import pl.grizwold.spotter.util.EdgeUtil;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse edge pixels of an icon - pixels whose whole 3x3 neighbourhood is visible and whose luminance gradient is
+ * strong enough, see {@link EdgeUtil}. At most {@link #MAX_EDGES} evenly picked edges are kept. They are listed in
+ * an order spreading consecutive edges all over the icon, so a locator checking them one by one learns early that
+ * a position does not match.
+ */
+@Getter
+public class IconEdges {
+    public static final int MAX_EDGES = 256;
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] orientations;
+
+    private IconEdges(int[] xs, int[] ys, int[] orientations) {
+        this.xs = xs;
+        this.ys = ys;
+        this.orientations = orientations;
+    }
+
+    static IconEdges of(@Nonnull IconData data, int threshold) {
+        int width = data.getWidth();
+        int height = data.getHeight();
+        int[] pixels = data.getPixels();
+        int[] luminance = EdgeUtil.luminance(pixels);
+        List<int[]> edges = new ArrayList<>();
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                if (!neighbourhoodVisible(data, x, y)) continue;
+                int orientation = EdgeUtil.orientation(luminance, width, y * width + x, threshold);
+                if (orientation != EdgeUtil.NO_EDGE) {
+                    edges.add(new int[]{x, y, orientation});
+                }
+            }
+        }
+
+        int count = Math.min(edges.size(), MAX_EDGES);
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int[] orientations = new int[count];
+        int step = spreadingStep(count);
+        for (int i = 0, slot = 0; i < count; i++, slot = (slot + step) % count) {
+            int[] edge = edges.get((int) ((long) slot * edges.size() / count));
+            xs[i] = edge[0];
+            ys[i] = edge[1];
+            orientations[i] = edge[2];
+        }
+        return new IconEdges(xs, ys, orientations);
+    }
+
+    /**
+     * @return amount of edges
+     */
+    public int getCount() {
+        return xs.length;
+    }
+
+    private static boolean neighbourhoodVisible(IconData data, int x, int y) {
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if (data.isMasked(x + dx, y + dy)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return step close to the golden ratio of the count, coprime with it - visiting every slot once
+     */
+    private static int spreadingStep(int count) {
+        if (count < 3) {
+            return 1;
+        }
+        int step = (int) Math.round(count * 0.618);
+        while (gcd(step, count) != 1) {
+            step++;
+        }
+        return step;
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
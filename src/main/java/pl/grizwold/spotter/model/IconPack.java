@@ -0,0 +1,187 @@
+package pl.grizwold.spotter.model;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Many preprocessed icons stored in one file. Loading a pack does not decode any PNG - the file is memory mapped
+ * and the ready {@link IconData} of every icon is copied straight out of it.
+ * <br/><br/>
+ * Packs are built from a directory of PNG files with {@link #compile(Path, Path)}, or from the command line:
+ * <pre>java -cp spotter.jar pl.grizwold.spotter.tool.IconPackCompiler icons/ icons.pack</pre>
+ * Icons are named by their path relative to the compiled directory, with "/" as separator.
+ * <br/><br/>
+ * File layout (big endian): magic "SPTP", version, icon count, then for every icon: name, width, height,
+ * amount of non-mask pixels, content hash, pixels, mask bits and the x, y and color lists of non-mask pixels
+ * column by column - the first of them is the anchor.
+ */
+@Slf4j
+public class IconPack {
+    private static final int MAGIC = 0x53505450; // "SPTP"
+    private static final int VERSION = 1;
+
+    private final Map<String, Icon> icons;
+
+    private IconPack(Map<String, Icon> icons) {
+        this.icons = Collections.unmodifiableMap(icons);
+    }
+
+    /**
+     * Compiles all PNG files found in given directory and its subdirectories into a pack.
+     *
+     * @return amount of icons written
+     */
+    @SneakyThrows
+    public static int compile(@Nonnull Path directory, @Nonnull Path packFile) {
+        long start = System.currentTimeMillis();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                    .sorted()
+                    .toList();
+        }
+
+        Path parent = packFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(packFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.size());
+            for (Path file : files) {
+                String name = directory.relativize(file).toString().replace('\\', '/');
+                Icon icon = new Icon(file);
+                if (icon.getImage() == null) {
+                    throw new IllegalArgumentException("Couldn't load image from file " + file);
+                }
+                write(out, name, icon.getData());
+            }
+        }
+        log.debug("Compiling {} icons into {} took {}ms", files.size(), packFile, System.currentTimeMillis() - start);
+        return files.size();
+    }
+
+    private static void write(DataOutputStream out, String name, IconData data) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(nameBytes.length);
+        out.write(nameBytes);
+        out.writeInt(data.getWidth());
+        out.writeInt(data.getHeight());
+        out.writeInt(data.getOpaqueCount());
+        out.writeLong(data.getContentHash());
+        for (int pixel : data.getPixels()) out.writeInt(pixel);
+        for (long bits : data.getMask()) out.writeLong(bits);
+        for (int x : data.getXs()) out.writeInt(x);
+        for (int y : data.getYs()) out.writeInt(y);
+        for (int color : data.getColors()) out.writeInt(color);
+    }
+
+    @SneakyThrows
+    public static IconPack load(@Nonnull Path packFile) {
+        long start = System.currentTimeMillis();
+        Map<String, Icon> icons = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException(packFile + " is not an icon pack");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported icon pack version " + version + " of " + packFile);
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                String name = readName(buffer);
+                icons.put(name, read(buffer, name));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(packFile + " is not an icon pack", e);
+        }
+        log.debug("Loading {} icons from {} took {}ms", icons.size(), packFile, System.currentTimeMillis() - start);
+        return new IconPack(icons);
+    }
+
+    public static IconPack load(@Nonnull String packFile) {
+        return load(Paths.get(Icon.linuxFix(packFile)));
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        byte[] nameBytes = new byte[buffer.getInt()];
+        buffer.get(nameBytes);
+        return new String(nameBytes, StandardCharsets.UTF_8);
+    }
+
+    private static Icon read(ByteBuffer buffer, String name) {
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int opaque = buffer.getInt();
+        long contentHash = buffer.getLong();
+
+        // pixels are read straight into the icon image, the image and its data share them
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        long[] mask = new long[(pixels.length + 63) / 64];
+        int[] xs = new int[opaque];
+        int[] ys = new int[opaque];
+        int[] colors = new int[opaque];
+
+        readInts(buffer, pixels);
+        buffer.asLongBuffer().get(mask);
+        buffer.position(buffer.position() + mask.length * Long.BYTES);
+        readInts(buffer, xs);
+        readInts(buffer, ys);
+        readInts(buffer, colors);
+
+        IconData data = new IconData(width, height, pixels, mask, xs, ys, colors, contentHash);
+        return new Icon(Paths.get(name), image, data);
+    }
+
+    private static void readInts(ByteBuffer buffer, int[] target) {
+        buffer.asIntBuffer().get(target);
+        buffer.position(buffer.position() + target.length * Integer.BYTES);
+    }
+
+    /**
+     * @param name path of the icon relative to the compiled directory, e.g. "buttons/ok.png"
+     */
+    @Nonnull
+    public Icon get(@Nonnull String name) {
+        Icon icon = icons.get(name.replace('\\', '/'));
+        if (icon == null) {
+            throw new IllegalArgumentException("There is no icon " + name + " in the pack");
+        }
+        return icon;
+    }
+
+    public Set<String> getNames() {
+        return icons.keySet();
+    }
+
+    public int size() {
+        return icons.size();
+    }
+}
@@ -0,0 +1,66 @@
+package pl.grizwold.spotter.model;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads each icon once. Icons are preprocessed right after loading ({@link Icon#getData()}) and the same
+ * {@link Icon} instance is returned for every request of the same file, so no image is decoded or analysed twice.
+ */
+@Slf4j
+public class IconRegistry {
+    private final Map<Path, Icon> icons = new ConcurrentHashMap<>();
+
+    @Nonnull
+    public Icon get(@Nonnull String path) {
+        return get(Paths.get(Icon.linuxFix(path)));
+    }
+
+    @Nonnull
+    public Icon get(@Nonnull Path path) {
+        return icons.computeIfAbsent(path.toAbsolutePath().normalize(), p -> {
+            long start = System.currentTimeMillis();
+            Icon icon = new Icon(path);
+            icon.getData();
+            log.debug("Loading icon {} took {}ms", icon.getFilename(), System.currentTimeMillis() - start);
+            return icon;
+        });
+    }
+
+    /**
+     * Registers already loaded icon under its path, e.g. one loaded from an icon pack.
+     */
+    public IconRegistry register(@Nonnull Path path, @Nonnull Icon icon) {
+        icons.put(path.toAbsolutePath().normalize(), icon);
+        return this;
+    }
+
+    /**
+     * Registers all icons of the pack as if they were loaded from given directory, so {@link #get(String)} of
+     * e.g. "icons/buttons/ok.png" returns the packed "buttons/ok.png" icon when the directory is "icons".
+     */
+    public IconRegistry register(@Nonnull IconPack pack, @Nonnull Path directory) {
+        for (String name : pack.getNames()) {
+            register(directory.resolve(name), pack.get(name));
+        }
+        return this;
+    }
+
+    public Collection<Icon> getIcons() {
+        return icons.values();
+    }
+
+    public int size() {
+        return icons.size();
+    }
+
+    public void clear() {
+        icons.clear();
+    }
+}
@@ -0,0 +1,99 @@
+package pl.grizwold.spotter.model;
+
+import lombok.Getter;
+import pl.grizwold.spotter.util.ColorNormalization;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Non-mask pixels of an icon run-length encoded as horizontal spans. Every span is a run of consecutive non-mask
+ * pixels of one row, so comparison loops visit only the visible pixels and read the compared image sequentially.
+ * Mostly transparent icons cost as much as their visible area.
+ */
+@Getter
+public class IconSpans {
+    /**
+     * row of each span
+     */
+    private final int[] rows;
+    /**
+     * x coordinate of the first pixel of each span
+     */
+    private final int[] starts;
+    /**
+     * amount of pixels of each span
+     */
+    private final int[] lengths;
+    /**
+     * index of the first color of each span in {@link #colors}
+     */
+    private final int[] offsets;
+    /**
+     * colors of all spans, row by row
+     */
+    private final int[] colors;
+
+    private IconSpans(int[] rows, int[] starts, int[] lengths, int[] offsets, int[] colors) {
+        this.rows = rows;
+        this.starts = starts;
+        this.lengths = lengths;
+        this.offsets = offsets;
+        this.colors = colors;
+    }
+
+    static IconSpans of(int width, int height, @Nonnull int[] pixels, int opaqueCount) {
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            boolean inSpan = false;
+            for (int x = 0; x < width; x++) {
+                boolean visible = pixels[y * width + x] != IconData.MASK;
+                if (visible && !inSpan) count++;
+                inSpan = visible;
+            }
+        }
+
+        int[] rows = new int[count];
+        int[] starts = new int[count];
+        int[] lengths = new int[count];
+        int[] offsets = new int[count];
+        int[] colors = new int[opaqueCount];
+        int span = -1;
+        int n = 0;
+        for (int y = 0; y < height; y++) {
+            boolean inSpan = false;
+            for (int x = 0; x < width; x++) {
+                int color = pixels[y * width + x];
+                if (color == IconData.MASK) {
+                    inSpan = false;
+                    continue;
+                }
+                if (!inSpan) {
+                    span++;
+                    rows[span] = y;
+                    starts[span] = x;
+                    offsets[span] = n;
+                    inSpan = true;
+                }
+                lengths[span]++;
+                colors[n++] = color;
+            }
+        }
+        return new IconSpans(rows, starts, lengths, offsets, colors);
+    }
+
+    /**
+     * @return the same spans with converted colors
+     */
+    IconSpans normalized(@Nonnull ColorNormalization normalization) {
+        int[] converted = new int[colors.length];
+        normalization.convert(colors, converted);
+        return new IconSpans(rows, starts, lengths, offsets, converted);
+    }
+
+    /**
+     * @return amount of spans
+     */
+    public int getCount() {
+        return rows.length;
+    }
+}
@@ -0,0 +1,27 @@
+package pl.grizwold.spotter.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Locations found by a search which may have been stopped before scanning the whole image.
+ */
+@ToString
+@EqualsAndHashCode
+public class LocateResult {
+    /**
+     * upper left pixels of the found icons - every one of them is a real match, even when the search was truncated
+     */
+    public final List<Point> locations;
+    /**
+     * true when the search stopped at its deadline or was cancelled, so some locations may be missing
+     */
+    public final boolean truncated;
+
+    public LocateResult(List<Point> locations, boolean truncated) {
+        this.locations = locations;
+        this.truncated = truncated;
+    }
+}
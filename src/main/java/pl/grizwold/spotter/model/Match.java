@@ -0,0 +1,23 @@
+package pl.grizwold.spotter.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Location of an icon together with the distance between the icon and the image at that location. The lower
+ * the distance the better the match - 0 is a perfect one. The scale of the distance depends on the locator.
+ */
+@ToString
+@EqualsAndHashCode
+public class Match {
+    /**
+     * upper left pixel of the icon
+     */
+    public final Point location;
+    public final double distance;
+
+    public Match(Point location, double distance) {
+        this.location = location;
+        this.distance = distance;
+    }
+}
@@ -0,0 +1,25 @@
+package pl.grizwold.spotter.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Locations of two icons found in the layout required by a relative query.
+ */
+@ToString
+@EqualsAndHashCode
+public class RelativeMatch {
+    /**
+     * upper left pixel of the icon searched first
+     */
+    public final Point anchor;
+    /**
+     * upper left pixel of the icon searched relatively to the anchor
+     */
+    public final Point target;
+
+    public RelativeMatch(Point anchor, Point target) {
+        this.anchor = anchor;
+        this.target = target;
+    }
+}
@@ -0,0 +1,39 @@
+package pl.grizwold.spotter.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Location of an icon found at some display scaling.
+ */
+@ToString
+@EqualsAndHashCode
+public class ScaledMatch {
+    /**
+     * upper left pixel of the scaled icon
+     */
+    public final Point location;
+    /**
+     * scale at which the icon was found, e.g. 1.25 for the 125% display scaling
+     */
+    public final double scale;
+    /**
+     * the icon resized to the scale
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    public final Icon icon;
+
+    public ScaledMatch(Point location, double scale, Icon icon) {
+        this.location = location;
+        this.scale = scale;
+        this.icon = icon;
+    }
+
+    /**
+     * @return center pixel of the scaled icon
+     */
+    public Point getCenter() {
+        return location.translate(icon.getCenter());
+    }
+}
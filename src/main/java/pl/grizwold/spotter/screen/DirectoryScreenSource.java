@@ -0,0 +1,65 @@
+package pl.grizwold.spotter.screen;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Serves PNG files from given directory in the order of their file names - each capture advances to the next file.
+ * Files are decoded lazily, one at a time. The last file is served repeatedly unless the source is looped.
+ */
+@Slf4j
+public class DirectoryScreenSource extends FrameScreenSource {
+    private final List<Path> files;
+    private boolean looped;
+    private int next;
+    private int currentIndex = -1;
+    private BufferedImage current;
+
+    @SneakyThrows
+    public DirectoryScreenSource(Path directory) {
+        try (Stream<Path> list = Files.list(directory)) {
+            this.files = list
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                    .sorted()
+                    .toList();
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No PNG files found in " + directory);
+        }
+        log.debug("Serving {} frames from {}", files.size(), directory);
+    }
+
+    public DirectoryScreenSource looped() {
+        this.looped = true;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    protected synchronized BufferedImage nextFrame() {
+        BufferedImage frame = currentFrame();
+        next++;
+        if (next >= files.size()) {
+            next = looped ? 0 : files.size() - 1;
+        }
+        return frame;
+    }
+
+    @Nonnull
+    @Override
+    protected synchronized BufferedImage currentFrame() {
+        if (currentIndex != next) {
+            this.current = ImageUtil.read(files.get(next).toString());
+            this.currentIndex = next;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,82 @@
+package pl.grizwold.spotter.screen;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Base of headless {@link ScreenSource}s serving prepared frames instead of the real screen. Each frame is treated as
+ * the whole screen with its upper left pixel at 0:0. Input is not delivered anywhere - only the mouse location is
+ * tracked, so the {@link pl.grizwold.spotter.Spotter} scripts can be run without a display.
+ */
+@Slf4j
+public abstract class FrameScreenSource implements ScreenSource {
+    private Point mouseLocation = new Point();
+
+    /**
+     * @return frame which should be served by the next {@link #capture(Rectangle)}
+     */
+    @Nonnull
+    protected abstract BufferedImage nextFrame();
+
+    /**
+     * @return frame which would be served now, without advancing to the next one
+     */
+    @Nonnull
+    protected abstract BufferedImage currentFrame();
+
+    @Nonnull
+    @Override
+    public Rectangle getBounds() {
+        BufferedImage frame = currentFrame();
+        return new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+    }
+
+    @Nonnull
+    @Override
+    public BufferedImage capture(@Nonnull Rectangle area) {
+        BufferedImage frame = nextFrame();
+        Rectangle frameBounds = new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+        if (area.equals(frameBounds)) {
+            return frame;
+        }
+        if (!frameBounds.contains(area)) {
+            throw new IllegalArgumentException("Captured area " + area + " exceeds the frame bounds " + frameBounds);
+        }
+        return frame.getSubimage(area.x, area.y, area.width, area.height);
+    }
+
+    @Override
+    public void mouseMove(int x, int y) {
+        log.trace("Mouse moved to {}:{}", x, y);
+        this.mouseLocation = new Point(x, y);
+    }
+
+    @Override
+    public void mousePress(int buttons) {
+        log.trace("Mouse buttons {} pressed", buttons);
+    }
+
+    @Override
+    public void mouseRelease(int buttons) {
+        log.trace("Mouse buttons {} released", buttons);
+    }
+
+    @Override
+    public void keyPress(int key) {
+        log.trace("Key {} pressed", key);
+    }
+
+    @Override
+    public void keyRelease(int key) {
+        log.trace("Key {} released", key);
+    }
+
+    @Nonnull
+    @Override
+    public Point getMouseLocation() {
+        return new Point(mouseLocation);
+    }
+}
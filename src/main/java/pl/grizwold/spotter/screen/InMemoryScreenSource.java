@@ -0,0 +1,53 @@
+package pl.grizwold.spotter.screen;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Serves given frames one by one - each capture advances to the next frame. The last frame is served repeatedly
+ * unless the source is looped.
+ */
+public class InMemoryScreenSource extends FrameScreenSource {
+    private final List<BufferedImage> frames;
+    private boolean looped;
+    private int next;
+
+    public InMemoryScreenSource(List<BufferedImage> frames) {
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("At least one frame is required!");
+        }
+        this.frames = List.copyOf(frames);
+    }
+
+    public InMemoryScreenSource(BufferedImage... frames) {
+        this(List.of(frames));
+    }
+
+    public InMemoryScreenSource looped() {
+        this.looped = true;
+        return this;
+    }
+
+    public InMemoryScreenSource rewind() {
+        this.next = 0;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    protected synchronized BufferedImage nextFrame() {
+        BufferedImage frame = currentFrame();
+        next++;
+        if (next >= frames.size()) {
+            next = looped ? 0 : frames.size() - 1;
+        }
+        return frame;
+    }
+
+    @Nonnull
+    @Override
+    protected synchronized BufferedImage currentFrame() {
+        return frames.get(next);
+    }
+}
@@ -0,0 +1,81 @@
+package pl.grizwold.spotter.screen;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Replays a recorded session in its original pace. The session is a directory of PNG frames named after the
+ * millisecond at which they were captured, counted from the beginning of the session - e.g. {@code 000000.png},
+ * {@code 000350.png}. The session clock starts with the first capture, and each capture serves the latest frame
+ * recorded before the current moment of the session.
+ */
+@Slf4j
+public class RecordedSessionScreenSource extends FrameScreenSource {
+    private final NavigableMap<Long, Path> frames = new TreeMap<>();
+    private long sessionStart = -1;
+    private long currentTimestamp = -1;
+    private BufferedImage current;
+
+    @SneakyThrows
+    public RecordedSessionScreenSource(Path directory) {
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(p -> p.getFileName().toString().matches("\\d+\\.png"))
+                    .forEach(p -> {
+                        String name = p.getFileName().toString();
+                        frames.put(Long.parseLong(name.substring(0, name.length() - 4)), p);
+                    });
+        }
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("No recorded frames found in " + directory);
+        }
+        log.debug("Replaying {} frames recorded in {}ms from {}", frames.size(), frames.lastKey(), directory);
+    }
+
+    /**
+     * @return true when the last recorded frame is already being served
+     */
+    public synchronized boolean isFinished() {
+        return sessionStart >= 0 && elapsed() >= frames.lastKey();
+    }
+
+    @Nonnull
+    @Override
+    protected synchronized BufferedImage nextFrame() {
+        if (sessionStart < 0) {
+            this.sessionStart = System.currentTimeMillis();
+        }
+        return frameAt(elapsed());
+    }
+
+    @Nonnull
+    @Override
+    protected synchronized BufferedImage currentFrame() {
+        return frameAt(sessionStart < 0 ? 0 : elapsed());
+    }
+
+    private long elapsed() {
+        return System.currentTimeMillis() - sessionStart;
+    }
+
+    private BufferedImage frameAt(long timestamp) {
+        Map.Entry<Long, Path> frame = frames.floorEntry(timestamp);
+        if (frame == null) {
+            frame = frames.firstEntry();
+        }
+        if (frame.getKey() != currentTimestamp) {
+            this.current = ImageUtil.read(frame.getValue().toString());
+            this.currentTimestamp = frame.getKey();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,71 @@
+package pl.grizwold.spotter.screen;
+
+import pl.grizwold.spotter.session.InputAction;
+import pl.grizwold.spotter.session.SessionRecorder;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * {@link ScreenSource} recording every captured frame and every input sent to the wrapped source.
+ */
+public class RecordingScreenSource implements ScreenSource {
+    private final ScreenSource delegate;
+    private final SessionRecorder recorder;
+
+    public RecordingScreenSource(@Nonnull ScreenSource delegate, @Nonnull SessionRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Nonnull
+    @Override
+    public Rectangle getBounds() {
+        return delegate.getBounds();
+    }
+
+    @Nonnull
+    @Override
+    public BufferedImage capture(@Nonnull Rectangle area) {
+        BufferedImage frame = delegate.capture(area);
+        recorder.recordFrame(frame);
+        return frame;
+    }
+
+    @Override
+    public void mouseMove(int x, int y) {
+        delegate.mouseMove(x, y);
+        recorder.recordInput(InputAction.MOUSE_MOVE, 0, x, y);
+    }
+
+    @Override
+    public void mousePress(int buttons) {
+        delegate.mousePress(buttons);
+        recorder.recordInput(InputAction.MOUSE_PRESS, buttons, 0, 0);
+    }
+
+    @Override
+    public void mouseRelease(int buttons) {
+        delegate.mouseRelease(buttons);
+        recorder.recordInput(InputAction.MOUSE_RELEASE, buttons, 0, 0);
+    }
+
+    @Override
+    public void keyPress(int key) {
+        delegate.keyPress(key);
+        recorder.recordInput(InputAction.KEY_PRESS, key, 0, 0);
+    }
+
+    @Override
+    public void keyRelease(int key) {
+        delegate.keyRelease(key);
+        recorder.recordInput(InputAction.KEY_RELEASE, key, 0, 0);
+    }
+
+    @Nonnull
+    @Override
+    public Point getMouseLocation() {
+        return delegate.getMouseLocation();
+    }
+}
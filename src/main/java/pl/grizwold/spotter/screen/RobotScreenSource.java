@@ -0,0 +1,68 @@
+package pl.grizwold.spotter.screen;
+
+import lombok.SneakyThrows;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Default {@link ScreenSource} - real screen of given {@link GraphicsDevice} operated by {@link Robot}.
+ */
+public class RobotScreenSource implements ScreenSource {
+    private final GraphicsDevice graphicsDevice;
+    private final Robot robot;
+
+    public RobotScreenSource() {
+        this(GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice());
+    }
+
+    @SneakyThrows
+    public RobotScreenSource(GraphicsDevice graphicsDevice) {
+        this.graphicsDevice = graphicsDevice;
+        this.robot = new Robot(graphicsDevice);
+    }
+
+    @Nonnull
+    @Override
+    public Rectangle getBounds() {
+        return graphicsDevice.getDefaultConfiguration().getBounds();
+    }
+
+    @Nonnull
+    @Override
+    public BufferedImage capture(@Nonnull Rectangle area) {
+        return robot.createScreenCapture(area);
+    }
+
+    @Override
+    public void mouseMove(int x, int y) {
+        robot.mouseMove(x, y);
+    }
+
+    @Override
+    public void mousePress(int buttons) {
+        robot.mousePress(buttons);
+    }
+
+    @Override
+    public void mouseRelease(int buttons) {
+        robot.mouseRelease(buttons);
+    }
+
+    @Override
+    public void keyPress(int key) {
+        robot.keyPress(key);
+    }
+
+    @Override
+    public void keyRelease(int key) {
+        robot.keyRelease(key);
+    }
+
+    @Nonnull
+    @Override
+    public Point getMouseLocation() {
+        return MouseInfo.getPointerInfo().getLocation();
+    }
+}
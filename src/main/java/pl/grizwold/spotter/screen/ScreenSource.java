@@ -0,0 +1,52 @@
+package pl.grizwold.spotter.screen;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * Source of screen captures and the sink of mouse and keyboard input used by {@link pl.grizwold.spotter.Spotter}.
+ * Coordinates are the physical screen coordinates - the same which {@link Robot} uses.
+ *
+ * @see RobotScreenSource
+ * @see InMemoryScreenSource
+ * @see DirectoryScreenSource
+ * @see RecordedSessionScreenSource
+ */
+public interface ScreenSource {
+    /**
+     * @return area of the physical screen which can be captured
+     */
+    @Nonnull
+    Rectangle getBounds();
+
+    @Nonnull
+    BufferedImage capture(@Nonnull Rectangle area);
+
+    void mouseMove(int x, int y);
+
+    /**
+     * @param buttons use {@link InputEvent} button masks
+     */
+    void mousePress(int buttons);
+
+    /**
+     * @param buttons use {@link InputEvent} button masks
+     */
+    void mouseRelease(int buttons);
+
+    /**
+     * @param key use {@link KeyEvent} constants
+     */
+    void keyPress(int key);
+
+    /**
+     * @param key use {@link KeyEvent} constants
+     */
+    void keyRelease(int key);
+
+    @Nonnull
+    Point getMouseLocation();
+}
@@ -0,0 +1,12 @@
+package pl.grizwold.spotter.session;
+
+/**
+ * Input sent to the {@link pl.grizwold.spotter.screen.ScreenSource}, as recorded by {@link SessionRecorder}.
+ */
+public enum InputAction {
+    MOUSE_MOVE,
+    MOUSE_PRESS,
+    MOUSE_RELEASE,
+    KEY_PRESS,
+    KEY_RELEASE
+}
@@ -0,0 +1,38 @@
+package pl.grizwold.spotter.session;
+
+import pl.grizwold.spotter.model.Point;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Entry of a recorded session read by {@link SessionReader}. Timestamps are microseconds counted from the start of
+ * the session.
+ */
+public sealed interface SessionEvent {
+    long timestamp();
+
+    /**
+     * @param keyframe false when the frame was recorded as the tiles changed since the previous one
+     */
+    record Frame(long timestamp, BufferedImage image, boolean keyframe) implements SessionEvent {
+    }
+
+    /**
+     * @param searchArea area of possible upper left pixel locations, null when the whole frame was searched
+     * @param duration   microseconds spent searching
+     */
+    record Locate(long timestamp, String icon, Rectangle searchArea, List<Point> locations, long duration)
+            implements SessionEvent {
+    }
+
+    /**
+     * @param code button mask or key code of presses and releases, see {@link java.awt.event.InputEvent} and
+     *             {@link java.awt.event.KeyEvent}
+     * @param x    screen coordinate of mouse moves
+     * @param y    screen coordinate of mouse moves
+     */
+    record Input(long timestamp, InputAction action, int code, int x, int y) implements SessionEvent {
+    }
+}
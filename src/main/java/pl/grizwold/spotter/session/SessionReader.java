@@ -0,0 +1,165 @@
+package pl.grizwold.spotter.session;
+
+import lombok.SneakyThrows;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a session written by {@link SessionRecorder} entry by entry, in the order they were recorded. Delta frames are
+ * applied on the previous frame, so each {@link SessionEvent.Frame} carries the whole screen. A record cut short at the
+ * end of the file, e.g. when the recording process was killed, ends the session. A frame which cannot be decompressed
+ * fails with {@link IOException}.
+ */
+public class SessionReader implements AutoCloseable {
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private byte[] raw = new byte[0];
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    @SneakyThrows
+    public SessionReader(@Nonnull Path file) {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        if (in.readInt() != SessionRecorder.MAGIC) {
+            in.close();
+            throw new IllegalArgumentException("Not a recorded session: " + file);
+        }
+        int version = in.readInt();
+        if (version != SessionRecorder.VERSION) {
+            in.close();
+            throw new IllegalArgumentException("Unsupported session version " + version + " of " + file);
+        }
+    }
+
+    /**
+     * @return next recorded entry, empty at the end of the session
+     */
+    @Nonnull
+    @SneakyThrows
+    public Optional<SessionEvent> next() {
+        byte[] header = in.readNBytes(SessionRecorder.RECORD_HEADER_SIZE);
+        if (header.length < SessionRecorder.RECORD_HEADER_SIZE) {
+            return Optional.empty();
+        }
+        ByteBuffer recordHeader = ByteBuffer.wrap(header);
+        byte type = recordHeader.get();
+        long timestamp = recordHeader.getLong();
+        int length = recordHeader.getInt();
+        byte[] payload = in.readNBytes(length);
+        if (payload.length < length) {
+            return Optional.empty();
+        }
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+        return Optional.of(switch (type) {
+            case SessionRecorder.KEYFRAME, SessionRecorder.DELTA -> readFrame(type, timestamp, record, payload);
+            case SessionRecorder.LOCATE -> readLocate(timestamp, record);
+            case SessionRecorder.INPUT -> new SessionEvent.Input(timestamp, InputAction.values()[record.readByte()],
+                    record.readInt(), record.readInt(), record.readInt());
+            default -> throw new IllegalStateException("Unknown record type " + type + " at " + timestamp + "us");
+        });
+    }
+
+    /**
+     * @return all the remaining entries. Each frame is kept as a separate image - long sessions should rather be read
+     * by {@link #next()}
+     */
+    @Nonnull
+    public List<SessionEvent> readAll() {
+        List<SessionEvent> events = new ArrayList<>();
+        for (Optional<SessionEvent> event = next(); event.isPresent(); event = next()) {
+            events.add(event.get());
+        }
+        return events;
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+        in.close();
+        inflater.end();
+    }
+
+    private SessionEvent readFrame(byte type, long timestamp, DataInputStream record, byte[] payload)
+            throws IOException, DataFormatException {
+        int frameWidth = record.readInt();
+        int frameHeight = record.readInt();
+        boolean keyframe = type == SessionRecorder.KEYFRAME;
+        List<Rectangle> regions;
+        if (keyframe) {
+            this.width = frameWidth;
+            this.height = frameHeight;
+            this.pixels = new int[frameWidth * frameHeight];
+            regions = List.of(new Rectangle(0, 0, frameWidth, frameHeight));
+        } else {
+            if (pixels == null || frameWidth != width || frameHeight != height) {
+                throw new IllegalStateException("Delta frame at " + timestamp + "us does not follow a keyframe");
+            }
+            int count = record.readInt();
+            regions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                regions.add(new Rectangle(record.readInt(), record.readInt(), record.readInt(), record.readInt()));
+            }
+        }
+
+        int length = regions.stream()
+                .mapToInt(r -> r.width * r.height * 4)
+                .sum();
+        if (raw.length < length) {
+            this.raw = new byte[length];
+        }
+        int offset = payload.length - record.available();
+        inflater.reset();
+        inflater.setInput(payload, offset, payload.length - offset);
+        int inflated = 0;
+        while (inflated < length) {
+            if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                throw new IOException("Frame at " + timestamp + "us is truncated or corrupted");
+            }
+            inflated += inflater.inflate(raw, inflated, length - inflated);
+        }
+
+        IntBuffer source = ByteBuffer.wrap(raw, 0, length).asIntBuffer();
+        for (Rectangle r : regions) {
+            for (int y = r.y; y < r.y + r.height; y++) {
+                source.get(pixels, y * width + r.x, r.width);
+            }
+        }
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] target = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, target, 0, pixels.length);
+        return new SessionEvent.Frame(timestamp, image, keyframe);
+    }
+
+    private SessionEvent readLocate(long timestamp, DataInputStream record) throws IOException {
+        String icon = record.readUTF();
+        Rectangle searchArea = record.readBoolean()
+                ? new Rectangle(record.readInt(), record.readInt(), record.readInt(), record.readInt())
+                : null;
+        long duration = record.readLong();
+        int count = record.readInt();
+        List<Point> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            locations.add(new Point(record.readInt(), record.readInt()));
+        }
+        return new SessionEvent.Locate(timestamp, icon, searchArea, List.copyOf(locations), duration);
+    }
+}
@@ -0,0 +1,361 @@
+package pl.grizwold.spotter.session;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.detection.diff.TileDiff;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Records what a bot saw and did into a single append-only file - captured frames, locate calls with their results and
+ * the input sent to the screen, each with the microsecond of the session it happened at. Frames are stored as
+ * a keyframe followed by the tiles changed since the previous frame, found by {@link TileDiff}, and compressed.
+ * <br/><br/>
+ * Recording threads only copy the captured pixels into a reused buffer - diffing, compressing and writing is done by
+ * a background thread. When it cannot keep up, frames are dropped rather than slowing the bot down; the following
+ * frame is then diffed against the last written one, so the recording stays consistent. Read it with
+ * {@link SessionReader}.
+ */
+@Slf4j
+public class SessionRecorder implements AutoCloseable {
+    static final int MAGIC = 0x53505452;
+    static final int VERSION = 1;
+    static final int RECORD_HEADER_SIZE = 1 + 8 + 4;
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    static final byte LOCATE = 3;
+    static final byte INPUT = 4;
+
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 300;
+    private static final int DEFAULT_MAX_PENDING_FRAMES = 2;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final double MAX_DELTA_AREA_RATIO = 0.5;
+    private static final Entry END = new Entry((byte) 0, 0, null, null);
+
+    private final FileChannel channel;
+    private final TileDiff tileDiff;
+    private final int keyframeInterval;
+    private final int maxPendingFrames;
+    private final long start = System.nanoTime();
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Deque<BufferedImage> buffers = new ArrayDeque<>();
+    private final Semaphore pendingFrames;
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Payload payload = new Payload();
+    private final ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    private byte[] raw = new byte[0];
+    private BufferedImage previous;
+    private int framesSinceKeyframe;
+
+    /**
+     * @param file file to create, an existing file is never overwritten
+     */
+    public SessionRecorder(@Nonnull Path file) {
+        this(file, new TileDiff(), DEFAULT_KEYFRAME_INTERVAL, DEFAULT_MAX_PENDING_FRAMES);
+    }
+
+    /**
+     * @param keyframeInterval amount of frames after which the whole frame is recorded again, limiting how many deltas
+     *                         have to be applied to seek to any frame
+     * @param maxPendingFrames amount of frames copied but not written yet, more frames are dropped
+     */
+    @SneakyThrows
+    public SessionRecorder(@Nonnull Path file, @Nonnull TileDiff tileDiff, int keyframeInterval, int maxPendingFrames) {
+        if (keyframeInterval < 1 || maxPendingFrames < 1) {
+            throw new IllegalArgumentException("Keyframe interval and pending frames must be positive!");
+        }
+        this.tileDiff = tileDiff;
+        this.keyframeInterval = keyframeInterval;
+        this.maxPendingFrames = maxPendingFrames;
+        this.pendingFrames = new Semaphore(maxPendingFrames + 1);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        this.writer = Thread.ofPlatform()
+                .name("spotter-session-recorder")
+                .daemon()
+                .start(this::run);
+        log.debug("Recording session to {}", file.toAbsolutePath());
+    }
+
+    /**
+     * Copies the pixels of the captured frame, the image may change right after the call.
+     */
+    public void recordFrame(@Nonnull BufferedImage frame) {
+        long timestamp = timestamp();
+        if (closed || !pendingFrames.tryAcquire()) {
+            droppedFrames.incrementAndGet();
+            return;
+        }
+        BufferedImage copy = buffer(frame.getWidth(), frame.getHeight());
+        ImageUtil.readPixels(frame, pixelsOf(copy));
+        if (!queue.offer(new Entry(KEYFRAME, timestamp, copy, null))) {
+            release(copy);
+            droppedFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param searchArea area of possible upper left pixel locations, null when the whole frame was searched
+     * @param duration   nanoseconds spent searching
+     */
+    @SneakyThrows
+    public void recordLocate(@Nonnull Icon icon, @Nullable Rectangle searchArea, @Nonnull List<Point> locations,
+                             long duration) {
+        long timestamp = timestamp();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 8 * locations.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(icon.getFilename());
+        out.writeBoolean(searchArea != null);
+        if (searchArea != null) {
+            writeRectangle(out, searchArea);
+        }
+        out.writeLong(TimeUnit.NANOSECONDS.toMicros(duration));
+        out.writeInt(locations.size());
+        for (Point p : locations) {
+            out.writeInt(p.x);
+            out.writeInt(p.y);
+        }
+        offer(new Entry(LOCATE, timestamp, null, bytes.toByteArray()));
+    }
+
+    /**
+     * @param code button mask or key code of presses and releases
+     * @param x    screen coordinate of mouse moves
+     * @param y    screen coordinate of mouse moves
+     */
+    public void recordInput(@Nonnull InputAction action, int code, int x, int y) {
+        byte[] bytes = ByteBuffer.allocate(1 + 3 * 4)
+                .put((byte) action.ordinal())
+                .putInt(code)
+                .putInt(x)
+                .putInt(y)
+                .array();
+        offer(new Entry(INPUT, timestamp(), null, bytes));
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * @return size of the recording written so far
+     */
+    public long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+    /**
+     * Writes everything recorded so far and closes the file.
+     */
+    @Override
+    @SneakyThrows
+    public void close() {
+        if (closed) return;
+        this.closed = true;
+        queue.put(END);
+        writer.join();
+        channel.close();
+        deflater.end();
+        log.debug("Session recorded: {} bytes, {} frames and {} events dropped", writtenBytes.get(),
+                droppedFrames.get(), droppedEvents.get());
+    }
+
+    private long timestamp() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
+    private void offer(Entry entry) {
+        if (closed || !queue.offer(entry)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (entry == END) return;
+            try {
+                if (entry.frame() != null) {
+                    writeFrame(entry);
+                } else {
+                    write(entry.type(), entry.timestamp(), ByteBuffer.wrap(entry.payload()));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not record session entry", e);
+            }
+        }
+    }
+
+    /**
+     * The frame becomes the base of the next delta only when it was written - otherwise it is released and the next
+     * delta is made against the last written frame again.
+     */
+    private void writeFrame(Entry entry) throws IOException {
+        BufferedImage frame = entry.frame();
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        boolean written = false;
+        try {
+            List<Rectangle> changed = List.of();
+            boolean keyframe = previous == null || previous.getWidth() != width || previous.getHeight() != height
+                    || framesSinceKeyframe >= keyframeInterval;
+            if (!keyframe) {
+                changed = tileDiff.getChangedRegions(pixelsOf(previous), pixelsOf(frame), width, height);
+                double changedArea = changed.stream()
+                        .mapToDouble(r -> (double) r.width * r.height)
+                        .sum();
+                keyframe = changedArea > MAX_DELTA_AREA_RATIO * width * height;
+            }
+
+            payload.reset();
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeInt(width);
+            out.writeInt(height);
+            int[] pixels = pixelsOf(frame);
+            int length;
+            if (keyframe) {
+                length = toBytes(pixels, List.of(new Rectangle(0, 0, width, height)), width);
+            } else {
+                out.writeInt(changed.size());
+                for (Rectangle r : changed) {
+                    writeRectangle(out, r);
+                }
+                length = toBytes(pixels, changed, width);
+            }
+            deflater.reset();
+            DeflaterOutputStream deflated = new DeflaterOutputStream(payload, deflater, 64 * 1024);
+            deflated.write(raw, 0, length);
+            deflated.finish();
+
+            write(keyframe ? KEYFRAME : DELTA, entry.timestamp(), payload.buffer());
+            this.framesSinceKeyframe = keyframe ? 0 : framesSinceKeyframe + 1;
+            written = true;
+        } finally {
+            if (written) {
+                BufferedImage replaced = previous;
+                this.previous = frame;
+                if (replaced != null) {
+                    release(replaced);
+                }
+            } else {
+                release(frame);
+            }
+        }
+    }
+
+    /**
+     * @return amount of bytes of given regions copied into {@link #raw}
+     */
+    private int toBytes(int[] pixels, List<Rectangle> regions, int width) {
+        int length = regions.stream()
+                .mapToInt(r -> r.width * r.height * 4)
+                .sum();
+        if (raw.length < length) {
+            this.raw = new byte[length];
+        }
+        IntBuffer target = ByteBuffer.wrap(raw).asIntBuffer();
+        for (Rectangle r : regions) {
+            for (int y = r.y; y < r.y + r.height; y++) {
+                target.put(pixels, y * width + r.x, r.width);
+            }
+        }
+        return length;
+    }
+
+    private void write(byte type, long timestamp, ByteBuffer body) throws IOException {
+        recordHeader.clear()
+                .put(type)
+                .putLong(timestamp)
+                .putInt(body.remaining())
+                .flip();
+        ByteBuffer[] record = {recordHeader, body};
+        long size = recordHeader.remaining() + body.remaining();
+        while (recordHeader.hasRemaining() || body.hasRemaining()) {
+            channel.write(record);
+        }
+        writtenBytes.addAndGet(size);
+    }
+
+    private static void writeRectangle(DataOutputStream out, Rectangle r) throws IOException {
+        out.writeInt(r.x);
+        out.writeInt(r.y);
+        out.writeInt(r.width);
+        out.writeInt(r.height);
+    }
+
+    private BufferedImage buffer(int width, int height) {
+        synchronized (buffers) {
+            BufferedImage buffer = buffers.poll();
+            if (buffer != null && buffer.getWidth() == width && buffer.getHeight() == height) {
+                return buffer;
+            }
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void release(BufferedImage buffer) {
+        synchronized (buffers) {
+            if (buffers.size() <= maxPendingFrames) {
+                buffers.push(buffer);
+            }
+        }
+        pendingFrames.release();
+    }
+
+    private static int[] pixelsOf(BufferedImage buffer) {
+        return ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+    }
+
+    private record Entry(byte type, long timestamp, BufferedImage frame, byte[] payload) {
+    }
+
+    private static class Payload extends ByteArrayOutputStream {
+        private ByteBuffer buffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
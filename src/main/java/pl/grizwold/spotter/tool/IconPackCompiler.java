@@ -0,0 +1,25 @@
+package pl.grizwold.spotter.tool;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.IconPack;
+
+import java.nio.file.Paths;
+
+/**
+ * Command line tool compiling a directory of PNG files into an icon pack.
+ * <br/>
+ * Usage: {@code IconPackCompiler <icons directory> <pack file>}
+ *
+ * @see IconPack#compile(java.nio.file.Path, java.nio.file.Path)
+ */
+@Slf4j
+public class IconPackCompiler {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: IconPackCompiler <icons directory> <pack file>");
+        }
+        int count = IconPack.compile(Paths.get(args[0]), Paths.get(args[1]));
+        log.info("Compiled {} icons into {}", count, args[1]);
+    }
+}
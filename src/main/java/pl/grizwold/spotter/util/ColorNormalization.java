@@ -0,0 +1,98 @@
+package pl.grizwold.spotter.util;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Conversions of colors making tinted or themed versions of an icon comparable. Every conversion maps an ARGB color
+ * to an RGB int, so converted colors are still compared by {@link ColorUtil#distanceSquared(int, int)} and the color
+ * tolerance applies to the converted values - for {@link #isGray() gray} conversions it is a difference of gray levels.
+ * Only integer arithmetic is used, whole frames are converted at once.
+ */
+public enum ColorNormalization {
+    /**
+     * perceived brightness {@code (77 R + 150 G + 29 B) / 256} as a gray color - tolerates tints which keep the
+     * brightness of the pixels
+     */
+    LUMINANCE,
+    /**
+     * the brightest channel of the color (value of HSV) as a gray color - hue rotations do not change it at all
+     */
+    VALUE,
+    /**
+     * the color divided by its brightness, {@code 255 R / (R + G + B)} and so on - shading and brightness changes
+     * do not change it, dark pixels are noisy
+     */
+    CHROMATICITY;
+
+    /**
+     * {@code (255 << 16) / sum} for every sum of the channels
+     */
+    private static final int[] RECIPROCALS = new int[3 * 255 + 1];
+
+    static {
+        for (int sum = 1; sum < RECIPROCALS.length; sum++) {
+            RECIPROCALS[sum] = (255 << 16) / sum;
+        }
+    }
+
+    /**
+     * @return true when the conversion results in gray colors - their {@link ColorUtil#distanceSquared(int, int)} is
+     * three times the squared difference of their gray levels
+     */
+    public boolean isGray() {
+        return this != CHROMATICITY;
+    }
+
+    public int convert(int argb) {
+        return switch (this) {
+            case LUMINANCE -> luminance(argb);
+            case VALUE -> value(argb);
+            case CHROMATICITY -> chromaticity(argb);
+        };
+    }
+
+    /**
+     * Converts all the colors, {@code target} may be the same array as {@code argb}.
+     */
+    public void convert(@Nonnull int[] argb, @Nonnull int[] target) {
+        if (target.length < argb.length) {
+            throw new IllegalArgumentException("Target array is too small!");
+        }
+        switch (this) {
+            case LUMINANCE -> {
+                for (int i = 0; i < argb.length; i++) target[i] = luminance(argb[i]);
+            }
+            case VALUE -> {
+                for (int i = 0; i < argb.length; i++) target[i] = value(argb[i]);
+            }
+            case CHROMATICITY -> {
+                for (int i = 0; i < argb.length; i++) target[i] = chromaticity(argb[i]);
+            }
+        }
+    }
+
+    private static int luminance(int argb) {
+        int y = (77 * ((argb >> 16) & 0xff) + 150 * ((argb >> 8) & 0xff) + 29 * (argb & 0xff)) >> 8;
+        return gray(y);
+    }
+
+    private static int value(int argb) {
+        return gray(Math.max((argb >> 16) & 0xff, Math.max((argb >> 8) & 0xff, argb & 0xff)));
+    }
+
+    private static int chromaticity(int argb) {
+        int r = (argb >> 16) & 0xff;
+        int g = (argb >> 8) & 0xff;
+        int b = argb & 0xff;
+        int sum = r + g + b;
+        if (sum == 0) {
+            return gray(85);
+        }
+        int reciprocal = RECIPROCALS[sum];
+        return ((r * reciprocal) >> 16) << 16 | ((g * reciprocal) >> 16) << 8 | (b * reciprocal) >> 16;
+    }
+
+    private static int gray(int level) {
+        return level << 16 | level << 8 | level;
+    }
+}
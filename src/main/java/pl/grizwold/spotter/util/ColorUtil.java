@@ -0,0 +1,16 @@
+package pl.grizwold.spotter.util;
+
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class ColorUtil {
+    /**
+     * @return squared cartesian distance between colors in the RGB space, alpha is not taken into account
+     */
+    public static int distanceSquared(int argb1, int argb2) {
+        int r = ((argb1 >> 16) & 0xff) - ((argb2 >> 16) & 0xff);
+        int g = ((argb1 >> 8) & 0xff) - ((argb2 >> 8) & 0xff);
+        int b = (argb1 & 0xff) - (argb2 & 0xff);
+        return r * r + g * g + b * b;
+    }
+}
@@ -0,0 +1,166 @@
+package pl.grizwold.spotter.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Writes debug images on a background thread, so searching threads only pay for copying the pixels. Images are
+ * dropped instead of waiting when the queue is full or the limits of images per second and per session are reached -
+ * before anything is copied. Copies are made into buffers reused between images of the same size.
+ */
+@Slf4j
+class DebugImageWriter {
+    private final BlockingQueue<Job> queue;
+    private final int maxPerSecond;
+    private final long maxImages;
+    private final Deque<BufferedImage> buffers = new ArrayDeque<>();
+    private final int maxBuffers;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private long secondStart = System.nanoTime();
+    private int inSecond;
+    private long admitted;
+
+    DebugImageWriter(int queueCapacity, int maxPerSecond, long maxImages) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBuffers = queueCapacity + 1;
+        this.maxPerSecond = maxPerSecond;
+        this.maxImages = maxImages;
+        Thread thread = new Thread(this::run, "spotter-visual-debug");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Counts the image against the limits.
+     *
+     * @return false when the image has to be dropped
+     */
+    synchronized boolean admit() {
+        long now = System.nanoTime();
+        if (now - secondStart >= TimeUnit.SECONDS.toNanos(1)) {
+            secondStart = now;
+            inSecond = 0;
+        }
+        if (admitted >= maxImages || inSecond >= maxPerSecond || queue.remainingCapacity() == 0) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        inSecond++;
+        admitted++;
+        return true;
+    }
+
+    /**
+     * Copies the pixels of the image right away, the overlay is drawn on the copy by the writer thread.
+     */
+    void writeCopy(@Nonnull BufferedImage image, @Nonnull Consumer<Graphics2D> overlay, @Nonnull String path) {
+        BufferedImage copy = buffer(image.getWidth(), image.getHeight());
+        ImageUtil.readPixels(image, ((DataBufferInt) copy.getRaster().getDataBuffer()).getData());
+        enqueue(new Job(copy, overlay, path, true));
+    }
+
+    /**
+     * @param image image owned by the writer from now on
+     */
+    void write(@Nonnull BufferedImage image, @Nonnull String path) {
+        enqueue(new Job(image, null, path, false));
+    }
+
+    /**
+     * Waits until all the queued images are written.
+     *
+     * @return false when the timeout passed first
+     */
+    boolean flush(@Nonnull Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void enqueue(Job job) {
+        pending.incrementAndGet();
+        if (!queue.offer(job)) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+            release(job);
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                long start = System.currentTimeMillis();
+                if (job.overlay() != null) {
+                    Graphics2D g = job.image().createGraphics();
+                    job.overlay().accept(g);
+                    g.dispose();
+                }
+                ImageUtil.save(job.image(), job.path());
+                written.incrementAndGet();
+                log.debug("Saving debug image to \"{}\" took {}ms", job.path(), (System.currentTimeMillis() - start));
+            } catch (RuntimeException e) {
+                log.warn("Could not save debug image to \"{}\"", job.path(), e);
+            } finally {
+                release(job);
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private BufferedImage buffer(int width, int height) {
+        synchronized (buffers) {
+            BufferedImage buffer = buffers.poll();
+            if (buffer != null && buffer.getWidth() == width && buffer.getHeight() == height) {
+                return buffer;
+            }
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void release(Job job) {
+        if (!job.pooled()) return;
+        synchronized (buffers) {
+            if (buffers.size() < maxBuffers) {
+                buffers.push(job.image());
+            }
+        }
+    }
+
+    private record Job(BufferedImage image, Consumer<Graphics2D> overlay, String path, boolean pooled) {
+    }
+}
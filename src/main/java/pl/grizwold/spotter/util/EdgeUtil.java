@@ -0,0 +1,81 @@
+package pl.grizwold.spotter.util;
+
+import lombok.experimental.UtilityClass;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Edge detection shared by frames and icons - Sobel gradient of the luminance, quantized to one of
+ * {@link #ORIENTATIONS} orientations. Orientations ignore the direction of the gradient, so an edge between a dark
+ * and a light area has the same orientation in dark and light themes. Only integer arithmetic is used.
+ */
+@UtilityClass
+public class EdgeUtil {
+    /**
+     * orientation of pixels which are not an edge
+     */
+    public static final int NO_EDGE = 0;
+    /**
+     * edge orientations are numbered from 1, each covers 180 / 8 degrees
+     */
+    public static final int ORIENTATIONS = 8;
+
+    /**
+     * {@code 1024 * tan(angle)} of the angles between orientations 1-2, 2-3, 3-4 and 4-5
+     */
+    private static final int[] TANGENTS = {204, 684, 1533, 5148};
+
+    /**
+     * @return luminance, 0 - 255, of every color
+     */
+    @Nonnull
+    public static int[] luminance(@Nonnull int[] argb) {
+        int[] result = new int[argb.length];
+        ColorNormalization.LUMINANCE.convert(argb, result);
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= 0xff;
+        }
+        return result;
+    }
+
+    /**
+     * Sobel gradient at given pixel, which must not lie on the border of the image.
+     *
+     * @param luminance luminance of the image pixels, row by row
+     * @param threshold least sum of absolute horizontal and vertical gradient of an edge, at most 2040
+     * @return orientation of the edge at the pixel or {@link #NO_EDGE}
+     */
+    public static int orientation(@Nonnull int[] luminance, int width, int index, int threshold) {
+        int above = index - width;
+        int below = index + width;
+        int gx = luminance[above + 1] + 2 * luminance[index + 1] + luminance[below + 1]
+                - luminance[above - 1] - 2 * luminance[index - 1] - luminance[below - 1];
+        int gy = luminance[below - 1] + 2 * luminance[below] + luminance[below + 1]
+                - luminance[above - 1] - 2 * luminance[above] - luminance[above + 1];
+        if (Math.abs(gx) + Math.abs(gy) < threshold) {
+            return NO_EDGE;
+        }
+        if (gy < 0) {
+            gx = -gx;
+            gy = -gy;
+        }
+        int ax = Math.abs(gx);
+        int bin = 0;
+        while (bin < TANGENTS.length && gy * 1024L >= (long) TANGENTS[bin] * ax) {
+            bin++;
+        }
+        // bins 0 - 4 cover 0 - 90 degrees, gradients pointing left are mirrored to 90 - 180 degrees
+        return (gx < 0 ? (ORIENTATIONS - bin) % ORIENTATIONS : bin) + 1;
+    }
+
+    /**
+     * @return true when orientations differ by at most one step, 180 degrees being the same as 0
+     */
+    public static boolean similar(int orientation1, int orientation2) {
+        if (orientation1 == NO_EDGE || orientation2 == NO_EDGE) {
+            return false;
+        }
+        int difference = Math.abs(orientation1 - orientation2);
+        return difference <= 1 || difference == ORIENTATIONS - 1;
+    }
+}
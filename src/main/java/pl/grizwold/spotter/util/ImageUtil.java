@@ -5,8 +5,10 @@ import lombok.experimental.UtilityClass;
 
 import javax.annotation.Nonnull;
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.nio.file.Files;
@@ -22,6 +24,70 @@ public class ImageUtil {
         return new BufferedImage(cm, raster, isAlphaPremultiplied, null);
     }
 
+    /**
+     * Reads all pixels of the image as ARGB integers - the same values {@link BufferedImage#getRGB(int, int)} returns.
+     * Images of {@link BufferedImage#TYPE_INT_RGB} and {@link BufferedImage#TYPE_INT_ARGB} types, which are produced
+     * by {@link java.awt.Robot}, are copied without any color conversion.
+     *
+     * @param target array of at least width * height length, filled row by row
+     */
+    public static void readPixels(@Nonnull BufferedImage image, @Nonnull int[] target) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int type = image.getType();
+
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            image.getRaster().getDataElements(0, 0, width, height, target);
+            if (type == BufferedImage.TYPE_INT_RGB) {
+                for (int i = 0; i < width * height; i++) {
+                    target[i] |= 0xff000000;
+                }
+            }
+        } else {
+            image.getRGB(0, 0, width, height, target, 0, width);
+        }
+    }
+
+    /**
+     * @return ARGB pixels of the image, row by row. For images of {@link BufferedImage#TYPE_INT_ARGB} type which are not
+     * sub-images the backing array is returned, so later changes of the image are visible in it. Otherwise it is a copy.
+     */
+    @Nonnull
+    public static int[] pixels(@Nonnull BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && raster.getDataBuffer() instanceof DataBufferInt buffer
+                && buffer.getNumBanks() == 1
+                && raster.getParent() == null
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && buffer.getSize() == image.getWidth() * image.getHeight()) {
+            return buffer.getData();
+        }
+        int[] pixels = new int[image.getWidth() * image.getHeight()];
+        readPixels(image, pixels);
+        return pixels;
+    }
+
+    /**
+     * @param pixels ARGB pixels of an image, row by row
+     * @param width  width of the image
+     * @param region hashed part of the image
+     * @return FNV-1a hash of the region size and the pixels within it
+     */
+    public static long contentHash(@Nonnull int[] pixels, int width, @Nonnull Rectangle region) {
+        long hash = fnv(fnv(0xcbf29ce484222325L, region.width), region.height);
+        for (int y = region.y; y < region.y + region.height; y++) {
+            for (int i = y * width + region.x, end = i + region.width; i < end; i++) {
+                hash = fnv(hash, pixels[i]);
+            }
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
     @SneakyThrows
     public static void save(@Nonnull BufferedImage image, @Nonnull String filepath) {
         File file = new File(filepath);
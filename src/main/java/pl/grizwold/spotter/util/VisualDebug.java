@@ -4,22 +4,38 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.function.Consumer;
 
+/**
+ * Saves images showing how the locators search, when enabled by the {@value #DEBUG_ENABLE_ENV_VAR} environment
+ * variable. Images are encoded and written by a background thread shared by the whole application, see
+ * {@link DebugImageWriter} - searching threads only copy the pixels, and only when the image is not dropped by
+ * the limits.
+ */
 @Slf4j
 public class VisualDebug {
     private static final String DEBUG_ENABLE_ENV_VAR = "SPOTTER_DEBUG_ENABLED";
     private static final String DEBUG_DIRECTORY_ENV_VAR = "SPOTTER_DEBUG_DIRECTORY";
+    private static final String DEBUG_MAX_PER_SECOND_ENV_VAR = "SPOTTER_DEBUG_MAX_PER_SECOND";
+    private static final String DEBUG_MAX_IMAGES_ENV_VAR = "SPOTTER_DEBUG_MAX_IMAGES";
 
     private static final String DEFAULT_DIRECTORY = "visual-debug/";
     private static final boolean DEFAULT_DEBUG = false;
+    private static final int DEFAULT_MAX_PER_SECOND = 10;
+    private static final int DEFAULT_MAX_IMAGES = 1000;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static volatile DebugImageWriter sharedWriter;
 
     private final boolean enabled;
     private final String directory;
@@ -33,26 +49,45 @@ public class VisualDebug {
                 .orElse(DEFAULT_DIRECTORY);
     }
 
+    /**
+     * Saves a copy of the image - the image may change right after the call.
+     */
     public void saveDebugImage(BufferedImage image, String fileName) {
-        this.saveDebugImage(() -> image, fileName);
+        this.saveDebugImage(image, () -> _ -> {
+        }, fileName);
     }
 
+    /**
+     * Saves a copy of the image with an overlay drawn on it. The overlay is provided on the calling thread, only when
+     * the image is not dropped by the limits, but it is drawn later by the writer thread - so it must not depend on
+     * anything changing after the call.
+     */
+    public void saveDebugImage(BufferedImage image, DebugOverlayProvider overlayProvider, String fileName) {
+        if (this.enabled && writer().admit()) {
+            writer().writeCopy(image, overlayProvider.getOverlay(), path(fileName));
+        }
+    }
+
+    /**
+     * The image is provided on the calling thread, only when it is not dropped by the limits.
+     */
     public void saveDebugImage(DebugImageProvider imageProvider, String fileName) {
-        if (this.enabled) {
-            long start = System.currentTimeMillis();
-            Instant instant = Instant.ofEpochMilli(start);
-            String minutes = DateTimeFormatter.ofPattern("HH-mm").format(LocalDateTime.ofInstant(
-                    instant, TimeZone.getDefault().toZoneId()));
-            String millis = DateTimeFormatter.ofPattern("ss-SSS-").format(LocalDateTime.ofInstant(
-                    instant, TimeZone.getDefault().toZoneId()));
-
-            fileName = millis + fileName + ".png";
-            String saveDir = directory + minutes + "/" + fileName;
-            ImageUtil.save(imageProvider.getImage(), saveDir);
-            log.debug("Saving debug image to \"{}\" took {}ms", fileName, (System.currentTimeMillis() - start));
+        if (this.enabled && writer().admit()) {
+            writer().write(imageProvider.getImage(), path(fileName));
         }
     }
 
+    /**
+     * Waits until the debug images saved so far are written.
+     *
+     * @return false when the timeout passed first
+     */
+    @SneakyThrows
+    public static boolean flush(Duration timeout) {
+        DebugImageWriter writer = sharedWriter;
+        return writer == null || writer.flush(timeout);
+    }
+
     @SneakyThrows
     public void clear() {
         if (this.enabled) {
@@ -62,7 +97,42 @@ public class VisualDebug {
         }
     }
 
+    private String path(String fileName) {
+        Instant instant = Instant.ofEpochMilli(System.currentTimeMillis());
+        String minutes = DateTimeFormatter.ofPattern("HH-mm").format(LocalDateTime.ofInstant(
+                instant, TimeZone.getDefault().toZoneId()));
+        String millis = DateTimeFormatter.ofPattern("ss-SSS-").format(LocalDateTime.ofInstant(
+                instant, TimeZone.getDefault().toZoneId()));
+        return directory + minutes + "/" + millis + fileName + ".png";
+    }
+
+    private static DebugImageWriter writer() {
+        DebugImageWriter writer = sharedWriter;
+        if (writer == null) {
+            synchronized (VisualDebug.class) {
+                writer = sharedWriter;
+                if (writer == null) {
+                    writer = new DebugImageWriter(QUEUE_CAPACITY,
+                            intVariable(DEBUG_MAX_PER_SECOND_ENV_VAR, DEFAULT_MAX_PER_SECOND),
+                            intVariable(DEBUG_MAX_IMAGES_ENV_VAR, DEFAULT_MAX_IMAGES));
+                    sharedWriter = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    private static int intVariable(String name, int defaultValue) {
+        return Optional.ofNullable(System.getenv(name))
+                .map(Integer::parseInt)
+                .orElse(defaultValue);
+    }
+
     public interface DebugImageProvider {
         BufferedImage getImage();
     }
-}
\ No newline at end of file
+
+    public interface DebugOverlayProvider {
+        Consumer<Graphics2D> getOverlay();
+    }
+}
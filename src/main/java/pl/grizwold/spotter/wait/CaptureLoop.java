@@ -0,0 +1,317 @@
+package pl.grizwold.spotter.wait;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.detection.Locator;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Single capture loop shared by any number of asynchronous waits and {@link FrameListener}s. Each frame is captured
+ * once and tested against all pending waits in parallel, on a pool of daemon threads. The loop itself runs on
+ * a daemon thread which is started with the first pending wait or listener and finishes when there is nothing more
+ * to serve. Both are platform threads - virtual threads do not report their CPU time, which is part of the
+ * {@link WaitStatistics}.
+ * <br/><br/>
+ * Pacing follows the {@link WaitScheduler} - while the screen does not change the captures back off and only the
+ * waits and listeners which did not see the frame yet are served.
+ */
+@Slf4j
+public class CaptureLoop implements AutoCloseable {
+    private final Supplier<BufferedImage> capture;
+    private final Function<BufferedImage, Locator> locatorFactory;
+    private final WaitScheduler scheduler;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final List<PendingWait<?>> pending = new ArrayList<>();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final ExecutorService testers = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("spotter-capture-test-", 0).daemon().factory());
+    private boolean running;
+    private boolean registered;
+    private boolean closed;
+    private Thread thread;
+
+    /**
+     * @param capture        captures the frame which should be tested
+     * @param locatorFactory creates a locator searching given frame
+     * @param scheduler      paces the captures and collects the statistics
+     */
+    public CaptureLoop(Supplier<BufferedImage> capture, Function<BufferedImage, Locator> locatorFactory, WaitScheduler scheduler) {
+        this.capture = capture;
+        this.locatorFactory = locatorFactory;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Registers a wait. Returned future completes with the first non-empty result of the condition, exceptionally
+     * with {@link java.util.concurrent.TimeoutException} after given timeout, or with the exception thrown by the
+     * condition. Cancelling the future removes the wait from the loop.
+     *
+     * @param condition tested against each new frame
+     * @param timeout   in milliseconds
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> await(@Nonnull Function<Locator, Optional<T>> condition, long timeout) {
+        PendingWait<T> wait = new PendingWait<>(condition);
+        wait.future
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .whenComplete((_, e) -> {
+                    if (e != null) {
+                        scheduler.getStatistics().recordWait(false, System.currentTimeMillis() - wait.start, 0, 0);
+                    }
+                });
+
+        lock.lock();
+        try {
+            if (closed) {
+                wait.future.completeExceptionally(new IllegalStateException("Capture loop is closed"));
+                return wait.future;
+            }
+            pending.add(wait);
+            wakeUpOrStart();
+        } finally {
+            lock.unlock();
+        }
+        return wait.future;
+    }
+
+    /**
+     * Registers a listener notified about each changed frame - and about the current frame, right after the
+     * registration. The loop keeps capturing until the listener is removed.
+     */
+    public void subscribe(@Nonnull FrameListener listener) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Capture loop is closed");
+            }
+            subscribers.add(new Subscriber(listener));
+            wakeUpOrStart();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Notifies the registered listener about the current frame again, even when the screen did not change - e.g. when
+     * it started looking for something new.
+     */
+    public void renotify(@Nonnull FrameListener listener) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            subscribers.stream()
+                    .filter(s -> s.listener == listener)
+                    .forEach(s -> s.fresh = true);
+            wakeUpOrStart();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(@Nonnull FrameListener listener) {
+        lock.lock();
+        try {
+            subscribers.removeIf(s -> s.listener == listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return amount of waits which are not completed yet
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return (int) pending.stream().filter(w -> !w.future.isDone()).count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops capturing. Waits which are not completed yet fail, listeners are removed.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            subscribers.clear();
+            pending.forEach(w -> w.future.completeExceptionally(new IllegalStateException("Capture loop is closed")));
+            pending.clear();
+            if (thread != null) {
+                thread.interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+        testers.shutdownNow();
+    }
+
+    private void run() {
+        log.debug("Capture loop started");
+        ChangeDetector changeDetector = new ChangeDetector();
+        long delay = scheduler.getMinDelay();
+
+        try {
+            while (true) {
+                long cpuStart = WaitScheduler.cpuTime();
+                lock.lock();
+                List<PendingWait<?>> waits;
+                List<Subscriber> listeners;
+                try {
+                    pending.removeIf(w -> w.future.isDone());
+                    registered = false;
+                    if (pending.isEmpty() && subscribers.isEmpty()) {
+                        running = false;
+                        break;
+                    }
+                    waits = List.copyOf(pending);
+                    listeners = List.copyOf(subscribers);
+                } finally {
+                    lock.unlock();
+                }
+
+                BufferedImage frame = capture.get();
+                boolean changed = changeDetector.hasChanged(frame);
+                List<PendingWait<?>> toTest = changed ? waits : waits.stream().filter(w -> !w.tested).toList();
+                List<Subscriber> toNotify = changed ? listeners : listeners.stream().filter(s -> s.fresh).toList();
+                scheduler.getStatistics().recordCapture(!toTest.isEmpty() || !toNotify.isEmpty());
+                if (!toTest.isEmpty() || !toNotify.isEmpty()) {
+                    Locator locator = locatorFactory.apply(frame);
+                    test(toTest, locator);
+                    notify(toNotify, frame, locator);
+                }
+
+                delay = changed ? scheduler.getMinDelay() : scheduler.backOff(delay);
+                scheduler.getStatistics().recordCpu(WaitScheduler.cpuTime() - cpuStart);
+                pause(delay);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Capture loop failed", e);
+            failPendingWaits(e);
+        }
+        log.debug("Capture loop finished");
+    }
+
+    private void wakeUpOrStart() {
+        registered = true;
+        if (!running) {
+            running = true;
+            this.thread = Thread.ofPlatform().name("spotter-capture-loop").daemon().start(this::run);
+        } else {
+            wakeUp.signal();
+        }
+    }
+
+    private void notify(List<Subscriber> toNotify, BufferedImage frame, Locator locator) {
+        for (Subscriber subscriber : toNotify) {
+            subscriber.fresh = false;
+            try {
+                subscriber.listener.onFrame(frame, locator);
+            } catch (RuntimeException e) {
+                log.error("Frame listener failed", e);
+            }
+        }
+    }
+
+    private void test(List<PendingWait<?>> waits, Locator locator) throws InterruptedException {
+        long captured = System.currentTimeMillis();
+        testers.invokeAll(waits.stream()
+                .map(wait -> Executors.callable(() -> wait.test(locator, captured)))
+                .toList());
+    }
+
+    private void pause(long delay) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!registered) {
+                wakeUp.await(delay, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failPendingWaits(RuntimeException e) {
+        lock.lock();
+        try {
+            pending.forEach(w -> w.future.completeExceptionally(e));
+            pending.clear();
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Consumer of the frames captured by the {@link CaptureLoop}.
+     */
+    public interface FrameListener {
+        /**
+         * @param frame   captured frame of the working area
+         * @param locator locator searching the frame
+         */
+        void onFrame(BufferedImage frame, Locator locator);
+    }
+
+    private static class Subscriber {
+        private final FrameListener listener;
+        private volatile boolean fresh = true;
+
+        private Subscriber(FrameListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private class PendingWait<T> {
+        private final Function<Locator, Optional<T>> condition;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long start = System.currentTimeMillis();
+        private long lastTested = start;
+        private volatile boolean tested;
+
+        private PendingWait(Function<Locator, Optional<T>> condition) {
+            this.condition = condition;
+        }
+
+        private void test(Locator locator, long captured) {
+            if (future.isDone()) return;
+            long cpuStart = WaitScheduler.cpuTime();
+            try {
+                Optional<T> result;
+                try {
+                    result = condition.apply(locator);
+                } finally {
+                    scheduler.getStatistics().recordCpu(WaitScheduler.cpuTime() - cpuStart);
+                }
+                if (result.isPresent() && future.complete(result.get())) {
+                    scheduler.getStatistics().recordWait(true, captured - start, captured - lastTested, 0);
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            this.lastTested = captured;
+            this.tested = true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pl.grizwold.spotter.wait;
+
+import pl.grizwold.spotter.frame.Frame;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+
+/**
+ * Detects whether the screen changed since the previously checked frame by comparing fingerprints of all pixels.
+ * Hashing a frame is a single pass over its memory, so it is orders of magnitude cheaper than searching an icon.
+ * Pixels are mixed by FNV-1a, same as {@link ImageUtil#contentHash(int[], int, Rectangle)} - a linear hash would let
+ * ordinary edits of neighbouring pixels cancel out and hide a change.
+ */
+public class ChangeDetector {
+    private static final long SEED = 0xcbf29ce484222325L;
+
+    private long lastFingerprint;
+    private boolean initialized;
+
+    /**
+     * @return true when given frame differs from the previously checked one, or when it is the first checked frame
+     */
+    public boolean hasChanged(@Nonnull BufferedImage frame) {
+        return hasChanged(fingerprint(frame));
+    }
+
+    /**
+     * @see #hasChanged(BufferedImage)
+     */
+    public boolean hasChanged(@Nonnull Frame frame) {
+        return hasChanged(frame.getContentHash());
+    }
+
+    private boolean hasChanged(long fingerprint) {
+        boolean changed = !initialized || fingerprint != lastFingerprint;
+        this.lastFingerprint = fingerprint;
+        this.initialized = true;
+        return changed;
+    }
+
+    public void reset() {
+        this.initialized = false;
+    }
+
+    static long fingerprint(BufferedImage frame) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        Raster raster = frame.getRaster();
+        boolean packedPixels = raster.getDataBuffer().getDataType() == DataBuffer.TYPE_INT
+                && raster.getNumDataElements() == 1;
+        int[] row = new int[packedPixels ? width : width * raster.getNumDataElements()];
+        long hash = SEED;
+
+        for (int y = 0; y < height; y++) {
+            if (packedPixels) {
+                raster.getDataElements(0, y, width, 1, row);
+            } else {
+                frame.getRGB(0, y, width, 1, row, 0, width);
+            }
+            for (int i = 0; i < width; i++) {
+                hash = (hash ^ row[i]) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,134 @@
+package pl.grizwold.spotter.wait;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+import pl.grizwold.spotter.frame.Frame;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Paces the polling of {@link pl.grizwold.spotter.Spotter#waitFor(pl.grizwold.spotter.model.Icon)}. While the screen
+ * does not change the pause between captures grows exponentially up to the max latency and the search is skipped
+ * entirely - the result could not be different than last time. As soon as the {@link ChangeDetector} reports
+ * activity the frame is searched immediately and the polling falls back to the minimal delay.
+ */
+public class WaitScheduler {
+    public static final long DEFAULT_MIN_DELAY = 50;
+    public static final long DEFAULT_MAX_LATENCY = 500;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    @Getter
+    private final long minDelay;
+    @Getter
+    private final long maxLatency;
+    @Getter
+    private final WaitStatistics statistics = new WaitStatistics();
+
+    public WaitScheduler(long minDelay, long maxLatency) {
+        if (minDelay < 0 || maxLatency < minDelay) {
+            throw new IllegalArgumentException("Delays should satisfy 0 <= minDelay <= maxLatency!");
+        }
+        this.minDelay = minDelay;
+        this.maxLatency = maxLatency;
+    }
+
+    public WaitScheduler() {
+        this(DEFAULT_MIN_DELAY, DEFAULT_MAX_LATENCY);
+    }
+
+    /**
+     * Starts pacing of a single wait. Returned object is meant to be used by one thread only.
+     *
+     * @param timeout pauses never exceed the moment the wait times out
+     */
+    public Wait start(long timeout) {
+        return start(timeout, minDelay);
+    }
+
+    /**
+     * @param minDelay minimal pause of this wait used instead of the scheduler one, the pause still backs off up to
+     *                 the max latency - or stays at the minimal one when it is longer
+     * @see #start(long)
+     */
+    public Wait start(long timeout, long minDelay) {
+        if (minDelay < 0) {
+            throw new IllegalArgumentException("Minimal delay cannot be negative!");
+        }
+        return new Wait(timeout, minDelay);
+    }
+
+    public class Wait {
+        private final ChangeDetector changeDetector = new ChangeDetector();
+        private final long start = System.currentTimeMillis();
+        private final long deadline;
+        private final long cpuStart = cpuTime();
+        private final long waitMinDelay;
+        private long delay;
+        private long previousCapture = start;
+        private long lastCapture = start;
+
+        private Wait(long timeout, long minDelay) {
+            this.deadline = start + timeout < start ? Long.MAX_VALUE : start + timeout;
+            this.waitMinDelay = minDelay;
+            this.delay = minDelay;
+        }
+
+        /**
+         * Registers a new capture of the screen.
+         *
+         * @return true when the frame should be searched, false when it is the same as the previously searched one
+         */
+        public boolean shouldScan(@Nonnull BufferedImage frame) {
+            return shouldScan(changeDetector.hasChanged(frame));
+        }
+
+        /**
+         * @see #shouldScan(BufferedImage)
+         */
+        public boolean shouldScan(@Nonnull Frame frame) {
+            return shouldScan(changeDetector.hasChanged(frame));
+        }
+
+        private boolean shouldScan(boolean changed) {
+            this.previousCapture = lastCapture;
+            this.lastCapture = System.currentTimeMillis();
+            this.delay = changed ? waitMinDelay : Math.max(backOff(delay), waitMinDelay);
+            statistics.recordCapture(changed);
+            return changed;
+        }
+
+        /**
+         * Pauses until the next capture is due.
+         */
+        @SneakyThrows
+        public void pause() {
+            long remaining = deadline - System.currentTimeMillis();
+            Thread.sleep(Math.max(0, Math.min(delay, remaining)));
+        }
+
+        public void found() {
+            finish(true);
+        }
+
+        public void timedOut() {
+            finish(false);
+        }
+
+        private void finish(boolean found) {
+            long now = System.currentTimeMillis();
+            statistics.recordWait(found, now - start, lastCapture - previousCapture, cpuTime() - cpuStart);
+        }
+    }
+
+    long backOff(long delay) {
+        return Math.min(Math.max(delay * 2, 1), maxLatency);
+    }
+
+    static long cpuTime() {
+        // virtual threads report -1, pacing threads have to be platform ones
+        return THREADS.isCurrentThreadCpuTimeSupported() ? Math.max(0, THREADS.getCurrentThreadCpuTime()) : 0;
+    }
+}
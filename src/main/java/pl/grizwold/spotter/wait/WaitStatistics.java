@@ -0,0 +1,88 @@
+package pl.grizwold.spotter.wait;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Summary of all waits done with one {@link WaitScheduler}. Shows what the polling costs (captures, scans, CPU time)
+ * and what it achieves (detection latency). The detection latency of a wait is the time between the last capture
+ * not containing the awaited icon and the capture in which it was found - the upper bound of how late the icon was
+ * noticed.
+ */
+public class WaitStatistics {
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder captures = new LongAdder();
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder skippedScans = new LongAdder();
+    private final LongAdder waitingMillis = new LongAdder();
+    private final LongAdder latencyMillis = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    void recordCapture(boolean scanned) {
+        captures.increment();
+        (scanned ? scans : skippedScans).increment();
+    }
+
+    void recordWait(boolean wasFound, long waitedMillis, long latency, long cpu) {
+        waits.increment();
+        waitingMillis.add(waitedMillis);
+        cpuNanos.add(cpu);
+        if (wasFound) {
+            found.increment();
+            latencyMillis.add(latency);
+        }
+    }
+
+    void recordCpu(long cpu) {
+        cpuNanos.add(cpu);
+    }
+
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getFound() {
+        return found.sum();
+    }
+
+    public long getCaptures() {
+        return captures.sum();
+    }
+
+    public long getScans() {
+        return scans.sum();
+    }
+
+    public long getSkippedScans() {
+        return skippedScans.sum();
+    }
+
+    public long getWaitingMillis() {
+        return waitingMillis.sum();
+    }
+
+    public long getCpuMillis() {
+        return cpuNanos.sum() / 1_000_000;
+    }
+
+    public double getAverageLatencyMillis() {
+        long foundCount = found.sum();
+        return foundCount == 0 ? 0 : (double) latencyMillis.sum() / foundCount;
+    }
+
+    /**
+     * @return fraction of a single core used while waiting
+     */
+    public double getCpuUsage() {
+        long waited = waitingMillis.sum();
+        return waited == 0 ? 0 : (double) getCpuMillis() / waited;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WaitStatistics{waits=%d, found=%d, captures=%d, scans=%d, skippedScans=%d, " +
+                        "averageLatency=%.1fms, cpuUsage=%.1f%%}",
+                getWaits(), getFound(), getCaptures(), getScans(), getSkippedScans(),
+                getAverageLatencyMillis(), getCpuUsage() * 100);
+    }
+}
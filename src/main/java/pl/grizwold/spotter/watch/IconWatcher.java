@@ -0,0 +1,122 @@
+package pl.grizwold.spotter.watch;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.detection.Locator;
+import pl.grizwold.spotter.detection.pattern.PatternMatcher;
+import pl.grizwold.spotter.detection.pattern.PatternMatcherSpliterator;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.wait.CaptureLoop;
+
+import javax.annotation.Nonnull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates all started {@link Watch}es on frames delivered by the {@link CaptureLoop}. Watches are batched by their
+ * {@link WatchTarget} - each distinct target is searched once per frame, all targets in parallel on virtual threads.
+ * Resulting events are dispatched on the configured executor.
+ */
+@Slf4j
+public class IconWatcher implements CaptureLoop.FrameListener {
+    private final CaptureLoop captureLoop;
+    private final Function<BufferedImage, Locator> locatorFactory;
+    private final List<Watch> watches = new CopyOnWriteArrayList<>();
+    private volatile Executor executor;
+
+    /**
+     * @param captureLoop    loop delivering the frames
+     * @param locatorFactory creates a locator searching given part of the frame, used for watches limited to an area
+     * @param executor       executor dispatching the events
+     */
+    public IconWatcher(CaptureLoop captureLoop, Function<BufferedImage, Locator> locatorFactory, Executor executor) {
+        this.captureLoop = captureLoop;
+        this.locatorFactory = locatorFactory;
+        this.executor = executor;
+    }
+
+    public IconWatcher withExecutor(@Nonnull Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    public void onFrame(BufferedImage frame, Locator locator) {
+        Map<WatchTarget, List<Watch>> byTarget = watches.stream()
+                .collect(Collectors.groupingBy(Watch::getTarget, LinkedHashMap::new, Collectors.toList()));
+        Map<WatchTarget, Future<List<Point>>> results = new HashMap<>();
+
+        try (ExecutorService searches = Executors.newVirtualThreadPerTaskExecutor()) {
+            byTarget.keySet().forEach(target -> results.put(target, searches.submit(() -> search(target, frame, locator))));
+        }
+
+        byTarget.forEach((target, targetWatches) -> {
+            try {
+                List<Point> locations = results.get(target).get();
+                targetWatches.forEach(w -> w.update(locations, executor));
+            } catch (Exception e) {
+                log.error("Evaluating {} failed", target, e);
+            }
+        });
+    }
+
+    synchronized void add(Watch watch) {
+        boolean first = watches.isEmpty();
+        watches.add(watch);
+        log.debug("Watching {}", watch.getTarget());
+        if (first) {
+            captureLoop.subscribe(this);
+        } else {
+            // the screen may not change anymore, the new watch has to see the current frame
+            captureLoop.renotify(this);
+        }
+    }
+
+    synchronized void remove(Watch watch) {
+        watches.remove(watch);
+        log.debug("Stopped watching {}", watch.getTarget());
+        if (watches.isEmpty()) {
+            captureLoop.unsubscribe(this);
+        }
+    }
+
+    private List<Point> search(WatchTarget target, BufferedImage frame, Locator locator) {
+        Rectangle area = target.getArea();
+        if (area != null) {
+            area = area.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+            if (area.isEmpty()) {
+                return List.of();
+            }
+            frame = frame.getSubimage(area.x, area.y, area.width, area.height);
+        }
+
+        List<Point> locations;
+        if (target.isPattern()) {
+            locations = PatternMatcherSpliterator.stream(new PatternMatcher(frame, target.getIcon()))
+                    .parallel()
+                    .toList();
+        } else if (area != null) {
+            locations = locatorFactory.apply(frame).locateAll(target.getIcon());
+        } else {
+            locations = locator.locateAll(target.getIcon());
+        }
+
+        if (area == null) {
+            return locations;
+        }
+        Point areaLocation = new Point(area.getLocation());
+        return locations.stream()
+                .map(p -> p.translate(areaLocation))
+                .toList();
+    }
+}
@@ -0,0 +1,99 @@
+package pl.grizwold.spotter.watch;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import pl.grizwold.spotter.model.Point;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Subscription for changes of a {@link WatchTarget}. Callbacks are configured before the watch is started and are
+ * dispatched on the executor of the {@link IconWatcher}.
+ * <pre>{@code
+ * Watch watch = spotter.watch(icon)
+ *         .onAppeared(e -> log.info("Found at {}", e.getLocations()))
+ *         .onDisappeared(e -> log.info("Gone"))
+ *         .start();
+ * }</pre>
+ */
+@Slf4j
+public class Watch {
+    private static final Consumer<WatchEvent> DO_NOTHING = _ -> {
+    };
+
+    @Getter
+    private final WatchTarget target;
+    private final IconWatcher watcher;
+    private Consumer<WatchEvent> onAppeared = DO_NOTHING;
+    private Consumer<WatchEvent> onDisappeared = DO_NOTHING;
+    private Consumer<WatchEvent> onMoved = DO_NOTHING;
+    private List<Point> locations = List.of();
+    private volatile boolean active;
+
+    public Watch(@Nonnull WatchTarget target, @Nonnull IconWatcher watcher) {
+        this.target = target;
+        this.watcher = watcher;
+    }
+
+    public Watch onAppeared(@Nonnull Consumer<WatchEvent> callback) {
+        this.onAppeared = callback;
+        return this;
+    }
+
+    public Watch onDisappeared(@Nonnull Consumer<WatchEvent> callback) {
+        this.onDisappeared = callback;
+        return this;
+    }
+
+    public Watch onMoved(@Nonnull Consumer<WatchEvent> callback) {
+        this.onMoved = callback;
+        return this;
+    }
+
+    public Watch start() {
+        if (!active) {
+            this.active = true;
+            watcher.add(this);
+        }
+        return this;
+    }
+
+    public void cancel() {
+        if (active) {
+            this.active = false;
+            watcher.remove(this);
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @return locations of the target found on the last evaluated frame
+     */
+    public synchronized List<Point> getLocations() {
+        return locations;
+    }
+
+    synchronized void update(List<Point> current, Executor executor) {
+        if (!active || current.equals(locations)) return;
+
+        List<Point> previous = this.locations;
+        this.locations = current;
+        WatchEvent.Type type = previous.isEmpty() ? WatchEvent.Type.APPEARED
+                : current.isEmpty() ? WatchEvent.Type.DISAPPEARED
+                : WatchEvent.Type.MOVED;
+        WatchEvent event = new WatchEvent(type, target, previous, current);
+        Consumer<WatchEvent> callback = switch (type) {
+            case APPEARED -> onAppeared;
+            case DISAPPEARED -> onDisappeared;
+            case MOVED -> onMoved;
+        };
+        log.debug("Dispatching {} of {}", type, target);
+        executor.execute(() -> callback.accept(event));
+    }
+}
@@ -0,0 +1,44 @@
+package pl.grizwold.spotter.watch;
+
+import lombok.Getter;
+import lombok.ToString;
+import pl.grizwold.spotter.model.Point;
+
+import java.util.List;
+
+/**
+ * Change of the watched target locations between two frames. Locations are related to the working area of the
+ * {@link pl.grizwold.spotter.Spotter}.
+ */
+@Getter
+@ToString
+public class WatchEvent {
+    private final Type type;
+    private final WatchTarget target;
+    private final List<Point> previousLocations;
+    private final List<Point> locations;
+    private final long timestamp;
+
+    WatchEvent(Type type, WatchTarget target, List<Point> previousLocations, List<Point> locations) {
+        this.type = type;
+        this.target = target;
+        this.previousLocations = previousLocations;
+        this.locations = locations;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public enum Type {
+        /**
+         * target was not visible on the previous frame and it is now
+         */
+        APPEARED,
+        /**
+         * target was visible on the previous frame and it is not anymore
+         */
+        DISAPPEARED,
+        /**
+         * target is still visible, but on different locations
+         */
+        MOVED
+    }
+}
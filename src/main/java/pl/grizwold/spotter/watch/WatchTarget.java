@@ -0,0 +1,55 @@
+package pl.grizwold.spotter.watch;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import pl.grizwold.spotter.model.Icon;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.*;
+
+/**
+ * What a {@link Watch} is looking for - an icon or a pattern ({@link pl.grizwold.spotter.detection.pattern.PatternMatcher}),
+ * on the whole working area or within a part of it. Watches of equal targets are evaluated together, once per frame.
+ */
+@Getter
+@EqualsAndHashCode
+public class WatchTarget {
+    private final Icon icon;
+    @Nullable
+    private final Rectangle area;
+    private final boolean pattern;
+
+    private WatchTarget(Icon icon, @Nullable Rectangle area, boolean pattern) {
+        this.icon = icon;
+        this.area = area == null ? null : new Rectangle(area);
+        this.pattern = pattern;
+    }
+
+    public static WatchTarget icon(@Nonnull Icon icon) {
+        return new WatchTarget(icon, null, false);
+    }
+
+    /**
+     * @param area part of the working area where the icon is searched
+     */
+    public static WatchTarget icon(@Nonnull Icon icon, @Nonnull Rectangle area) {
+        return new WatchTarget(icon, area, false);
+    }
+
+    public static WatchTarget pattern(@Nonnull Icon pattern) {
+        return new WatchTarget(pattern, null, true);
+    }
+
+    /**
+     * @param area part of the working area where the pattern is searched
+     */
+    public static WatchTarget pattern(@Nonnull Icon pattern, @Nonnull Rectangle area) {
+        return new WatchTarget(pattern, area, true);
+    }
+
+    @Override
+    public String toString() {
+        return (pattern ? "pattern " : "icon ") + icon.getFilename() + (area == null ? "" : " in " + area);
+    }
+}
@@ -0,0 +1,51 @@
+package pl.grizwold.spotter;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.screen.InMemoryScreenSource;
+import pl.grizwold.spotter.screen.ScreenSource;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiDisplaySpotterTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_locate_icons_in_virtual_desktop_coordinates() {
+        MultiDisplaySpotter spotter = twoDisplays();
+
+        List<Point> list = spotter.locateAll(iron);
+
+        assertEquals(List.of(new Point(420, 84), new Point(501, 230)), list);
+    }
+
+    @Test
+    void should_locate_on_first_display_showing_icon() {
+        MultiDisplaySpotter spotter = twoDisplays();
+
+        Optional<Point> point = spotter.locate(iron);
+
+        assertEquals(Optional.of(new Point(420, 84)), point);
+        assertEquals(Optional.of(spotter.getDisplays().get(1)), spotter.displayAt(point.get()));
+    }
+
+    private MultiDisplaySpotter twoDisplays() {
+        BufferedImage desktop = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = desktop.createGraphics();
+        g.drawImage(twoIrons, 300, 0, null);
+        g.dispose();
+        ScreenSource screen = new InMemoryScreenSource(desktop);
+        return new MultiDisplaySpotter(List.of(
+                new Spotter(new Rectangle(0, 0, 300, 300), screen),
+                new Spotter(new Rectangle(300, 0, 300, 300), screen)
+        )).refresh();
+    }
+}
@@ -0,0 +1,307 @@
+package pl.grizwold.spotter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.detection.RelativeQuery;
+import pl.grizwold.spotter.detection.comparision.EdgeImageLocator;
+import pl.grizwold.spotter.detection.comparision.ResultCache;
+import pl.grizwold.spotter.detection.comparision.SearchLimit;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.LocateResult;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.model.RelativeMatch;
+import pl.grizwold.spotter.model.ScaledMatch;
+import pl.grizwold.spotter.screen.InMemoryScreenSource;
+import pl.grizwold.spotter.session.InputAction;
+import pl.grizwold.spotter.session.SessionEvent;
+import pl.grizwold.spotter.session.SessionReader;
+import pl.grizwold.spotter.session.SessionRecorder;
+import pl.grizwold.spotter.util.ColorNormalization;
+import pl.grizwold.spotter.util.ImageUtil;
+import pl.grizwold.spotter.wait.WaitStatistics;
+import pl.grizwold.spotter.watch.Watch;
+import pl.grizwold.spotter.watch.WatchEvent;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpotterTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_locate_icons_on_in_memory_frame() {
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons));
+
+        List<Point> list = spotter.locateAll(iron);
+
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), list);
+    }
+
+    @Test
+    void should_locate_relatively_to_working_area() {
+        Spotter spotter = new Spotter(new Rectangle(100, 80, 200, 220), new InMemoryScreenSource(twoIrons));
+
+        List<Point> list = spotter.locateAll(iron);
+
+        assertEquals(List.of(new Point(20, 4), new Point(101, 150)), list);
+    }
+
+    @Test
+    void should_locate_icon_relatively_to_another() {
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons));
+
+        Optional<RelativeMatch> below = spotter.locate(RelativeQuery.of(iron, iron).below().rightOf().within(200));
+        Optional<RelativeMatch> left = spotter.locate(RelativeQuery.of(iron, iron).leftOf());
+        Optional<RelativeMatch> near = spotter.locate(RelativeQuery.of(iron, iron).below().within(20));
+
+        assertEquals(Optional.of(new RelativeMatch(new Point(120, 84), new Point(201, 230))), below);
+        assertEquals(Optional.of(new RelativeMatch(new Point(201, 230), new Point(120, 84))), left);
+        assertEquals(Optional.empty(), near);
+    }
+
+    @Test
+    void should_reuse_results_of_identical_frames() {
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons, ImageUtil.copy(twoIrons)))
+                .withResultCache();
+
+        List<Point> first = spotter.locateAll(iron);
+        spotter.refresh();
+        List<Point> second = spotter.locateAll(iron);
+
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), second);
+        assertSame(first, second);
+        ResultCache cache = spotter.getResultCache().orElseThrow();
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void should_serve_next_frame_on_refresh() {
+        BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Spotter spotter = new Spotter(new InMemoryScreenSource(blank, twoIrons));
+        assertFalse(spotter.isVisible(iron));
+
+        spotter.refresh();
+
+        assertTrue(spotter.isVisible(iron));
+    }
+
+    @Test
+    void should_track_mouse_location_without_display() {
+        Spotter spotter = new Spotter(new Rectangle(100, 80, 200, 220), new InMemoryScreenSource(twoIrons))
+                .withActionDelay(0);
+
+        spotter.click(new Point(10, 20));
+
+        assertEquals(new Point(10, 20), spotter.getMouseLocation());
+    }
+
+    @Test
+    void should_skip_searching_unchanged_frames_while_waiting() {
+        BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Spotter spotter = new Spotter(new InMemoryScreenSource(blank, blank, blank, blank, twoIrons))
+                .withWaitScheduling(1, 4);
+
+        spotter.waitFor(iron, 5000);
+
+        WaitStatistics statistics = spotter.getWaitStatistics();
+        assertEquals(1, statistics.getFound());
+        assertEquals(4, statistics.getCaptures());
+        assertEquals(2, statistics.getScans());
+        assertEquals(2, statistics.getSkippedScans());
+    }
+
+    @Test
+    void should_complete_all_async_waits_from_shared_frames() throws Exception {
+        BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Spotter spotter = new Spotter(new InMemoryScreenSource(blank, blank, twoIrons))
+                .withWaitScheduling(1, 4);
+
+        CompletableFuture<Icon> first = spotter.waitForAsync(iron, 5000);
+        CompletableFuture<Icon> second = spotter.waitForAsync(List.of(iron), 5000);
+
+        assertSame(iron, first.get(5, TimeUnit.SECONDS));
+        assertSame(iron, second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_time_out_async_wait() {
+        BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Spotter spotter = new Spotter(new InMemoryScreenSource(blank))
+                .withWaitScheduling(1, 4);
+
+        CompletableFuture<Icon> wait = spotter.waitForAsync(iron, 50);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> wait.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void should_dispatch_appeared_and_disappeared_events() throws Exception {
+        BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Spotter spotter = new Spotter(new InMemoryScreenSource(blank, blank, twoIrons, twoIrons, blank))
+                .withWaitScheduling(1, 4);
+        CompletableFuture<WatchEvent> appeared = new CompletableFuture<>();
+        CompletableFuture<WatchEvent> disappeared = new CompletableFuture<>();
+
+        Watch watch = spotter.watch(iron, new Rectangle(100, 50, 100, 100))
+                .onAppeared(appeared::complete)
+                .onDisappeared(disappeared::complete)
+                .start();
+
+        assertEquals(List.of(new Point(120, 84)), appeared.get(5, TimeUnit.SECONDS).getLocations());
+        assertEquals(List.of(), disappeared.get(5, TimeUnit.SECONDS).getLocations());
+        watch.cancel();
+    }
+
+    @Test
+    void should_evaluate_watch_added_later_on_unchanging_screen() throws Exception {
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons))
+                .withWaitScheduling(1, 4);
+        CompletableFuture<WatchEvent> first = new CompletableFuture<>();
+        CompletableFuture<WatchEvent> second = new CompletableFuture<>();
+
+        Watch firstWatch = spotter.watch(iron, new Rectangle(100, 50, 100, 100))
+                .onAppeared(first::complete)
+                .start();
+        first.get(5, TimeUnit.SECONDS);
+        Thread.sleep(50);
+        Watch secondWatch = spotter.watch(iron)
+                .onAppeared(second::complete)
+                .start();
+
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), second.get(5, TimeUnit.SECONDS).getLocations());
+        firstWatch.cancel();
+        secondWatch.cancel();
+    }
+
+    @Test
+    void should_deliver_enqueued_input_in_order() throws Exception {
+        Spotter spotter = new Spotter(new Rectangle(100, 80, 200, 220), new InMemoryScreenSource(twoIrons))
+                .withActionDelay(1);
+
+        spotter.enqueueClick(new Point(10, 20));
+        CompletableFuture<Void> drag = spotter.enqueueDrag(new Point(1, 2), new Point(30, 40));
+
+        drag.get(5, TimeUnit.SECONDS);
+        assertEquals(new Point(30, 40), spotter.getMouseLocation());
+    }
+
+    @Test
+    void should_call_not_found_handler_when_enqueued_click_target_is_missing() throws Exception {
+        Icon missing = new Icon("src/test/resources/pattern_matching/pattern_letter_eight.png");
+        List<Icon> notFound = new ArrayList<>();
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons))
+                .doOnIconNotFound((icon, _) -> notFound.add(icon));
+
+        CompletableFuture<Void> click = spotter.enqueueClick(missing);
+
+        click.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(missing), notFound);
+    }
+
+    @Test
+    void should_poll_waits_at_action_delay() {
+        Icon missing = new Icon("src/test/resources/pattern_matching/pattern_letter_eight.png");
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons))
+                .withActionDelay(200);
+
+        spotter.waitFor(missing, 500);
+
+        assertTrue(spotter.getWaitStatistics().getCaptures() <= 3);
+    }
+
+    @Test
+    void should_detect_display_scale() {
+        BufferedImage doubled = new BufferedImage(twoIrons.getWidth() * 2, twoIrons.getHeight() * 2, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = doubled.createGraphics();
+        g.drawImage(twoIrons, 0, 0, doubled.getWidth(), doubled.getHeight(), null);
+        g.dispose();
+        Spotter spotter = new Spotter(new InMemoryScreenSource(doubled)).withScales(1, 1.5, 2);
+
+        List<ScaledMatch> matches = spotter.locateAllScaled(iron);
+
+        assertEquals(List.of(new Point(240, 168), new Point(402, 460)), matches.stream().map(m -> m.location).toList());
+        assertEquals(2, matches.getFirst().scale);
+        assertEquals(2, spotter.getDetectedScale().orElseThrow());
+        assertEquals(iron.getDimension().width * 2, matches.getFirst().icon.getDimension().width);
+    }
+
+    @Test
+    void should_score_matches_with_configured_locator() {
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons));
+
+        assertEquals(new Point(120, 84), spotter.locateBest(iron).orElseThrow().location);
+        assertEquals(new EdgeImageLocator(twoIrons).locateTop(iron, 2), spotter.withEdgeLocating().locateTop(iron, 2));
+        assertThrows(IllegalStateException.class, () -> spotter.withFullLocating()
+                .withNormalization(ColorNormalization.LUMINANCE).locateBest(iron));
+    }
+
+    @Test
+    void should_search_with_limit_by_configured_locator() {
+        Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons)).withEdgeLocating();
+
+        assertEquals(new LocateResult(spotter.locateAll(iron), false),
+                spotter.locateAll(iron, SearchLimit.of(Duration.ofMinutes(1))));
+        assertEquals(new LocateResult(List.of(), true), spotter.locateAll(iron, SearchLimit.of(Duration.ZERO)));
+    }
+
+    @Test
+    void should_fail_pending_waits_and_input_when_closed() {
+        BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Spotter spotter = new Spotter(new InMemoryScreenSource(blank)).withActionDelay(1);
+        CompletableFuture<Icon> wait = spotter.waitForAsync(iron, 10_000);
+        spotter.enqueueClick(new Point(10, 20)).join();
+
+        spotter.close();
+
+        ExecutionException waitFailure = assertThrows(ExecutionException.class, () -> wait.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, waitFailure.getCause());
+        ExecutionException inputFailure = assertThrows(ExecutionException.class,
+                () -> spotter.enqueueClick(new Point(10, 20)).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, inputFailure.getCause());
+    }
+
+    @Test
+    void should_record_frames_searches_and_input(@TempDir Path directory) {
+        Path file = directory.resolve("session.rec");
+        try (SessionRecorder recorder = new SessionRecorder(file)) {
+            Spotter spotter = new Spotter(new InMemoryScreenSource(twoIrons), recorder)
+                    .withActionDelay(1);
+
+            spotter.locateAll(iron);
+            spotter.locateBest(iron);
+            spotter.locateAll(iron, SearchLimit.NONE);
+            spotter.click(new Point(10, 20));
+            spotter.enqueueClick(new Point(10, 20)).join();
+        }
+
+        try (SessionReader reader = new SessionReader(file)) {
+            List<SessionEvent> events = reader.readAll();
+
+            assertInstanceOf(SessionEvent.Frame.class, events.getFirst());
+            assertEquals(List.of(List.of(new Point(120, 84), new Point(201, 230)), List.of(new Point(120, 84)),
+                    List.of(new Point(120, 84), new Point(201, 230))), events.stream()
+                    .filter(SessionEvent.Locate.class::isInstance)
+                    .map(e -> ((SessionEvent.Locate) e).locations())
+                    .toList());
+            assertEquals(List.of(InputAction.MOUSE_MOVE, InputAction.MOUSE_PRESS, InputAction.MOUSE_RELEASE,
+                    InputAction.MOUSE_MOVE, InputAction.MOUSE_PRESS, InputAction.MOUSE_RELEASE), events.stream()
+                    .filter(SessionEvent.Input.class::isInstance)
+                    .map(e -> ((SessionEvent.Input) e).action())
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package pl.grizwold.spotter.detection;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.model.ScaledMatch;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiScaleSearchTest {
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_not_search_scales_rejected_by_pre_check() {
+        MultiScaleSearch search = new MultiScaleSearch(1, 1.5, 2);
+        List<Integer> searchedWidths = new ArrayList<>();
+
+        List<ScaledMatch> matches = search.locateAll(iron, new Dimension(1000, 1000),
+                icon -> icon.getDimension().width == iron.getDimension().width * 2,
+                icon -> {
+                    searchedWidths.add(icon.getDimension().width);
+                    return List.of(new Point(10, 10));
+                });
+
+        assertEquals(List.of(iron.getDimension().width * 2), searchedWidths);
+        assertEquals(2, matches.getFirst().scale);
+    }
+}
@@ -0,0 +1,40 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColorPresenceTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_accept_icon_present_in_image() {
+        ColorPresence presence = new ColorPresence(ImageUtil.pixels(twoIrons));
+
+        assertTrue(presence.mayContain(iron.getData(), 0));
+        assertTrue(presence.mayContain(iron.getData(), 30));
+    }
+
+    @Test
+    void should_reject_icon_of_absent_colors() {
+        ColorPresence presence = new ColorPresence(new int[]{0xff000000, 0xffffffff});
+
+        assertFalse(presence.mayContain(iron.getData(), 30));
+    }
+
+    @Test
+    void should_accept_colors_within_tolerance_only() {
+        ColorPresence presence = new ColorPresence(new int[]{0xff404040});
+
+        assertTrue(presence.mayContain(0xff404040, 0));
+        assertTrue(presence.mayContain(0xff3f4041, 1));
+        assertFalse(presence.mayContain(0xff204040, 16));
+        assertFalse(presence.mayContain(0xff404060, 16));
+        assertTrue(presence.mayContain(0xff204060, 32));
+    }
+}
@@ -0,0 +1,72 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeImageLocatorTest {
+    @TempDir
+    Path temp;
+
+    @Test
+    void should_find_both_irons_by_edges() {
+        BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+        Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+        List<Match> matches = new EdgeImageLocator(twoIrons).locateScored(iron);
+
+        assertEquals(List.of(new Match(new Point(120, 84), 0), new Match(new Point(201, 230), 0)), matches);
+    }
+
+    @Test
+    void should_find_icon_in_noisy_image() {
+        Random random = new Random(1);
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (int i = 0; i < 40; i++) {
+            g.setColor(new Color(random.nextInt(0xffffff)));
+            if (i % 2 == 0) {
+                g.fillOval(random.nextInt(380), random.nextInt(280), 10 + random.nextInt(40), 10 + random.nextInt(40));
+            } else {
+                g.drawString("Save", random.nextInt(360), 10 + random.nextInt(290));
+            }
+        }
+        g.dispose();
+        Path file = temp.resolve("icon.png");
+        ImageUtil.save(ImageUtil.copy(image.getSubimage(200, 150, 40, 30)), file.toString());
+        Icon icon = new Icon(file);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, withNoise(image.getRGB(x, y), random.nextInt(25) - 12));
+            }
+        }
+
+        List<Match> matches = new EdgeImageLocator(image).locateScored(icon);
+
+        assertEquals(List.of(), new PixelByPixelImageLocator(image).withTolerance(15).locate(icon));
+        assertEquals(1, matches.size());
+        assertEquals(new Point(200, 150), matches.getFirst().location);
+        assertTrue(matches.getFirst().distance < 0.1);
+    }
+
+    private static int withNoise(int rgb, int noise) {
+        int r = Math.clamp(((rgb >> 16) & 0xff) + noise, 0, 255);
+        int g = Math.clamp(((rgb >> 8) & 0xff) + noise, 0, 255);
+        int b = Math.clamp((rgb & 0xff) + noise, 0, 255);
+        return 0xff000000 | r << 16 | g << 8 | b;
+    }
+}
@@ -0,0 +1,111 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalImageLocatorTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_find_the_same_as_full_search_on_first_frame() {
+        IncrementalImageLocator locator = new IncrementalImageLocator()
+                .update(twoIrons, pixelByPixel(twoIrons));
+
+        List<Point> list = locator.locate(iron);
+
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), list);
+    }
+
+    @Test
+    void should_reuse_results_when_frame_did_not_change() {
+        BufferedImage copy = ImageUtil.copy(twoIrons);
+        IncrementalImageLocator locator = new IncrementalImageLocator()
+                .update(twoIrons, pixelByPixel(twoIrons));
+        List<Point> first = locator.locate(iron);
+
+        locator.update(copy, pixelByPixel(copy));
+        List<Point> second = locator.locate(iron);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void should_not_let_callers_modify_remembered_results() {
+        BufferedImage copy = ImageUtil.copy(twoIrons);
+        IncrementalImageLocator locator = new IncrementalImageLocator()
+                .update(twoIrons, pixelByPixel(twoIrons));
+        List<Point> first = locator.locate(iron);
+
+        assertThrows(UnsupportedOperationException.class, first::clear);
+        locator.update(copy, pixelByPixel(copy));
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), locator.locate(iron));
+    }
+
+    @Test
+    void should_forget_icon_covered_in_changed_region() {
+        BufferedImage changed = ImageUtil.copy(twoIrons);
+        Graphics2D g = changed.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(125, 90, 10, 10);
+        g.dispose();
+        IncrementalImageLocator locator = new IncrementalImageLocator()
+                .update(twoIrons, pixelByPixel(twoIrons));
+        locator.locate(iron);
+
+        locator.update(changed, pixelByPixel(changed));
+        List<Point> list = locator.locate(iron);
+
+        assertEquals(pixelByPixel(changed).locate(iron), list);
+        assertEquals(List.of(new Point(201, 230)), list);
+    }
+
+    @Test
+    void should_find_icon_appearing_in_changed_region() {
+        BufferedImage empty = ImageUtil.copy(twoIrons);
+        Graphics2D g = empty.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(125, 90, 10, 10);
+        g.dispose();
+        IncrementalImageLocator locator = new IncrementalImageLocator()
+                .update(empty, pixelByPixel(empty));
+        locator.locate(iron);
+
+        locator.update(twoIrons, pixelByPixel(twoIrons));
+        List<Point> list = locator.locate(iron);
+
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), list);
+    }
+
+    @Test
+    void should_search_older_frame_without_remembered_results() {
+        BufferedImage empty = ImageUtil.copy(twoIrons);
+        Graphics2D g = empty.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(125, 90, 10, 10);
+        g.dispose();
+        IncrementalImageLocator locator = new IncrementalImageLocator()
+                .update(empty, pixelByPixel(empty));
+        ImageLocator olderFrame = locator.forFrame(empty, pixelByPixel(empty));
+        ImageLocator currentFrame = locator.forFrame(twoIrons, pixelByPixel(twoIrons));
+        olderFrame.locate(iron);
+
+        locator.update(twoIrons, pixelByPixel(twoIrons));
+
+        assertEquals(List.of(new Point(201, 230)), olderFrame.locate(iron));
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), currentFrame.locate(iron));
+        assertEquals(currentFrame.locate(iron), locator.locate(iron));
+    }
+
+    private PixelByPixelImageLocator pixelByPixel(BufferedImage base) {
+        return new PixelByPixelImageLocator(base).withTolerance(30);
+    }
+}
@@ -0,0 +1,54 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntegralImageTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_compute_mean_and_deviation_of_rectangle() {
+        int[] pixels = {
+                0x000000, 0x0a0a0a, 0xffffff,
+                0x0a0a0a, 0x000000, 0xffffff
+        };
+        IntegralImage integral = IntegralImage.of(pixels, 3, 2);
+
+        assertArrayEquals(new double[]{5, 5, 5}, integral.mean(new Rectangle(0, 0, 2, 2)));
+        assertEquals(Math.sqrt(75), integral.deviation(new Rectangle(0, 0, 2, 2)), 1e-9);
+        assertEquals(0, integral.deviation(new Rectangle(2, 0, 1, 2)), 1e-9);
+    }
+
+    @Test
+    void should_find_the_same_with_prefilter() {
+        for (int tolerance : new int[]{1, 30, 80}) {
+            List<Point> expected = new PixelByPixelImageLocator(twoIrons).withTolerance(tolerance).locate(iron);
+
+            List<Point> actual = new PixelByPixelImageLocator(twoIrons).withTolerance(tolerance)
+                    .withPrefilter(true)
+                    .locate(iron);
+
+            assertEquals(expected, actual, "tolerance " + tolerance);
+        }
+    }
+
+    @Test
+    void should_reject_flat_area() {
+        BufferedImage flat = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+        IntegralImage integral = IntegralImage.of(ImageUtil.pixels(flat), 200, 200);
+
+        IntegralImage.Filter filter = integral.filter(iron.getData(), 30, 16);
+
+        assertNotNull(filter);
+        assertFalse(filter.mayMatchAt(10, 10));
+    }
+}
@@ -0,0 +1,58 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.IconData;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NccImageLocatorTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void should_find_both_irons_with_perfect_score() {
+        List<Match> matches = new NccImageLocator(twoIrons).withThreshold(0.9).locateScored(iron);
+
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)),
+                matches.stream().map(m -> m.location).sorted((a, b) -> a.x - b.x).toList());
+        matches.forEach(m -> assertTrue(m.distance < 0.001));
+    }
+
+    @Test
+    void should_ignore_masked_pixels_across_tiles() {
+        Random random = new Random(3);
+        BufferedImage base = new BufferedImage(600, 400, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < base.getWidth(); x++) {
+            for (int y = 0; y < base.getHeight(); y++) {
+                base.setRGB(x, y, 0xff000000 | random.nextInt(0xffffff));
+            }
+        }
+        BufferedImage icon = ImageUtil.copy(base.getSubimage(430, 310, 40, 30));
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 15; y++) {
+                icon.setRGB(x, y, IconData.MASK);
+            }
+        }
+        Path file = temp.resolve("icon.png");
+        ImageUtil.save(icon, file.toString());
+
+        List<Match> matches = new NccImageLocator(base).locateScored(new Icon(file));
+
+        assertEquals(1, matches.size());
+        assertEquals(new Point(430, 310), matches.getFirst().location);
+        assertEquals(0, matches.getFirst().distance, 1e-6);
+    }
+}
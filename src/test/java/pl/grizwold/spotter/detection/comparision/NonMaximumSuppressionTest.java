@@ -0,0 +1,37 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+
+import java.awt.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonMaximumSuppressionTest {
+    private final Dimension size = new Dimension(10, 5);
+
+    @Test
+    void should_keep_best_of_overlapping_matches() {
+        Match best = new Match(new Point(12, 3), 0);
+        Match overlapped = new Match(new Point(3, 0), 2);
+        Match farAway = new Match(new Point(2, 20), 3);
+        Match touching = new Match(new Point(22, 3), 4);
+
+        List<Match> kept = NonMaximumSuppression.suppress(List.of(farAway, overlapped, touching, best), size,
+                Integer.MAX_VALUE);
+
+        assertEquals(List.of(best, farAway, touching), kept);
+    }
+
+    @Test
+    void should_stop_at_the_limit() {
+        List<Match> candidates = List.of(new Match(new Point(0, 0), 1), new Match(new Point(50, 0), 0),
+                new Match(new Point(100, 0), 2));
+
+        List<Match> kept = NonMaximumSuppression.suppress(candidates, size, 2);
+
+        assertEquals(List.of(new Point(50, 0), new Point(0, 0)), kept.stream().map(m -> m.location).toList());
+    }
+}
@@ -0,0 +1,79 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ColorNormalization;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedImageLocatorTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+    private final Icon alteredHue = new Icon("src/test/resources/pattern_matching/iron_altered_hue.png");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void should_find_icon_with_altered_hue() {
+        assertEquals(List.of(), new PixelByPixelImageLocator(twoIrons).withTolerance(5).locate(alteredHue));
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)),
+                new NormalizedImageLocator(twoIrons, ColorNormalization.VALUE).withTolerance(5).locate(alteredHue));
+    }
+
+    @Test
+    void should_find_darkened_icon_by_chromaticity() {
+        BufferedImage dark = ImageUtil.copy(twoIrons);
+        for (int x = 0; x < dark.getWidth(); x++) {
+            for (int y = 0; y < dark.getHeight(); y++) {
+                int rgb = dark.getRGB(x, y);
+                dark.setRGB(x, y, 0xff000000 | (rgb & 0xfefefe) >> 1);
+            }
+        }
+
+        assertEquals(List.of(), new PixelByPixelImageLocator(dark).withTolerance(15).locate(iron));
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)),
+                new NormalizedImageLocator(dark, ColorNormalization.CHROMATICITY).withTolerance(15).locate(iron));
+    }
+
+    @Test
+    void should_convert_to_gray_levels_and_brightness_independent_chromaticity() {
+        assertEquals(0x404040, ColorNormalization.VALUE.convert(0xff104020));
+        assertEquals(0x808080, ColorNormalization.LUMINANCE.convert(0xff808080));
+        assertEquals(ColorNormalization.CHROMATICITY.convert(0xff204060),
+                ColorNormalization.CHROMATICITY.convert(0xff102030));
+        assertEquals(0x555555, ColorNormalization.CHROMATICITY.convert(0xff000000));
+    }
+
+    @Test
+    void should_measure_tolerance_of_gray_normalizations_in_gray_levels() {
+        BufferedImage base = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        base.setRGB(0, 0, 0xff808080);
+        BufferedImage lighter = ImageUtil.copy(base);
+        lighter.setRGB(0, 0, 0xff9e9e9e);
+        BufferedImage lightest = ImageUtil.copy(base);
+        lightest.setRGB(0, 0, 0xff9f9f9f);
+        Icon icon = new Icon(writeIcon(base));
+
+        for (ColorNormalization normalization : List.of(ColorNormalization.LUMINANCE, ColorNormalization.VALUE)) {
+            // 30 gray levels apart
+            assertEquals(List.of(new Point(0, 0)),
+                    new NormalizedImageLocator(lighter, normalization).withTolerance(30).locate(icon));
+            assertEquals(List.of(),
+                    new NormalizedImageLocator(lightest, normalization).withTolerance(30).locate(icon));
+        }
+    }
+
+    private String writeIcon(BufferedImage image) {
+        String path = temp.resolve("icon.png").toString();
+        ImageUtil.save(image, path);
+        return path;
+    }
+}
@@ -0,0 +1,119 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.LocateResult;
+import pl.grizwold.spotter.model.Match;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PixelByPixelImageLocatorTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_score_the_same_locations_as_plain_search() {
+        PixelByPixelImageLocator locator = new PixelByPixelImageLocator(twoIrons).withTolerance(30);
+
+        List<Match> matches = locator.locateScored(iron);
+
+        assertEquals(locator.locate(iron), matches.stream().map(m -> m.location).sorted((a, b) -> a.x - b.x).toList());
+        matches.forEach(m -> assertTrue(m.distance <= 30));
+        assertTrue(matches.get(0).distance <= matches.get(1).distance);
+    }
+
+    @Test
+    void should_find_best_match_first() {
+        BufferedImage base = ImageUtil.copy(twoIrons);
+        int x = 120 + iron.getData().getXs()[0];
+        int y = 84 + iron.getData().getYs()[0];
+        base.setRGB(x, y, base.getRGB(x, y) ^ 0x30);
+        PixelByPixelImageLocator locator = new PixelByPixelImageLocator(base).withTolerance(100);
+
+        Optional<Match> best = locator.locateBest(iron);
+        List<Match> top = locator.locateTop(iron, 2);
+
+        assertEquals(Optional.of(top.get(0)), best);
+        assertEquals(new Point(201, 230), best.orElseThrow().location);
+        assertEquals(new Point(120, 84), top.get(1).location);
+        assertTrue(top.get(1).distance > best.orElseThrow().distance);
+    }
+
+    @Test
+    void should_report_nothing_beyond_tolerance() {
+        PixelByPixelImageLocator locator = new PixelByPixelImageLocator(twoIrons).withTolerance(0);
+
+        assertEquals(locator.locate(iron).isEmpty(), locator.locateBest(iron).isEmpty());
+        assertEquals(List.of(), new PixelByPixelImageLocator(new BufferedImage(50, 50, BufferedImage.TYPE_INT_ARGB))
+                .locateTop(iron, 3));
+    }
+
+    @Test
+    void should_return_partial_result_when_cancelled() {
+        PixelByPixelImageLocator locator = new PixelByPixelImageLocator(twoIrons).withTolerance(30);
+        Rectangle wholeImage = new Rectangle(0, 0, twoIrons.getWidth(), twoIrons.getHeight());
+        AtomicInteger columns = new AtomicInteger();
+
+        LocateResult cancelled = locator.locate(iron, wholeImage,
+                SearchLimit.cancelledBy(() -> columns.incrementAndGet() > 150));
+        LocateResult expired = locator.locate(iron, wholeImage, SearchLimit.of(Duration.ZERO));
+        LocateResult complete = locator.locate(iron, wholeImage, SearchLimit.of(Duration.ofMinutes(1)));
+
+        assertEquals(new LocateResult(List.of(new Point(120, 84)), true), cancelled);
+        assertEquals(new LocateResult(List.of(), true), expired);
+        assertEquals(new LocateResult(List.of(new Point(120, 84), new Point(201, 230)), false), complete);
+    }
+
+    @Test
+    void should_compare_blue_channel(@TempDir Path dir) {
+        BufferedImage base = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        base.setRGB(1, 1, 0xff102000);
+        Icon icon = icon(dir, new int[][]{{0xff102040}});
+
+        assertEquals(List.of(), new PixelByPixelImageLocator(base).withTolerance(30).locate(icon));
+        assertEquals(List.of(new Point(1, 1)), new PixelByPixelImageLocator(base).withTolerance(70).locate(icon));
+    }
+
+    @Test
+    void should_compare_pixels_above_first_non_mask_pixel(@TempDir Path dir) {
+        int mask = 0xffff00ff;
+        int red = 0xffff0000;
+        int green = 0xff00ff00;
+        // first non-mask pixel, in column order, is the lower left one - the upper right one lies above it
+        Icon icon = icon(dir, new int[][]{
+                {mask, green},
+                {red, red}
+        });
+        BufferedImage base = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        base.setRGB(1, 2, red);
+        base.setRGB(2, 2, red);
+
+        assertEquals(List.of(), new PixelByPixelImageLocator(base).withTolerance(0).locate(icon));
+
+        base.setRGB(2, 1, green);
+        assertEquals(List.of(new Point(1, 1)), new PixelByPixelImageLocator(base).withTolerance(0).locate(icon));
+    }
+
+    private Icon icon(Path dir, int[][] rows) {
+        BufferedImage image = new BufferedImage(rows[0].length, rows.length, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length; x++) {
+                image.setRGB(x, y, rows[y][x]);
+            }
+        }
+        String path = dir.resolve("icon.png").toString();
+        ImageUtil.save(image, path);
+        return new Icon(path);
+    }
+}
@@ -0,0 +1,81 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PyramidImageLocatorTest {
+    @TempDir
+    Path temp;
+
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @Test
+    void should_find_the_same_as_full_search() {
+        for (int tolerance : new int[]{1, 30, 80}) {
+            List<Point> expected = new PixelByPixelImageLocator(twoIrons).withTolerance(tolerance).locate(iron);
+
+            List<Point> actual = new PyramidImageLocator(twoIrons).withTolerance(tolerance).locate(iron);
+
+            assertEquals(expected, actual, "tolerance " + tolerance);
+        }
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)),
+                new PyramidImageLocator(twoIrons).withTolerance(30).locate(iron));
+    }
+
+    @Test
+    void should_find_overlapping_occurrences_in_scan_order() {
+        Random random = new Random(7);
+        BufferedImage base = new BufferedImage(120, 90, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < base.getWidth(); x++) {
+            for (int y = 0; y < base.getHeight(); y++) {
+                base.setRGB(x, y, 0xff000000 | (random.nextInt(4) * 0x3f3f3f));
+            }
+        }
+        Graphics2D g = base.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(10, 10, 40, 30);
+        g.fillRect(70, 50, 20, 20);
+        g.dispose();
+        Icon block = iconOf(base.getSubimage(30, 20, 12, 12));
+
+        List<Point> expected = new PixelByPixelImageLocator(base).locate(block);
+
+        assertEquals(expected, new PyramidImageLocator(base).locate(block));
+        assertFalse(expected.isEmpty());
+    }
+
+    @Test
+    void should_rebuild_levels_after_reset() {
+        BufferedImage base = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = base.createGraphics();
+        g.drawImage(twoIrons, 0, 0, null);
+        g.dispose();
+        PyramidImageLocator locator = new PyramidImageLocator(base).withTolerance(30);
+        assertEquals(2, locator.locate(iron).size());
+
+        g = base.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, base.getWidth(), base.getHeight());
+        g.dispose();
+
+        assertEquals(List.of(), locator.reset().locate(iron));
+    }
+
+    private Icon iconOf(BufferedImage image) {
+        Path file = temp.resolve("block.png");
+        ImageUtil.save(ImageUtil.copy(image), file.toString());
+        return new Icon(file);
+    }
+}
@@ -0,0 +1,128 @@
+package pl.grizwold.spotter.detection.comparision;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.detection.comparision.StrategySelector.Strategy;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrategySelectorTest {
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+    private final Set<Strategy> exact = EnumSet.of(Strategy.PIXEL_BY_PIXEL, Strategy.PYRAMID);
+
+    @Test
+    void should_try_every_strategy_then_pick_the_fastest() {
+        StrategySelector selector = new StrategySelector();
+
+        Strategy first = search(selector, 5_000_000, 1_000_000);
+        Strategy second = search(selector, 5_000_000, 1_000_000);
+        Strategy third = search(selector, 5_000_000, 1_000_000);
+
+        assertEquals(Strategy.PIXEL_BY_PIXEL, first);
+        assertEquals(Strategy.PYRAMID, second);
+        assertEquals(Strategy.PYRAMID, third);
+        StrategySelector.Decision decision = selector.getDecisions().getFirst();
+        assertEquals(Strategy.PYRAMID, decision.strategy());
+        assertEquals("fastest", decision.reason());
+        assertEquals(5.0, decision.latencies().get(Strategy.PIXEL_BY_PIXEL));
+        assertEquals(3, decision.searches());
+    }
+
+    @Test
+    void should_measure_slower_strategy_again_and_adapt() {
+        StrategySelector selector = new StrategySelector();
+        search(selector, 2_000_000, 1_000_000);
+
+        int pixelByPixel = 0;
+        for (int i = 0; i < 100; i++) {
+            // the pyramid gets slower, e.g. the screen became noisy
+            if (search(selector, 2_000_000, 10_000_000) == Strategy.PIXEL_BY_PIXEL) {
+                pixelByPixel++;
+            }
+        }
+
+        assertTrue(pixelByPixel > 80);
+        assertEquals(Strategy.PIXEL_BY_PIXEL, selector.getDecisions().getFirst().strategy());
+    }
+
+    @Test
+    void should_search_with_chosen_locator() {
+        StrategySelector selector = new StrategySelector();
+        ImageLocator pixelByPixel = _ -> List.of(new Point(1, 2));
+        ImageLocator pyramid = _ -> List.of(new Point(3, 4));
+
+        List<Point> locations = selector.locatorOf(s -> s == Strategy.PYRAMID ? pyramid : pixelByPixel,
+                EnumSet.of(Strategy.PYRAMID)).locate(iron);
+
+        assertEquals(List.of(new Point(3, 4)), locations);
+        assertEquals(Strategy.PYRAMID, selector.getDecisions().getFirst().strategy());
+    }
+
+    @Test
+    void should_find_the_same_with_every_strategy(@TempDir Path dir) {
+        BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+        // exact copy of the first iron, masked like the iron icon
+        BufferedImage firstIron = ImageUtil.copy(iron.getImage());
+        for (int x = 0; x < firstIron.getWidth(); x++) {
+            for (int y = 0; y < firstIron.getHeight(); y++) {
+                if (!iron.getData().isMasked(x, y)) {
+                    firstIron.setRGB(x, y, twoIrons.getRGB(120 + x, 84 + y));
+                }
+            }
+        }
+        String firstIronPath = dir.resolve("first_iron.png").toString();
+        ImageUtil.save(firstIron, firstIronPath);
+        // uniform area, where the icon overlaps itself at neighbouring locations
+        BufferedImage uniform = new BufferedImage(40, 30, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = uniform.createGraphics();
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 0, 40, 30);
+        g.setColor(Color.ORANGE);
+        g.fillRect(10, 10, 12, 12);
+        g.dispose();
+        BufferedImage square = new BufferedImage(5, 5, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 5; y++) {
+                // translucent pixels of the icon are compared by color only
+                square.setRGB(x, y, x == 2 && y == 2 ? 0x80000000 | (Color.ORANGE.getRGB() & 0xffffff) : Color.ORANGE.getRGB());
+            }
+        }
+        square.setRGB(0, 0, 0xffff00ff);
+        String squarePath = dir.resolve("square.png").toString();
+        ImageUtil.save(square, squarePath);
+        Icon orangeSquare = new Icon(squarePath);
+
+        assertSameWithEveryStrategy(twoIrons, new Icon(firstIronPath));
+        assertSameWithEveryStrategy(uniform, orangeSquare);
+    }
+
+    private void assertSameWithEveryStrategy(BufferedImage base, Icon icon) {
+        PixelByPixelImageLocator pixelByPixel = new PixelByPixelImageLocator(base).withTolerance(0);
+        List<Point> expected = pixelByPixel.locate(icon);
+        assertFalse(expected.isEmpty(), icon.getFilename());
+        for (Strategy strategy : Strategy.values()) {
+            ImageLocator locator = switch (strategy) {
+                case PIXEL_BY_PIXEL -> pixelByPixel;
+                case PYRAMID -> new PyramidImageLocator(pixelByPixel);
+                case COLOR_MAP -> new ColorMapImageLocator(base);
+            };
+            assertEquals(expected, locator.locate(icon), strategy.name());
+        }
+    }
+
+    private Strategy search(StrategySelector selector, long pixelByPixelNanos, long pyramidNanos) {
+        Strategy strategy = selector.choose(iron, exact);
+        selector.record(iron, strategy, strategy == Strategy.PIXEL_BY_PIXEL ? pixelByPixelNanos : pyramidNanos);
+        return strategy;
+    }
+}
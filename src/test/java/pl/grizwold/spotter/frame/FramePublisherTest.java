@@ -0,0 +1,72 @@
+package pl.grizwold.spotter.frame;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramePublisherTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+    private final Rectangle area = new Rectangle(0, 0, twoIrons.getWidth(), twoIrons.getHeight());
+    private final FramePool pool = new FramePool();
+    private final FramePublisher publisher = new FramePublisher();
+
+    @Test
+    void should_keep_snapshot_consistent_when_newer_frames_are_published() {
+        publisher.publish(pool.acquire(area, 30).load(twoIrons));
+
+        try (Frame snapshot = publisher.snapshot()) {
+            publisher.publish(pool.acquire(area, 30).load(blank));
+            publisher.publish(pool.acquire(area, 30).load(blank));
+
+            assertNotSame(snapshot, publisher.peek());
+            assertEquals(List.of(new Point(120, 84), new Point(201, 230)), snapshot.locateAll(iron));
+        }
+    }
+
+    @Test
+    void should_recycle_frame_only_after_all_snapshots_are_closed() {
+        Frame first = pool.acquire(area, 30).load(twoIrons);
+        publisher.publish(first);
+        Frame snapshot = publisher.snapshot();
+
+        publisher.publish(pool.acquire(area, 30).load(blank));
+        assertNotSame(first, pool.acquire(area, 30));
+
+        snapshot.close();
+        assertSame(first, pool.acquire(area, 30));
+    }
+
+    @Test
+    void should_search_snapshot_from_many_threads() {
+        publisher.publish(pool.acquire(area, 30).load(twoIrons));
+
+        try (Frame snapshot = publisher.snapshot()) {
+            List<List<Point>> results = IntStream.range(0, 8)
+                    .parallel()
+                    .mapToObj(_ -> snapshot.locateAll(iron))
+                    .toList();
+
+            results.forEach(r -> assertEquals(List.of(new Point(120, 84), new Point(201, 230)), r));
+        }
+    }
+
+    @Test
+    void should_not_allow_searching_closed_snapshot() {
+        publisher.publish(pool.acquire(area, 30).load(twoIrons));
+        Frame snapshot = publisher.snapshot();
+        snapshot.close();
+        publisher.publish(pool.acquire(area, 30).load(blank));
+
+        assertThrows(IllegalStateException.class, () -> snapshot.locateAll(iron));
+    }
+}
@@ -0,0 +1,75 @@
+package pl.grizwold.spotter.frame;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final BufferedImage blank = new BufferedImage(twoIrons.getWidth(), twoIrons.getHeight(), BufferedImage.TYPE_INT_RGB);
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+    private final Rectangle area = new Rectangle(0, 0, twoIrons.getWidth(), twoIrons.getHeight());
+    private final FramePool pool = new FramePool();
+
+    @Test
+    void should_count_references() {
+        Frame frame = pool.acquire(area, 30).load(twoIrons);
+
+        assertTrue(frame.tryRetain());
+        frame.close();
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), frame.locateAll(iron));
+        frame.close();
+
+        assertFalse(frame.tryRetain());
+        assertThrows(IllegalStateException.class, frame::close);
+        assertThrows(IllegalStateException.class, () -> frame.locateAll(iron));
+    }
+
+    @Test
+    void should_reuse_buffers_after_last_reference_is_closed() {
+        Frame frame = pool.acquire(area, 30).load(twoIrons);
+        int[] pixels = frame.getPixels();
+        BufferedImage image = frame.getImage();
+        frame.close();
+
+        Frame recycled = pool.acquire(area, 30).load(blank);
+
+        assertSame(frame, recycled);
+        assertSame(pixels, recycled.getPixels());
+        assertSame(image, recycled.getImage());
+        assertEquals(List.of(), recycled.locateAll(iron));
+    }
+
+    @Test
+    void should_not_reuse_frame_while_it_is_retained() {
+        Frame frame = pool.acquire(area, 30).load(twoIrons);
+        assertTrue(frame.tryRetain());
+        frame.close();
+
+        Frame other = pool.acquire(area, 30).load(blank);
+
+        assertNotSame(frame, other);
+        assertNotSame(frame.getPixels(), other.getPixels());
+        assertEquals(List.of(new Point(120, 84), new Point(201, 230)), frame.locateAll(iron));
+        frame.close();
+        other.close();
+    }
+
+    @Test
+    void should_not_reuse_frame_of_different_tolerance() {
+        Frame frame = pool.acquire(area, 30).load(twoIrons);
+        frame.close();
+
+        Frame other = pool.acquire(area, 0);
+
+        assertNotSame(frame, other);
+        assertEquals(0, other.getColorTolerance());
+    }
+}
@@ -0,0 +1,65 @@
+package pl.grizwold.spotter.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.detection.comparision.PixelByPixelImageLocator;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IconPackTest {
+    private static final Path ICONS = Paths.get("src/test/resources/pattern_matching");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void should_load_the_same_icons_as_compiled() {
+        Path packFile = temp.resolve("icons.pack");
+
+        int count = IconPack.compile(ICONS, packFile);
+        IconPack pack = IconPack.load(packFile);
+
+        assertEquals(count, pack.size());
+        for (String name : pack.getNames()) {
+            IconData expected = new Icon(ICONS.resolve(name)).getData();
+            IconData loaded = pack.get(name).getData();
+            assertEquals(expected.getContentHash(), loaded.getContentHash());
+            assertEquals(expected.getMaskHash(), loaded.getMaskHash());
+            assertEquals(expected.getOpaqueBounds(), loaded.getOpaqueBounds());
+            assertEquals(expected.getHistogram(), loaded.getHistogram());
+        }
+    }
+
+    @Test
+    void should_locate_packed_icon() {
+        Path packFile = temp.resolve("icons.pack");
+        IconPack.compile(ICONS, packFile);
+        IconRegistry registry = new IconRegistry().register(IconPack.load(packFile), ICONS);
+
+        Icon iron = registry.get("src/test/resources/pattern_matching/iron.png");
+        var locations = new PixelByPixelImageLocator(ImageUtil.read(ICONS.resolve("two_irons.png").toString()))
+                .withTolerance(30)
+                .locate(iron);
+
+        assertEquals("iron.png", iron.getFilename());
+        assertEquals(2, locations.size());
+    }
+
+    @Test
+    void should_reject_truncated_pack() throws Exception {
+        Path packFile = temp.resolve("icons.pack");
+        IconPack.compile(ICONS, packFile);
+        byte[] bytes = Files.readAllBytes(packFile);
+        Path truncated = temp.resolve("truncated.pack");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> IconPack.load(truncated));
+        assertEquals(truncated + " is not an icon pack", e.getMessage());
+    }
+}
@@ -0,0 +1,39 @@
+package pl.grizwold.spotter.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IconRegistryTest {
+
+    @Test
+    void should_load_each_icon_once() {
+        IconRegistry registry = new IconRegistry();
+
+        Icon first = registry.get("src/test/resources/pattern_matching/iron.png");
+        Icon second = registry.get("src/test/resources/pattern_matching/../pattern_matching/iron.png");
+
+        assertSame(first, second);
+        assertSame(first.getData(), second.getData());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void should_list_only_non_mask_pixels() {
+        Icon pattern = new Icon("src/test/resources/pattern_matching/pattern_letter_three.png");
+        IconData data = pattern.getData();
+
+        int masked = 0;
+        for (int x = 0; x < data.getWidth(); x++) {
+            for (int y = 0; y < data.getHeight(); y++) {
+                if (data.isMasked(x, y)) masked++;
+            }
+        }
+
+        assertTrue(masked > 0);
+        assertEquals(data.getWidth() * data.getHeight() - masked, data.getOpaqueCount());
+        assertTrue(new Rectangle(data.getWidth(), data.getHeight()).contains(data.getOpaqueBounds()));
+    }
+}
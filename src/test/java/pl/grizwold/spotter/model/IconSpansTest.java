@@ -0,0 +1,44 @@
+package pl.grizwold.spotter.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IconSpansTest {
+    private static final int M = IconData.MASK;
+
+    @Test
+    void should_encode_visible_runs_of_each_row() {
+        IconData data = new IconData(4, 3, new int[]{
+                1, 2, M, 3,
+                M, M, M, M,
+                M, 4, 5, 6
+        });
+
+        IconSpans spans = data.getSpans();
+
+        assertEquals(3, spans.getCount());
+        assertArrayEquals(new int[]{0, 0, 2}, spans.getRows());
+        assertArrayEquals(new int[]{0, 3, 1}, spans.getStarts());
+        assertArrayEquals(new int[]{2, 1, 3}, spans.getLengths());
+        assertArrayEquals(new int[]{0, 2, 3}, spans.getOffsets());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, spans.getColors());
+    }
+
+    @Test
+    void should_cover_all_non_mask_pixels() {
+        IconData data = new Icon("src/test/resources/pattern_matching/pattern_letter_eight.png").getData();
+
+        IconSpans spans = data.getSpans();
+
+        assertEquals(data.getOpaqueCount(), spans.getColors().length);
+        for (int s = 0; s < spans.getCount(); s++) {
+            for (int i = 0; i < spans.getLengths()[s]; i++) {
+                int x = spans.getStarts()[s] + i;
+                int y = spans.getRows()[s];
+                assertFalse(data.isMasked(x, y));
+                assertEquals(data.getRGB(x, y), spans.getColors()[spans.getOffsets()[s] + i]);
+            }
+        }
+    }
+}
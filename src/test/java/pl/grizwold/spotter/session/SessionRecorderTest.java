@@ -0,0 +1,169 @@
+package pl.grizwold.spotter.session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.grizwold.spotter.detection.diff.TileDiff;
+import pl.grizwold.spotter.model.Icon;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRecorderTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+    private final Icon iron = new Icon("src/test/resources/pattern_matching/iron.png");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_replay_frames_recorded_as_keyframe_and_deltas() {
+        Path file = directory.resolve("session.rec");
+        BufferedImage changed = ImageUtil.copy(twoIrons);
+        Graphics2D g = changed.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(125, 90, 10, 10);
+        g.dispose();
+
+        try (SessionRecorder recorder = new SessionRecorder(file, new TileDiff(), 10, 8)) {
+            recorder.recordFrame(twoIrons);
+            recorder.recordFrame(changed);
+            recorder.recordFrame(changed);
+            assertEquals(0, recorder.getDroppedFrames());
+        }
+
+        try (SessionReader reader = new SessionReader(file)) {
+            List<SessionEvent> events = reader.readAll();
+
+            assertEquals(3, events.size());
+            List<SessionEvent.Frame> frames = events.stream().map(SessionEvent.Frame.class::cast).toList();
+            assertEquals(List.of(true, false, false), frames.stream().map(SessionEvent.Frame::keyframe).toList());
+            assertSamePixels(twoIrons, frames.get(0).image());
+            assertSamePixels(changed, frames.get(1).image());
+            assertSamePixels(changed, frames.get(2).image());
+        }
+    }
+
+    @Test
+    void should_interleave_events_with_frames() throws Exception {
+        Path file = directory.resolve("session.rec");
+
+        try (SessionRecorder recorder = new SessionRecorder(file)) {
+            recorder.recordFrame(twoIrons);
+            recorder.recordLocate(iron, null, List.of(new Point(120, 84), new Point(201, 230)), 2_000_000);
+            recorder.recordInput(InputAction.MOUSE_MOVE, 0, 130, 90);
+            recorder.recordInput(InputAction.KEY_PRESS, KeyEvent.VK_A, 0, 0);
+        }
+
+        try (SessionReader reader = new SessionReader(file)) {
+            List<SessionEvent> events = reader.readAll();
+
+            assertEquals(4, events.size());
+            assertInstanceOf(SessionEvent.Frame.class, events.get(0));
+            SessionEvent.Locate locate = (SessionEvent.Locate) events.get(1);
+            assertEquals(iron.getFilename(), locate.icon());
+            assertNull(locate.searchArea());
+            assertEquals(List.of(new Point(120, 84), new Point(201, 230)), locate.locations());
+            assertEquals(2000, locate.duration());
+            assertEquals(new SessionEvent.Input(events.get(2).timestamp(), InputAction.MOUSE_MOVE, 0, 130, 90),
+                    events.get(2));
+            assertEquals(InputAction.KEY_PRESS, ((SessionEvent.Input) events.get(3)).action());
+            for (int i = 1; i < events.size(); i++) {
+                assertTrue(events.get(i - 1).timestamp() <= events.get(i).timestamp());
+            }
+        }
+        assertTrue(Files.size(file) < (long) twoIrons.getWidth() * twoIrons.getHeight() * 4);
+    }
+
+    @Test
+    void should_diff_against_last_written_frame_when_writing_failed() {
+        Path file = directory.resolve("session.rec");
+        BufferedImage lost = ImageUtil.copy(twoIrons);
+        lost.setRGB(5, 5, Color.RED.getRGB());
+        BufferedImage changed = ImageUtil.copy(twoIrons);
+        changed.setRGB(200, 200, Color.BLUE.getRGB());
+        TileDiff failingOnce = new TileDiff() {
+            private int calls;
+
+            @Override
+            public List<Rectangle> getChangedRegions(int[] previous, int[] current, int width, int height) {
+                if (calls++ == 0) {
+                    throw new IllegalStateException("write failed");
+                }
+                return super.getChangedRegions(previous, current, width, height);
+            }
+        };
+
+        try (SessionRecorder recorder = new SessionRecorder(file, failingOnce, 10, 8)) {
+            recorder.recordFrame(twoIrons);
+            recorder.recordFrame(lost);
+            recorder.recordFrame(changed);
+        }
+
+        try (SessionReader reader = new SessionReader(file)) {
+            List<SessionEvent> events = reader.readAll();
+
+            assertEquals(2, events.size());
+            SessionEvent.Frame last = (SessionEvent.Frame) events.get(1);
+            assertFalse(last.keyframe());
+            assertSamePixels(changed, last.image());
+        }
+    }
+
+    @Test
+    void should_end_session_at_record_cut_short() throws Exception {
+        Path file = directory.resolve("session.rec");
+        try (SessionRecorder recorder = new SessionRecorder(file)) {
+            recorder.recordFrame(twoIrons);
+            recorder.recordInput(InputAction.KEY_PRESS, KeyEvent.VK_A, 0, 0);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        try (SessionReader reader = new SessionReader(file)) {
+            List<SessionEvent> events = assertTimeoutPreemptively(Duration.ofSeconds(5), reader::readAll);
+
+            assertEquals(1, events.size());
+            assertInstanceOf(SessionEvent.Frame.class, events.getFirst());
+        }
+    }
+
+    @Test
+    void should_fail_on_truncated_frame_data() throws Exception {
+        Path file = directory.resolve("session.rec");
+        try (SessionRecorder recorder = new SessionRecorder(file)) {
+            recorder.recordFrame(twoIrons);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int lengthOffset = 8 + 1 + 8;
+        int length = ByteBuffer.wrap(bytes, lengthOffset, 4).getInt();
+        byte[] truncated = Arrays.copyOf(bytes, lengthOffset + 4 + length / 2);
+        ByteBuffer.wrap(truncated, lengthOffset, 4).putInt(length / 2);
+        Files.write(file, truncated);
+
+        try (SessionReader reader = new SessionReader(file)) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(IOException.class, reader::next));
+        }
+    }
+
+    private void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + ":" + y);
+            }
+        }
+    }
+}
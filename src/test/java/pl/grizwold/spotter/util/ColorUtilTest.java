@@ -0,0 +1,22 @@
+package pl.grizwold.spotter.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColorUtilTest {
+
+    @Test
+    void should_measure_distance_on_red_green_and_blue() {
+        assertEquals(3 * 3, ColorUtil.distanceSquared(0xff030000, 0xff000000));
+        assertEquals(4 * 4, ColorUtil.distanceSquared(0xff000400, 0xff000000));
+        assertEquals(5 * 5, ColorUtil.distanceSquared(0xff000005, 0xff000000));
+        assertEquals(3 * 3 + 4 * 4 + 5 * 5, ColorUtil.distanceSquared(0xff030405, 0xff000000));
+    }
+
+    @Test
+    void should_ignore_alpha() {
+        assertEquals(0, ColorUtil.distanceSquared(0x00102030, 0xff102030));
+        assertEquals(1, ColorUtil.distanceSquared(0x80102031, 0xff102030));
+    }
+}
@@ -0,0 +1,59 @@
+package pl.grizwold.spotter.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DebugImageWriterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_write_copy_with_overlay_in_background() throws InterruptedException {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        DebugImageWriter writer = new DebugImageWriter(4, 10, 100);
+        Path path = directory.resolve("overlay.png");
+
+        assertTrue(writer.admit());
+        writer.writeCopy(image, g -> {
+            g.setColor(Color.MAGENTA);
+            g.drawLine(3, 4, 3, 4);
+        }, path.toString());
+        image.setRGB(0, 0, Color.WHITE.getRGB());
+
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        BufferedImage written = ImageUtil.read(path.toString());
+        assertEquals(Color.MAGENTA.getRGB(), written.getRGB(3, 4));
+        assertEquals(Color.BLACK.getRGB(), written.getRGB(0, 0));
+        assertEquals(1, writer.getWritten());
+    }
+
+    @Test
+    void should_drop_images_above_limits() throws Exception {
+        BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        DebugImageWriter writer = new DebugImageWriter(4, 2, 100);
+
+        int saved = 0;
+        for (int i = 0; i < 10; i++) {
+            if (writer.admit()) {
+                writer.writeCopy(image, _ -> {
+                }, directory.resolve(i + ".png").toString());
+                saved++;
+            }
+        }
+
+        assertTrue(writer.flush(Duration.ofSeconds(10)));
+        assertEquals(2, saved);
+        assertEquals(8, writer.getDropped());
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pl.grizwold.spotter.wait;
+
+import org.junit.jupiter.api.Test;
+import pl.grizwold.spotter.detection.Locator;
+import pl.grizwold.spotter.detection.comparision.ImageComparator;
+import pl.grizwold.spotter.detection.comparision.PixelByPixelImageLocator;
+import pl.grizwold.spotter.model.Point;
+import pl.grizwold.spotter.util.ImageUtil;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureLoopTest {
+    private final BufferedImage twoIrons = ImageUtil.read("src/test/resources/pattern_matching/two_irons.png");
+
+    @Test
+    void should_record_cpu_time_of_asynchronous_waits() throws Exception {
+        WaitScheduler scheduler = new WaitScheduler();
+        CaptureLoop loop = new CaptureLoop(() -> twoIrons,
+                frame -> new Locator(frame, new ImageComparator(), new PixelByPixelImageLocator(frame), new Point()),
+                scheduler);
+
+        String result = loop.await(_ -> Optional.of(busy(20)), 5000).get(5, TimeUnit.SECONDS);
+
+        assertEquals("done", result);
+        assertTrue(scheduler.getStatistics().getCpuMillis() > 0);
+    }
+
+    private static String busy(long millis) {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long sum = 0;
+        while (System.nanoTime() < end) {
+            sum += System.nanoTime() % 7;
+        }
+        return sum >= 0 ? "done" : "";
+    }
+}
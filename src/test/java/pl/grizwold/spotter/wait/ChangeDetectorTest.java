@@ -0,0 +1,25 @@
+package pl.grizwold.spotter.wait;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeDetectorTest {
+    @Test
+    void should_detect_changes_compensating_each_other() {
+        BufferedImage frame = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        frame.setRGB(3, 3, 0xff404040);
+        frame.setRGB(4, 3, 0xff404040);
+        BufferedImage edited = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        edited.setData(frame.getData());
+        edited.setRGB(3, 3, 0xff404040 + 1);
+        edited.setRGB(4, 3, 0xff404040 - 31);
+        ChangeDetector detector = new ChangeDetector();
+
+        assertTrue(detector.hasChanged(frame));
+        assertFalse(detector.hasChanged(frame));
+        assertTrue(detector.hasChanged(edited));
+    }
+}